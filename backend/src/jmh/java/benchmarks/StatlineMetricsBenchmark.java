@@ -0,0 +1,80 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The advanced metrics stage of GameToRDF over a season-sized batch of statlines: two team
+ * rows and eleven player rows per game, with random box score fields.
+ *
+ * JMH does not accept benchmarks in the default package, where the converters are, so the
+ * stage is reached through a method handle; the call costs nanoseconds against microseconds
+ * of work. Run with mvn -Pjmh package, then java -jar target/benchmarks.jar StatlineMetrics.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatlineMetricsBenchmark {
+
+    // A regular season is about 300 games, 25 seasons about 7500
+    @Param({"300", "7500"})
+    int games;
+
+    private MethodHandle compute;
+
+    @Setup
+    public void fill() throws Exception {
+        Class<?> stage = Class.forName("StatlineMetrics");
+        Class<?> formulas = Class.forName("StatlineMetrics$Formulas");
+        Object metrics = stage.getConstructor(formulas).newInstance(formulas.getField("DEFAULT").get(null));
+        Method addTeam = stage.getMethod("addTeam", String.class, double.class, int.class, int.class, int.class,
+                int.class, int.class, int.class, int.class, int.class);
+        Method addPlayer = stage.getMethod("addPlayer", String.class, int.class, double.class, int.class, int.class,
+                int.class, int.class, int.class, int.class, int.class, int.class);
+        Method opponents = stage.getMethod("opponents", int.class, int.class);
+
+        Random random = new Random(42);
+        for (int g = 0; g < games; g++) {
+            int[] teams = new int[2];
+            for (int t = 0; t < 2; t++) {
+                int row = (int) addTeam.invoke(metrics, "team", 40.0, 60 + random.nextInt(40), 15 + random.nextInt(10),
+                        35 + random.nextInt(10), 5 + random.nextInt(10), 20 + random.nextInt(10),
+                        15 + random.nextInt(15), 5 + random.nextInt(10), 8 + random.nextInt(10));
+                teams[t] = row;
+                for (int p = 0; p < 11; p++) {
+                    addPlayer.invoke(metrics, "player", row, 1 + random.nextDouble() * 35, random.nextInt(25),
+                            random.nextInt(6), random.nextInt(10), random.nextInt(4), random.nextInt(8),
+                            random.nextInt(8), random.nextInt(4), random.nextInt(4));
+                }
+            }
+            opponents.invoke(metrics, teams[0], teams[1]);
+        }
+        compute = MethodHandles.lookup()
+                .findVirtual(stage, "compute", MethodType.methodType(double[][].class))
+                .bindTo(metrics);
+    }
+
+    @Benchmark
+    public double[][] compute() throws Throwable {
+        return (double[][]) compute.invokeExact();
+    }
+}
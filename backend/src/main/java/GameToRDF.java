@@ -16,8 +16,13 @@ public class GameToRDF {
     private static final String STATS_PREFIX = "stats";
     private static final String OUTPUT_DIR   = "output";
     private static final String BASE_LEAGUE  = "https://www.euroleaguebasketball.net";
+    private static final String ENTITIES     = "http://www.ics.forth.gr/isl/Basketball/entities/";
     private static final DecimalFormat DF1   = new DecimalFormat("0.0");
     private static final Pattern SEASON_PATTERN = Pattern.compile("(\\d{4})");
+    // Season and career aggregates of every season processed, loaded into their own graph
+    private static final String AGGREGATES_FILE = "aggregates.ttl";
+    // Percentile sketches of the player stats of every season processed
+    private static final String SKETCHES_FILE = "sketches.bin";
 
     public static void main(String[] args) throws Exception {
         ObjectMapper mapper = new ObjectMapper();
@@ -38,9 +43,20 @@ public class GameToRDF {
             return;
         }
         // Pairing game and stats JSON Dfiles for each season
+        StatlineAggregator aggregates = new StatlineAggregator();
+        StatSketchWriter sketches = new StatSketchWriter();
+        StatlineMetrics.Formulas formulas = StatlineMetrics.Formulas.fromSystemProperties();
         for (SeasonPair seasonPair : seasonPairs) {
-            processSeasonPair(seasonPair, mapper);
+            processSeasonPair(seasonPair, mapper, aggregates, sketches, formulas);
         }
+
+        String aggregatesFile = OUTPUT_DIR + "/" + AGGREGATES_FILE;
+        aggregates.write(new File(aggregatesFile));
+        System.out.println("Aggregates of " + aggregates.size() + " players and teams exported to " + aggregatesFile);
+
+        String sketchesFile = OUTPUT_DIR + "/" + SKETCHES_FILE;
+        sketches.write(new File(sketchesFile));
+        System.out.println("Stat sketches of " + sketches.size() + " statlines exported to " + sketchesFile);
     }
 
 
@@ -153,7 +169,9 @@ public class GameToRDF {
         return null;
     }
 
-    private static void processSeasonPair(SeasonPair seasonPair, ObjectMapper mapper) throws Exception {
+    private static void processSeasonPair(SeasonPair seasonPair, ObjectMapper mapper, StatlineAggregator aggregates,
+                                          StatSketchWriter sketches, StatlineMetrics.Formulas formulas)
+            throws Exception {
         File gamesDir = seasonPair.gamesDir;
         File statsDir = seasonPair.statsDir;
         String seasonId = seasonPair.seasonId;
@@ -169,8 +187,13 @@ public class GameToRDF {
         }
 
         String outputFile = OUTPUT_DIR + "/games" + seasonId + ".ttl";
+        String columnsFile = OUTPUT_DIR + "/statlines" + seasonId + ".cols";
+        StatlineColumnsWriter columns = new StatlineColumnsWriter();
+        StatlineMetrics metrics = new StatlineMetrics(formulas);
         int processedGames = 0;
         int skippedGames = 0;
+        // Team statlines whose minutes are not the game's length, counted instead of listed
+        int minutesMismatches = 0;
 
         try (PrintWriter w = new PrintWriter(new FileWriter(outputFile))) {
             // prefixes
@@ -262,12 +285,22 @@ public class GameToRDF {
                 w.printf("    bball:gameVenue     ent:%s ;%n", venueCode);
                 w.printf("    bball:hasTeamBoxscore <%s#boxscore_%s>,\n<%s#boxscore_%s> ;%n", gameUri, awayCode, gameUri, homeCode);
 
+                List<String> refereeUris = new ArrayList<>();
+                for (JsonNode r : refs) {
+                    String code = r.path("code").asText(null);
+                    if (code != null && !code.isEmpty())
+                        refereeUris.add(ENTITIES + code);
+                }
+                columns.addGame(gameUri, seasonUri, homeTeamUri, awayTeamUri, gameRound, phaseName,
+                        ENTITIES + venueCode, refereeUris);
+
                 String winUri = homeScore > awayScore ? homeTeamUri : awayTeamUri;
                 String loseUri= homeScore > awayScore ? awayTeamUri : homeTeamUri;
                 w.printf("    bball:winningTeam   <%s> ;%n", winUri);
                 w.printf("    bball:losingTeam    <%s> .%n%n", loseUri);
 
                 //  TeamBoxscore & Stats
+                int[] teamRows = new int[2];
                 for (String teamCode : new String[]{awayCode, homeCode}) {
                     boolean isHome   = teamCode.equals(homeCode);
                     JsonNode gameTeam= game.path(isHome ? "local" : "road");
@@ -386,6 +419,16 @@ public class GameToRDF {
                     w.printf("    bball:foulsReceived  \"%d\"^^xsd:integer ;%n", fR);
                     w.printf("    bball:plusMinus      \"%d\"^^xsd:integer .%n%n", pm);
 
+                    // Usage needs the game's length; the API's team total is it in seconds (2400), not the players' sum
+                    double gameMinutes = StatlineMetrics.gameMinutes(otScores.size());
+                    if (Math.abs(tmMin - gameMinutes) > 1) {
+                        minutesMismatches++;
+                    }
+                    int teamRow = metrics.addTeam(boxBase + "_Stats", gameMinutes, pts, fg2m, fg2a, fg3m, fg3a, fta, oReb, tov);
+                    teamRows[isHome ? 1 : 0] = teamRow;
+                    aggregates.addTeam(teamUri, seasonUri, tmMin, tmVal, pts, fg2m, fg2a, fg3m, fg3a, ftm, fta,
+                            totReb, dReb, oReb, ast, stl, tov, blkF, blkA, fC, fR, pm);
+
                     // Player‐by‐player
                     for (JsonNode entry : statsTeam.path("players")) {
                         JsonNode Ppnode = entry.path("player").path("person");
@@ -466,16 +509,40 @@ public class GameToRDF {
                             w.printf("    bball:foulsReceived     \"%d\"^^xsd:integer ;%n", fRp);
                             w.printf("    bball:plusMinus         \"%d\"^^xsd:integer ;%n", pmp);
                             w.printf("    bball:startingFive      \"%b\"^^xsd:boolean .%n%n", sf);
+
+                            columns.add(BASE_LEAGUE + "/euroleague/players/-/" + pcode, teamUri, seasonUri, gameUri,
+                                    gameRound, pmin, pv, ppts, (int)p2m, (int)p2a, (int)p3m, (int)p3a, (int)pfm, (int)pfa,
+                                    treb, pdReb, poReb, astp, stlp, tovp, blkp, blka, fCp, fRp, pmp, sf ? 1 : 0);
+                            metrics.addPlayer(part + "_Stats", teamRow, pmin, ppts, (int)p2m, (int)p2a, (int)p3m, (int)p3a,
+                                    (int)pfa, poReb, tovp);
+                            aggregates.addPlayer(BASE_LEAGUE + "/euroleague/players/-/" + pcode, seasonUri, pmin, sf,
+                                    pv, ppts, (int)p2m, (int)p2a, (int)p3m, (int)p3a, (int)pfm, (int)pfa,
+                                    treb, pdReb, poReb, astp, stlp, tovp, blkp, blka, fCp, fRp, pmp);
+                            sketches.add(seasonUri, entry.path("player").path("positionName").asText(""), pmin,
+                                    pv, ppts, (int)p2m, (int)p2a, (int)p3m, (int)p3a, (int)pfm, (int)pfa,
+                                    treb, pdReb, poReb, astp, stlp, tovp, blkp, blka, fCp, fRp, pmp);
                         }
                     }
                 }
+                metrics.opponents(teamRows[0], teamRows[1]);
                 processedGames++;
             }
 
+            // eFG%, TS%, possessions, ratings and usage of every statline of the season
+            metrics.write(w);
+
             System.out.println("RDF for season " + seasonId + " exported to " + outputFile);
             System.out.println("Processed games: " + processedGames);
             System.out.println("Skipped games: " + skippedGames);
+            if (minutesMismatches > 0) {
+                System.out.println("Team statlines whose minutes are not the game's length (usage uses the length): "
+                        + minutesMismatches);
+            }
         }
+
+        // The same statlines as columns, for the frontend's in-memory engine
+        columns.write(new File(columnsFile));
+        System.out.println("Statline columns (" + columns.size() + " rows) exported to " + columnsFile);
     }
 
     // Helper class to store a matched pair of game and stats directories
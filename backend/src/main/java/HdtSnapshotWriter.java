@@ -0,0 +1,331 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryResult;
+import org.openrdf.rio.ntriples.NTriplesUtil;
+
+/**
+ * Exports the loaded graph as a compact read-only snapshot the frontend memory-maps,
+ * laid out like HDT: a dictionary plus bitmap triples.
+ *
+ * Layout (big-endian):
+ *   "KGSNAP01", long tripleCount, int pairCount
+ *   dictionary sections: shared subject/objects, subjects only, objects only, predicates;
+ *     each is int count, int[count + 1] offsets, then the UTF-8 N-Triples terms sorted by byte
+ *   int[predicates] triples per predicate
+ *   Sy: int[pairCount] predicate of each (subject, predicate) pair, Bp: bitmap marking each subject's last pair
+ *   Sz: int[tripleCount] object of each triple, Bo: bitmap marking each pair's last object
+ *   object index: int[objects + 1] offsets, int[tripleCount] positions in Sz, grouped by object
+ * A bitmap is int bits, long[] words, int[] number of ones before every 8th word.
+ *
+ * Subject ids are 1..shared+subjectsOnly, object ids are 1..shared then shared+1.. for objects only,
+ * predicate ids are 1..predicates, as in HDT.
+ */
+public class HdtSnapshotWriter {
+    static final byte[] MAGIC = "KGSNAP01".getBytes(StandardCharsets.US_ASCII);
+    static final String DEFAULT_FILE = "output/EuroleagueKG.snapshot";
+    // Bitmap words per rank sample
+    static final int WORDS_PER_SAMPLE = 8;
+
+    public static void main(String[] args) throws Exception {
+        // Store to export from: "virtuoso" (default), "memory" or "native <dir>"
+        TripleStore store = TripleStore.fromArgs(args);
+        try {
+            RepositoryConnection conn = store.getConnection();
+            try {
+                new HdtSnapshotWriter().write(conn, Virtuoso.GRAPH_SPACE, new File(DEFAULT_FILE));
+            } finally {
+                conn.close();
+            }
+        } finally {
+            store.shutDown();
+        }
+    }
+
+    public void write(RepositoryConnection conn, String graphSpace, File file) throws Exception {
+        long start = System.currentTimeMillis();
+
+        // Collect the graph with temporary ids: terms shared by all roles, predicates apart
+        Map<String, Integer> termIds = new HashMap<>();
+        Map<String, Integer> predicateIds = new HashMap<>();
+        List<String> terms = new ArrayList<>();
+        List<String> predicates = new ArrayList<>();
+        IntList ts = new IntList(), tp = new IntList(), to = new IntList();
+
+        URI graph = conn.getValueFactory().createURI(graphSpace);
+        RepositoryResult<Statement> statements = conn.getStatements(null, null, null, false, graph);
+        try {
+            while (statements.hasNext()) {
+                Statement st = statements.next();
+                int s = termId(termIds, terms, NTriplesUtil.toNTriplesString(st.getSubject()));
+                int p = termId(predicateIds, predicates, NTriplesUtil.toNTriplesString(st.getPredicate()));
+                int o = termId(termIds, terms, NTriplesUtil.toNTriplesString(st.getObject()));
+                ts.add(s);
+                tp.add(p);
+                to.add(o);
+            }
+        } finally {
+            statements.close();
+        }
+        // The strings are only needed to find the ids while collecting
+        byte[][] termBytes = utf8(terms);
+        byte[][] predicateBytes = utf8(predicates);
+        termIds.clear();
+        terms.clear();
+        int n = ts.size;
+        boolean[] subjectFlag = new boolean[termBytes.length];
+        boolean[] objectFlag = new boolean[termBytes.length];
+        for (int i = 0; i < n; i++) {
+            subjectFlag[ts.get(i)] = true;
+            objectFlag[to.get(i)] = true;
+        }
+
+        // Dictionary sections as temporary ids, each sorted by UTF-8 bytes so the reader can binary search them
+        IntList shared = new IntList(), subjectsOnly = new IntList(), objectsOnly = new IntList();
+        for (int i = 0; i < termBytes.length; i++) {
+            if (subjectFlag[i] && objectFlag[i]) shared.add(i);
+            else if (subjectFlag[i]) subjectsOnly.add(i);
+            else objectsOnly.add(i);
+        }
+        int[] predicateTerms = new int[predicateBytes.length];
+        Arrays.setAll(predicateTerms, i -> i);
+        sortByBytes(shared.values, shared.size, termBytes);
+        sortByBytes(subjectsOnly.values, subjectsOnly.size, termBytes);
+        sortByBytes(objectsOnly.values, objectsOnly.size, termBytes);
+        sortByBytes(predicateTerms, predicateTerms.length, predicateBytes);
+
+        // Final ids per role, by position in the sorted sections
+        int[] subjectId = new int[termBytes.length];
+        int[] objectId = new int[termBytes.length];
+        for (int k = 0; k < shared.size; k++) {
+            subjectId[shared.get(k)] = objectId[shared.get(k)] = k + 1;
+        }
+        for (int k = 0; k < subjectsOnly.size; k++) {
+            subjectId[subjectsOnly.get(k)] = shared.size + k + 1;
+        }
+        for (int k = 0; k < objectsOnly.size; k++) {
+            objectId[objectsOnly.get(k)] = shared.size + k + 1;
+        }
+        int[] predicateId = new int[predicateBytes.length];
+        for (int k = 0; k < predicateTerms.length; k++) {
+            predicateId[predicateTerms[k]] = k + 1;
+        }
+        for (int i = 0; i < n; i++) {
+            ts.values[i] = subjectId[ts.get(i)];
+            tp.values[i] = predicateId[tp.get(i)];
+            to.values[i] = objectId[to.get(i)];
+        }
+
+        // Triples in SPO order: stable counting sorts by object, then predicate, then subject
+        int[] order = new int[n];
+        Arrays.setAll(order, i -> i);
+        int[] buffer = new int[n];
+        countingSort(order, buffer, to.values, shared.size + objectsOnly.size);
+        countingSort(order, buffer, tp.values, predicateBytes.length);
+        countingSort(order, buffer, ts.values, shared.size + subjectsOnly.size);
+
+        IntList sy = new IntList(), sz = new IntList();
+        BitList bp = new BitList(), bo = new BitList();
+        int[] predicateCounts = new int[predicateBytes.length];
+        int previousSubject = -1, previousPredicate = -1, previousObject = -1;
+        for (int k = 0; k < n; k++) {
+            int i = order[k];
+            int s = ts.get(i), p = tp.get(i), o = to.get(i);
+            boolean samePair = s == previousSubject && p == previousPredicate;
+            if (samePair && o == previousObject) {
+                continue; // duplicate triple
+            }
+            if (!samePair) {
+                if (previousSubject != -1) {
+                    bo.set(sz.size - 1);
+                    if (s != previousSubject) {
+                        bp.set(sy.size - 1);
+                    }
+                }
+                sy.add(p);
+                bp.add();
+            }
+            sz.add(o);
+            bo.add();
+            predicateCounts[p - 1]++;
+            previousSubject = s;
+            previousPredicate = p;
+            previousObject = o;
+        }
+        if (sz.size > 0) {
+            bo.set(sz.size - 1);
+            bp.set(sy.size - 1);
+        }
+
+        // Object index: positions in Sz grouped by object id (counting sort)
+        int objectCount = shared.size + objectsOnly.size;
+        int[] objectOffsets = new int[objectCount + 2];
+        for (int z = 0; z < sz.size; z++) {
+            objectOffsets[sz.get(z) + 1]++;
+        }
+        for (int id = 1; id <= objectCount + 1; id++) {
+            objectOffsets[id] += objectOffsets[id - 1];
+        }
+        int[] fill = Arrays.copyOf(objectOffsets, objectOffsets.length);
+        int[] objectPositions = new int[sz.size];
+        for (int z = 0; z < sz.size; z++) {
+            objectPositions[fill[sz.get(z)]++] = z;
+        }
+
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.write(MAGIC);
+            out.writeLong(sz.size);
+            out.writeInt(sy.size);
+            writeSection(out, shared.values, shared.size, termBytes);
+            writeSection(out, subjectsOnly.values, subjectsOnly.size, termBytes);
+            writeSection(out, objectsOnly.values, objectsOnly.size, termBytes);
+            writeSection(out, predicateTerms, predicateTerms.length, predicateBytes);
+            writeInts(out, predicateCounts, predicateCounts.length);
+            writeInts(out, sy.values, sy.size);
+            bp.write(out);
+            writeInts(out, sz.values, sz.size);
+            bo.write(out);
+            // Entries k-1 and k bound the positions of object id k
+            writeInts(out, Arrays.copyOfRange(objectOffsets, 1, objectOffsets.length), objectCount + 1);
+            writeInts(out, objectPositions, objectPositions.length);
+        }
+        System.out.println("Wrote snapshot of " + sz.size + " triples (" + (shared.size + subjectsOnly.size + objectsOnly.size)
+                + " terms, " + predicateBytes.length + " predicates) to " + file + ": " + file.length() / 1024 + " KB in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static int termId(Map<String, Integer> ids, List<String> terms, String term) {
+        Integer id = ids.get(term);
+        if (id == null) {
+            id = terms.size();
+            ids.put(term, id);
+            terms.add(term);
+        }
+        return id;
+    }
+
+    private static byte[][] utf8(List<String> terms) {
+        byte[][] bytes = new byte[terms.size()][];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = terms.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    // Sorts the first length ids by their terms' bytes, unsigned; a merge sort over ints, nothing boxed
+    private static void sortByBytes(int[] ids, int length, byte[][] bytes) {
+        int[] from = ids, to = new int[length];
+        for (int width = 1; width < length; width *= 2) {
+            for (int low = 0; low < length; low += 2 * width) {
+                int mid = Math.min(low + width, length), high = Math.min(low + 2 * width, length);
+                int a = low, b = mid, k = low;
+                while (a < mid && b < high) {
+                    to[k++] = Arrays.compareUnsigned(bytes[from[b]], bytes[from[a]]) < 0 ? from[b++] : from[a++];
+                }
+                while (a < mid) to[k++] = from[a++];
+                while (b < high) to[k++] = from[b++];
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != ids) {
+            System.arraycopy(from, 0, ids, 0, length);
+        }
+    }
+
+    // Stable sort of order by key[order[k]], keys being 1..max
+    private static void countingSort(int[] order, int[] buffer, int[] key, int max) {
+        int[] starts = new int[max + 2];
+        for (int i : order) {
+            starts[key[i] + 1]++;
+        }
+        for (int k = 1; k < starts.length; k++) {
+            starts[k] += starts[k - 1];
+        }
+        for (int i : order) {
+            buffer[starts[key[i]]++] = i;
+        }
+        System.arraycopy(buffer, 0, order, 0, order.length);
+    }
+
+    private static void writeSection(DataOutputStream out, int[] ids, int length, byte[][] bytes) throws IOException {
+        out.writeInt(length);
+        int offset = 0;
+        out.writeInt(0);
+        for (int k = 0; k < length; k++) {
+            offset += bytes[ids[k]].length;
+            out.writeInt(offset);
+        }
+        for (int k = 0; k < length; k++) {
+            out.write(bytes[ids[k]]);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    private static class IntList {
+        int[] values = new int[1024];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int i) {
+            return values[i];
+        }
+    }
+
+    private static class BitList {
+        long[] words = new long[16];
+        int size;
+
+        void add() {
+            if (size / 64 == words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            size++;
+        }
+
+        void set(int bit) {
+            words[bit >>> 6] |= 1L << bit;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            int wordCount = (size + 63) / 64;
+            out.writeInt(size);
+            for (int i = 0; i < wordCount; i++) {
+                out.writeLong(words[i]);
+            }
+            // Ones before each sample, so rank and select only scan a few words
+            int samples = (wordCount + WORDS_PER_SAMPLE - 1) / WORDS_PER_SAMPLE;
+            int ones = 0;
+            for (int s = 0; s < samples; s++) {
+                out.writeInt(ones);
+                for (int w = s * WORDS_PER_SAMPLE; w < Math.min(wordCount, (s + 1) * WORDS_PER_SAMPLE); w++) {
+                    ones += Long.bitCount(words[w]);
+                }
+            }
+        }
+    }
+}
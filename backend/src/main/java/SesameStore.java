@@ -0,0 +1,37 @@
+import java.io.File;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.sail.SailRepository;
+import org.openrdf.sail.Sail;
+import org.openrdf.sail.memory.MemoryStore;
+import org.openrdf.sail.nativerdf.NativeStore;
+
+/**
+ * Embedded Sesame store, used to load and query the graph in-process
+ * without a running Virtuoso server.
+ */
+public class SesameStore implements TripleStore {
+    // Same indexes the frontend opens the native store with
+    public static final String NATIVE_INDEXES = "spoc,posc,cosp";
+
+    private final SailRepository repository;
+
+    private SesameStore(Sail sail) throws RepositoryException {
+        repository = new SailRepository(sail);
+        repository.initialize();
+    }
+
+    public static SesameStore inMemory() throws RepositoryException {
+        return new SesameStore(new MemoryStore());
+    }
+
+    public static SesameStore nativeStore(File dataDir) throws RepositoryException {
+        dataDir.mkdirs();
+        return new SesameStore(new NativeStore(dataDir, NATIVE_INDEXES));
+    }
+
+    @Override
+    public Repository getRepository() {
+        return repository;
+    }
+}
@@ -0,0 +1,91 @@
+import com.tdunning.math.stats.MergingDigest;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A t-digest of every player statline stat, per season and per position, added to as GameToRDF
+ * streams the games. The digests are mergeable, so the frontend answers percentiles over
+ * several seasons or positions by merging them, in bounded memory however many statlines
+ * there are. Players without a position in the box score are under "Unknown".
+ *
+ * Layout (big-endian):
+ *   "KGSKET01", int compression, int digests
+ *   per digest: season IRI, position and stat (the bball: property) as DataOutput UTF strings,
+ *     then int length and the digest in t-digest's MergingDigest.asBytes form
+ */
+public class StatSketchWriter {
+    static final byte[] MAGIC = "KGSKET01".getBytes(StandardCharsets.US_ASCII);
+    static final int COMPRESSION = 100;
+    static final String UNKNOWN_POSITION = "Unknown";
+    // minutesPlayed, then StatlineAggregator.STATS, in the order add() takes them
+    static final String[] STATS = new String[StatlineAggregator.STATS.length + 1];
+
+    static {
+        STATS[0] = "minutesPlayed";
+        System.arraycopy(StatlineAggregator.STATS, 0, STATS, 1, StatlineAggregator.STATS.length);
+    }
+
+    private record Group(String season, String position) {
+    }
+
+    // One digest per stat of each season and position, in the order first seen
+    private final Map<Group, MergingDigest[]> digests = new LinkedHashMap<>();
+    private long statlines;
+
+    /**
+     * Adds the statline of a player who played in a game.
+     *
+     * @param stats in {@link StatlineAggregator#STATS} order
+     */
+    public void add(String seasonUri, String position, double minutes, int... stats) {
+        if (stats.length != STATS.length - 1) {
+            throw new IllegalArgumentException("Expected " + (STATS.length - 1) + " stats, got " + stats.length);
+        }
+        Group group = new Group(seasonUri, position == null || position.isBlank() ? UNKNOWN_POSITION : position);
+        MergingDigest[] sketches = digests.computeIfAbsent(group, g -> {
+            MergingDigest[] created = new MergingDigest[STATS.length];
+            for (int s = 0; s < created.length; s++) {
+                created[s] = new MergingDigest(COMPRESSION);
+            }
+            return created;
+        });
+        // Rounded to a tenth, like the minutesPlayed literal of the statline
+        sketches[0].add(Math.round(minutes * 10) / 10.0);
+        for (int s = 0; s < stats.length; s++) {
+            sketches[s + 1].add(stats[s]);
+        }
+        statlines++;
+    }
+
+    public long size() {
+        return statlines;
+    }
+
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.write(MAGIC);
+            out.writeInt(COMPRESSION);
+            out.writeInt(digests.size() * STATS.length);
+            for (Map.Entry<Group, MergingDigest[]> entry : digests.entrySet()) {
+                for (int s = 0; s < STATS.length; s++) {
+                    MergingDigest digest = entry.getValue()[s];
+                    ByteBuffer bytes = ByteBuffer.allocate(digest.byteSize());
+                    digest.asBytes(bytes);
+                    out.writeUTF(entry.getKey().season());
+                    out.writeUTF(entry.getKey().position());
+                    out.writeUTF(STATS[s]);
+                    out.writeInt(bytes.position());
+                    out.write(bytes.array(), 0, bytes.position());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+import java.nio.charset.StandardCharsets;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Statement;
+import org.openrdf.rio.ntriples.NTriplesUtil;
+
+/**
+ * Drops statements that were already seen during this load, before they are sent to the store.
+ * Player, team, coach and venue files repeat the same triples for every season.
+ *
+ * Each statement is hashed from its N-Triples form to 128 bits and looked up in an
+ * open-addressing set of the fingerprints seen, 16 bytes per distinct statement. Two different
+ * statements share a fingerprint with a chance of about n^2 / 2^129, so for the few million
+ * statements of a load none is wrongly dropped.
+ */
+public class StatementDeduplicator {
+    private final FingerprintSet seen = new FingerprintSet(1 << 20);
+    private long accepted;
+    private long duplicates;
+
+    /**
+     * @return true if the statement is new and should be uploaded
+     */
+    public boolean add(Statement st) {
+        // Blank node labels are scoped to their file, so equal labels are not the same node
+        if (st.getSubject() instanceof BNode || st.getObject() instanceof BNode) {
+            accepted++;
+            return true;
+        }
+        String canonical = NTriplesUtil.toNTriplesString(st.getSubject()) + ' '
+                + NTriplesUtil.toNTriplesString(st.getPredicate()) + ' '
+                + NTriplesUtil.toNTriplesString(st.getObject());
+        byte[] bytes = canonical.getBytes(StandardCharsets.UTF_8);
+        long h1 = murmur64(bytes, 0x9747b28cL);
+        long h2 = murmur64(bytes, 0x85ebca6bL);
+        if (h1 == 0 && h2 == 0) {
+            h2 = 1; // (0, 0) marks an empty slot in the fingerprint set
+        }
+
+        if (seen.contains(h1, h2)) {
+            duplicates++;
+            return false;
+        }
+        seen.add(h1, h2);
+        accepted++;
+        return true;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long sizeInBytes() {
+        return seen.sizeInBytes();
+    }
+
+    // 64-bit MurmurHash2 (MurmurHash64A)
+    static long murmur64(byte[] data, long seed) {
+        final long m = 0xc6a4a7935bd1e995L;
+        final int r = 47;
+        long h = seed ^ (data.length * m);
+        int blocks = data.length / 8;
+        for (int i = 0; i < blocks; i++) {
+            int off = i * 8;
+            long k = (data[off] & 0xffL) | (data[off + 1] & 0xffL) << 8 | (data[off + 2] & 0xffL) << 16
+                    | (data[off + 3] & 0xffL) << 24 | (data[off + 4] & 0xffL) << 32 | (data[off + 5] & 0xffL) << 40
+                    | (data[off + 6] & 0xffL) << 48 | (data[off + 7] & 0xffL) << 56;
+            k *= m;
+            k ^= k >>> r;
+            k *= m;
+            h ^= k;
+            h *= m;
+        }
+        int tail = blocks * 8;
+        switch (data.length - tail) {
+            case 7: h ^= (data[tail + 6] & 0xffL) << 48;
+            case 6: h ^= (data[tail + 5] & 0xffL) << 40;
+            case 5: h ^= (data[tail + 4] & 0xffL) << 32;
+            case 4: h ^= (data[tail + 3] & 0xffL) << 24;
+            case 3: h ^= (data[tail + 2] & 0xffL) << 16;
+            case 2: h ^= (data[tail + 1] & 0xffL) << 8;
+            case 1: h ^= data[tail] & 0xffL;
+                h *= m;
+        }
+        h ^= h >>> r;
+        h *= m;
+        h ^= h >>> r;
+        return h;
+    }
+
+    // Open-addressing set of 128-bit fingerprints, stored as pairs of longs
+    private static class FingerprintSet {
+        private long[] table;
+        private int size;
+
+        FingerprintSet(int capacity) {
+            table = new long[capacity * 2];
+        }
+
+        boolean contains(long h1, long h2) {
+            int mask = table.length / 2 - 1;
+            for (int slot = (int) h1 & mask; ; slot = (slot + 1) & mask) {
+                long a = table[slot * 2];
+                long b = table[slot * 2 + 1];
+                if (a == 0 && b == 0) {
+                    return false;
+                }
+                if (a == h1 && b == h2) {
+                    return true;
+                }
+            }
+        }
+
+        void add(long h1, long h2) {
+            if ((size + 1) * 4L > table.length / 2 * 3L) {
+                grow();
+            }
+            insert(table, h1, h2);
+            size++;
+        }
+
+        private void grow() {
+            long[] old = table;
+            table = new long[old.length * 2];
+            for (int i = 0; i < old.length; i += 2) {
+                if (old[i] != 0 || old[i + 1] != 0) {
+                    insert(table, old[i], old[i + 1]);
+                }
+            }
+        }
+
+        private static void insert(long[] table, long h1, long h2) {
+            int mask = table.length / 2 - 1;
+            int slot = (int) h1 & mask;
+            while (table[slot * 2] != 0 || table[slot * 2 + 1] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot * 2] = h1;
+            table[slot * 2 + 1] = h2;
+        }
+
+        long sizeInBytes() {
+            return table.length * 8L;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Running season and career totals of every player and team, added to one statline at a time
+ * as GameToRDF streams the games, and written as their own graph of bball:SeasonAggregate and
+ * bball:CareerAggregate resources. Each aggregate is one subject, <player-or-team>#aggregate_2023_24
+ * or #aggregate_career, so the dashboard reads a total without summing statlines.
+ *
+ * An aggregate has the statline properties as totals, games played (starts for players, from
+ * startingFive), per-game averages of the main stats as bball:<stat>PerGame and the shooting
+ * percentages of its totals. Players who did not play in a game have no statline and are not counted.
+ */
+public class StatlineAggregator {
+    // The counting stats, in the order add() takes them: StatlineColumnsWriter.COLUMNS after minutesPlayed
+    static final String[] STATS = {
+            "PIR", "points",
+            "fieldGoalsMade2", "fieldGoalsAttempted2", "fieldGoalsMade3", "fieldGoalsAttempted3",
+            "freeThrowsMade", "freeThrowsAttempted",
+            "totalRebounds", "defensiveRebounds", "offensiveRebounds",
+            "assists", "steals", "turnovers", "blocks", "blocksAgainst",
+            "foulsCommitted", "foulsReceived", "plusMinus"
+    };
+    // Stats also averaged per game
+    private static final String[] PER_GAME = {"PIR", "points", "totalRebounds", "assists", "steals", "turnovers", "blocks"};
+    private static final String SEASON_PREFIX = "http://www.ics.forth.gr/isl/Basketball/entities/Season_";
+
+    // Subject -> season -> totals, and subject -> career totals, in the order first seen
+    private final Map<String, Map<String, Totals>> seasons = new LinkedHashMap<>();
+    private final Map<String, Totals> careers = new LinkedHashMap<>();
+
+    private static class Totals {
+        final boolean player;
+        int games;
+        int starts;
+        double minutes;
+        final long[] stats = new long[STATS.length];
+
+        Totals(boolean player) {
+            this.player = player;
+        }
+
+        void add(double gameMinutes, boolean started, int[] gameStats) {
+            games++;
+            if (started) starts++;
+            minutes += gameMinutes;
+            for (int s = 0; s < stats.length; s++) {
+                stats[s] += gameStats[s];
+            }
+        }
+
+        long stat(String name) {
+            for (int s = 0; s < STATS.length; s++) {
+                if (STATS[s].equals(name)) return stats[s];
+            }
+            throw new IllegalArgumentException(name);
+        }
+    }
+
+    /**
+     * @param stats in {@link #STATS} order
+     */
+    public void addPlayer(String playerUri, String seasonUri, double minutes, boolean started, int... stats) {
+        add(playerUri, true, seasonUri, minutes, started, stats);
+    }
+
+    /**
+     * Adds a team's totals of one game (its WholeTeamStats statline).
+     *
+     * @param stats in {@link #STATS} order
+     */
+    public void addTeam(String teamUri, String seasonUri, double minutes, int... stats) {
+        add(teamUri, false, seasonUri, minutes, false, stats);
+    }
+
+    private void add(String subject, boolean player, String seasonUri, double minutes, boolean started, int[] stats) {
+        if (stats.length != STATS.length) {
+            throw new IllegalArgumentException("Expected " + STATS.length + " stats, got " + stats.length);
+        }
+        // Rounded to a tenth, like the minutesPlayed literal of the statline
+        double gameMinutes = Math.round(minutes * 10) / 10.0;
+        seasons.computeIfAbsent(subject, s -> new LinkedHashMap<>())
+                .computeIfAbsent(seasonUri, s -> new Totals(player))
+                .add(gameMinutes, started, stats);
+        careers.computeIfAbsent(subject, s -> new Totals(player)).add(gameMinutes, started, stats);
+    }
+
+    public int size() {
+        return careers.size();
+    }
+
+    public void write(File file) throws IOException {
+        try (PrintWriter w = new PrintWriter(new FileWriter(file))) {
+            w.println("@prefix rdf:       <http://www.w3.org/1999/02/22-rdf-syntax-ns#> .");
+            w.println("@prefix xsd:       <http://www.w3.org/2001/XMLSchema#> .");
+            w.println("@prefix bball:     <http://www.ics.forth.gr/isl/Basketball#> .");
+            w.println();
+
+            for (Map.Entry<String, Map<String, Totals>> subject : seasons.entrySet()) {
+                for (Map.Entry<String, Totals> season : subject.getValue().entrySet()) {
+                    // Named like the season entity, aggregate_2023_24
+                    String suffix = season.getKey().substring(SEASON_PREFIX.length());
+                    w.printf("<%s#aggregate_%s> rdf:type bball:SeasonAggregate ;%n", subject.getKey(), suffix);
+                    w.printf("    bball:hasSeason       <%s> ;%n", season.getKey());
+                    writeTotals(w, subject.getKey(), season.getValue());
+                }
+                Totals career = careers.get(subject.getKey());
+                w.printf("<%s#aggregate_career> rdf:type bball:CareerAggregate ;%n", subject.getKey());
+                w.printf("    bball:seasonsPlayed   \"%d\"^^xsd:integer ;%n", subject.getValue().size());
+                writeTotals(w, subject.getKey(), career);
+            }
+        }
+    }
+
+    private static void writeTotals(PrintWriter w, String subject, Totals t) {
+        w.printf("    bball:aggregateOf     <%s> ;%n", subject);
+        w.printf("    bball:gamesPlayed     \"%d\"^^xsd:integer ;%n", t.games);
+        if (t.player) {
+            w.printf("    bball:starts          \"%d\"^^xsd:integer ;%n", t.starts);
+        }
+        w.printf("    bball:minutesPlayed   \"%s\"^^xsd:double ;%n", decimal(t.minutes));
+        for (int s = 0; s < STATS.length; s++) {
+            w.printf("    bball:%-19s \"%d\"^^xsd:integer ;%n", STATS[s], t.stats[s]);
+        }
+        long fgm = t.stat("fieldGoalsMade2") + t.stat("fieldGoalsMade3");
+        long fga = t.stat("fieldGoalsAttempted2") + t.stat("fieldGoalsAttempted3");
+        w.printf("    bball:fieldGoalsMadeTotal \"%d\"^^xsd:integer ;%n", fgm);
+        w.printf("    bball:fieldGoalsAttemptedTotal \"%d\"^^xsd:integer ;%n", fga);
+        w.printf("    bball:fieldGoalsPer2  \"%s\"^^xsd:double ;%n", percentage(t.stat("fieldGoalsMade2"), t.stat("fieldGoalsAttempted2")));
+        w.printf("    bball:fieldGoalsPer3  \"%s\"^^xsd:double ;%n", percentage(t.stat("fieldGoalsMade3"), t.stat("fieldGoalsAttempted3")));
+        w.printf("    bball:freeThrowsPer   \"%s\"^^xsd:double ;%n", percentage(t.stat("freeThrowsMade"), t.stat("freeThrowsAttempted")));
+        w.printf("    bball:fieldGoalsPer   \"%s\"^^xsd:double ;%n", percentage(fgm, fga));
+        w.printf("    bball:minutesPlayedPerGame \"%s\"^^xsd:double ;%n", decimal(t.minutes / t.games));
+        for (int p = 0; p < PER_GAME.length; p++) {
+            w.printf("    bball:%sPerGame \"%s\"^^xsd:double %s%n", PER_GAME[p],
+                    decimal((double) t.stat(PER_GAME[p]) / t.games), p == PER_GAME.length - 1 ? ".\n" : ";");
+        }
+    }
+
+    private static String percentage(long made, long attempted) {
+        return decimal(attempted > 0 ? 100.0 * made / attempted : 0);
+    }
+
+    // Locale.ROOT, so the decimal separator is always a point
+    private static String decimal(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
@@ -0,0 +1,180 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the player statlines of one season as GameToRDF writes them, and saves them as a
+ * binary column file next to the season's .ttl. The frontend memory-maps these files and
+ * scans the columns in place, without loading the statlines into a triple store.
+ *
+ * Layout (big-endian):
+ *   "KGCOLS02", int rows, int columns
+ *   dictionaries of the player, team, season and game IRIs, in that order;
+ *     each is int count, int[count + 1] offsets, then the UTF-8 IRIs, padded to 4 bytes
+ *   column directory: per column a type byte ('I' int or 'F' float), a name length byte
+ *     and the ASCII name, the bball: property it holds; padded to 4 bytes
+ *   int[rows] dictionary ids of each row's player, then team, season and game
+ *   the columns in directory order, 4 bytes per row each
+ *   the games: int games, dictionaries of the phases, venue IRIs and referee IRIs, then
+ *     int[games] each of game, season, home team, road team (ids in the dictionaries above),
+ *     round, phase and venue; int[games + 1] offsets and int[] ids of each game's referees
+ *
+ * Percentages and made/attempted totals are left out: they follow from the other columns.
+ */
+public class StatlineColumnsWriter {
+    static final byte[] MAGIC = "KGCOLS02".getBytes(StandardCharsets.US_ASCII);
+    // In the order add() takes them after the IRIs; minutesPlayed is the one float column
+    static final String[] COLUMNS = {
+            "hasRound", "minutesPlayed", "PIR", "points",
+            "fieldGoalsMade2", "fieldGoalsAttempted2", "fieldGoalsMade3", "fieldGoalsAttempted3",
+            "freeThrowsMade", "freeThrowsAttempted",
+            "totalRebounds", "defensiveRebounds", "offensiveRebounds",
+            "assists", "steals", "turnovers", "blocks", "blocksAgainst",
+            "foulsCommitted", "foulsReceived", "plusMinus", "startingFive"
+    };
+    private static final int MINUTES = 1;
+    private static final int KEYS = 4;
+    private static final int PLAYER = 0, TEAM = 1, SEASON = 2, GAME = 3;
+
+    private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+    // Per row the dictionary ids of its keys, then its columns; the float one as its bits
+    private final List<int[]> rows = new ArrayList<>();
+    private final Map<String, Integer> phases = new LinkedHashMap<>();
+    private final Map<String, Integer> venues = new LinkedHashMap<>();
+    private final Map<String, Integer> referees = new LinkedHashMap<>();
+    // Per game its game, season, home and road ids, round, phase and venue ids, then its referee ids
+    private final List<int[]> games = new ArrayList<>();
+
+    public StatlineColumnsWriter() {
+        for (int k = 0; k < KEYS; k++) {
+            dictionaries.add(new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * Adds the fields of a game the filters key games and statlines by.
+     */
+    public void addGame(String gameUri, String seasonUri, String homeTeamUri, String roadTeamUri,
+                        int round, String phase, String venueUri, List<String> refereeUris) {
+        int[] game = new int[7 + refereeUris.size()];
+        game[0] = id(dictionaries.get(GAME), gameUri);
+        game[1] = id(dictionaries.get(SEASON), seasonUri);
+        game[2] = id(dictionaries.get(TEAM), homeTeamUri);
+        game[3] = id(dictionaries.get(TEAM), roadTeamUri);
+        game[4] = round;
+        game[5] = id(phases, phase);
+        game[6] = id(venues, venueUri);
+        for (int r = 0; r < refereeUris.size(); r++) {
+            game[7 + r] = id(referees, refereeUris.get(r));
+        }
+        games.add(game);
+    }
+
+    /**
+     * Adds the statline of a player who played in a game.
+     *
+     * @param stats the columns after minutesPlayed, in {@link #COLUMNS} order; startingFive as 0 or 1
+     */
+    public void add(String playerUri, String teamUri, String seasonUri, String gameUri,
+                    int round, double minutes, int... stats) {
+        if (stats.length != COLUMNS.length - 2) {
+            throw new IllegalArgumentException("Expected " + (COLUMNS.length - 2) + " stats, got " + stats.length);
+        }
+        int[] row = new int[KEYS + COLUMNS.length];
+        String[] keys = {playerUri, teamUri, seasonUri, gameUri};
+        for (int k = 0; k < KEYS; k++) {
+            row[k] = id(dictionaries.get(k), keys[k]);
+        }
+        row[KEYS] = round;
+        // Rounded to a tenth, like the minutesPlayed literal of the .ttl
+        row[KEYS + MINUTES] = Float.floatToIntBits((float) (Math.round(minutes * 10) / 10.0));
+        System.arraycopy(stats, 0, row, KEYS + 2, stats.length);
+        rows.add(row);
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    private static int id(Map<String, Integer> dictionary, String value) {
+        return dictionary.computeIfAbsent(value, key -> dictionary.size());
+    }
+
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.write(MAGIC);
+            out.writeInt(rows.size());
+            out.writeInt(COLUMNS.length);
+
+            for (Map<String, Integer> dictionary : dictionaries) {
+                writeDictionary(out, dictionary);
+            }
+
+            for (int c = 0; c < COLUMNS.length; c++) {
+                out.writeByte(c == MINUTES ? 'F' : 'I');
+                out.writeByte(COLUMNS[c].length());
+                out.write(COLUMNS[c].getBytes(StandardCharsets.US_ASCII));
+            }
+            pad(out);
+
+            // Column by column, so each is one contiguous run of rows
+            for (int c = 0; c < KEYS + COLUMNS.length; c++) {
+                for (int[] row : rows) {
+                    out.writeInt(row[c]);
+                }
+            }
+
+            out.writeInt(games.size());
+            writeDictionary(out, phases);
+            writeDictionary(out, venues);
+            writeDictionary(out, referees);
+            for (int c = 0; c < 7; c++) {
+                for (int[] game : games) {
+                    out.writeInt(game[c]);
+                }
+            }
+            int offset = 0;
+            out.writeInt(offset);
+            for (int[] game : games) {
+                offset += game.length - 7;
+                out.writeInt(offset);
+            }
+            for (int[] game : games) {
+                for (int r = 7; r < game.length; r++) {
+                    out.writeInt(game[r]);
+                }
+            }
+        }
+    }
+
+    private static void writeDictionary(DataOutputStream out, Map<String, Integer> dictionary) throws IOException {
+        List<byte[]> terms = new ArrayList<>(dictionary.size());
+        for (String term : dictionary.keySet()) {
+            terms.add(term.getBytes(StandardCharsets.UTF_8));
+        }
+        out.writeInt(terms.size());
+        int offset = 0;
+        out.writeInt(offset);
+        for (byte[] term : terms) {
+            offset += term.length;
+            out.writeInt(offset);
+        }
+        for (byte[] term : terms) {
+            out.write(term);
+        }
+        pad(out);
+    }
+
+    private static void pad(DataOutputStream out) throws IOException {
+        while (out.size() % 4 != 0) {
+            out.writeByte(0);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Advanced metrics of every team and player statline of a season, derived from the box score
+ * fields GameToRDF already reads: effective field goal %, true shooting %, estimated
+ * possessions, offensive and defensive rating, and for players usage rate.
+ *
+ * Statlines are collected as columns and the metrics computed a column at a time, in plain
+ * loops over primitive arrays, then written as extra triples on the statline subjects. Team
+ * possessions are FGA - ORB + TOV + w * FTA and a game's possessions are the average of its
+ * two teams'; a player's are the plays they used, FGA + w * FTA + TOV. Ratings are points per
+ * {@link Formulas#per} possessions; a player's defensive rating is their team's, as the box
+ * score has no individual defensive stops. Usage is the share of the team's plays a player
+ * used while on court, 100 * plays * (game minutes) / (minutes * team plays), so the five
+ * players on court average 20; it takes the game's length as the team's minutes, which is
+ * 40 in regulation and not the 200 player-minutes a team's statline could also be read as.
+ *
+ * The coefficients are system properties, e.g. -Dmetrics.possessionFtWeight=0.475.
+ */
+public class StatlineMetrics {
+    static final String[] METRICS = {
+            "effectiveFieldGoalsPer", "trueShootingPer", "possessions",
+            "offensiveRating", "defensiveRating", "usageRate"
+    };
+    private static final int EFG = 0, TS = 1, POSSESSIONS = 2, ORTG = 3, DRTG = 4, USAGE = 5;
+    static final double REGULATION_MINUTES = 40;
+    static final double EXTRA_TIME_MINUTES = 5;
+
+    /**
+     * The weights of the formulas, each settable as -Dmetrics.<name>.
+     *
+     * @param threePointBonus   extra made field goals a made three counts as in eFG%
+     * @param shootingFtWeight  free throw attempts per shooting possession in TS%
+     * @param possessionFtWeight free throw attempts per possession, in possessions and usage
+     * @param offReboundWeight  possessions an offensive rebound extends rather than starts
+     * @param per               possessions the ratings are expressed per
+     */
+    public record Formulas(double threePointBonus, double shootingFtWeight, double possessionFtWeight,
+                           double offReboundWeight, double per) {
+
+        public static final Formulas DEFAULT = new Formulas(0.5, 0.44, 0.44, 1.0, 100);
+
+        public static Formulas fromSystemProperties() {
+            return new Formulas(
+                    weight("threePointBonus", DEFAULT.threePointBonus),
+                    weight("shootingFtWeight", DEFAULT.shootingFtWeight),
+                    weight("possessionFtWeight", DEFAULT.possessionFtWeight),
+                    weight("offReboundWeight", DEFAULT.offReboundWeight),
+                    weight("per", DEFAULT.per));
+        }
+
+        private static double weight(String name, double fallback) {
+            String value = System.getProperty("metrics." + name);
+            if (value == null) {
+                return fallback;
+            }
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("metrics." + name + " is not a number: " + value);
+            }
+        }
+    }
+
+    private final Formulas formulas;
+    private final List<String> subjects = new ArrayList<>();
+    private int rows;
+    // Inputs, one entry per statline
+    private boolean[] player = new boolean[256];
+    // Row of the statline's team, and for team rows the opponent's
+    private int[] team = new int[256];
+    private int[] opponent = new int[256];
+    private double[] minutes = new double[256];
+    private double[] points = new double[256];
+    private double[] fg2m = new double[256];
+    private double[] fg2a = new double[256];
+    private double[] fg3m = new double[256];
+    private double[] fg3a = new double[256];
+    private double[] fta = new double[256];
+    private double[] offRebounds = new double[256];
+    private double[] turnovers = new double[256];
+    // Outputs, metric by metric
+    private final double[][] metrics = new double[METRICS.length][];
+
+    public StatlineMetrics(Formulas formulas) {
+        this.formulas = formulas;
+    }
+
+    /**
+     * @return the length of a game with that many extra times
+     */
+    public static double gameMinutes(int extraTimes) {
+        return REGULATION_MINUTES + EXTRA_TIME_MINUTES * extraTimes;
+    }
+
+    /**
+     * Adds a team's statline of one game.
+     *
+     * @param gameMinutes the game's length, {@link #gameMinutes(int)}, not the team's player-minutes
+     * @return its row, for {@link #addPlayer} and {@link #opponents}
+     * @throws IllegalArgumentException for more minutes than a game could last, such as the players' total
+     */
+    public int addTeam(String statlineUri, double gameMinutes, int points, int fg2m, int fg2a, int fg3m, int fg3a,
+                       int fta, int offRebounds, int turnovers) {
+        // Five players on court for the whole game would make usage five times too high
+        if (gameMinutes >= 5 * REGULATION_MINUTES) {
+            throw new IllegalArgumentException(statlineUri + ": " + gameMinutes
+                    + " team minutes is the players' total, expected the game's length");
+        }
+        int row = add(statlineUri, false, gameMinutes, points, fg2m, fg2a, fg3m, fg3a, fta, offRebounds, turnovers);
+        team[row] = row;
+        opponent[row] = row;
+        return row;
+    }
+
+    /**
+     * Adds the statline of a player who played for the team of {@code teamRow}.
+     */
+    public void addPlayer(String statlineUri, int teamRow, double minutes, int points, int fg2m, int fg2a,
+                          int fg3m, int fg3a, int fta, int offRebounds, int turnovers) {
+        int row = add(statlineUri, true, minutes, points, fg2m, fg2a, fg3m, fg3a, fta, offRebounds, turnovers);
+        team[row] = teamRow;
+    }
+
+    /**
+     * Marks the two team rows of a game as each other's opponent.
+     */
+    public void opponents(int teamRow, int otherTeamRow) {
+        opponent[teamRow] = otherTeamRow;
+        opponent[otherTeamRow] = teamRow;
+    }
+
+    private int add(String subject, boolean isPlayer, double mins, int pts, int m2, int a2, int m3, int a3,
+                    int freeThrows, int orb, int tov) {
+        if (rows == player.length) {
+            grow();
+        }
+        int row = rows++;
+        subjects.add(subject);
+        player[row] = isPlayer;
+        minutes[row] = mins;
+        points[row] = pts;
+        fg2m[row] = m2;
+        fg2a[row] = a2;
+        fg3m[row] = m3;
+        fg3a[row] = a3;
+        fta[row] = freeThrows;
+        offRebounds[row] = orb;
+        turnovers[row] = tov;
+        return row;
+    }
+
+    private void grow() {
+        int capacity = player.length * 2;
+        player = Arrays.copyOf(player, capacity);
+        team = Arrays.copyOf(team, capacity);
+        opponent = Arrays.copyOf(opponent, capacity);
+        minutes = Arrays.copyOf(minutes, capacity);
+        points = Arrays.copyOf(points, capacity);
+        fg2m = Arrays.copyOf(fg2m, capacity);
+        fg2a = Arrays.copyOf(fg2a, capacity);
+        fg3m = Arrays.copyOf(fg3m, capacity);
+        fg3a = Arrays.copyOf(fg3a, capacity);
+        fta = Arrays.copyOf(fta, capacity);
+        offRebounds = Arrays.copyOf(offRebounds, capacity);
+        turnovers = Arrays.copyOf(turnovers, capacity);
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * Computes the metrics of every statline added so far.
+     *
+     * @return the metric of each row, in {@link #METRICS} order
+     */
+    public double[][] compute() {
+        int n = rows;
+        for (int m = 0; m < METRICS.length; m++) {
+            if (metrics[m] == null || metrics[m].length != n) {
+                metrics[m] = new double[n];
+            }
+        }
+        double[] efg = metrics[EFG], ts = metrics[TS], possessions = metrics[POSSESSIONS];
+        double[] ortg = metrics[ORTG], drtg = metrics[DRTG], usage = metrics[USAGE];
+        double bonus = formulas.threePointBonus(), shootingFt = formulas.shootingFtWeight();
+        double possessionFt = formulas.possessionFtWeight(), orbWeight = formulas.offReboundWeight();
+        double per = formulas.per();
+
+        // Shooting: no attempts means no made shots or points, so a zero denominator gives 0
+        for (int r = 0; r < n; r++) {
+            double fga = fg2a[r] + fg3a[r];
+            efg[r] = fga > 0 ? 100 * (fg2m[r] + fg3m[r] + bonus * fg3m[r]) / fga : 0;
+        }
+        for (int r = 0; r < n; r++) {
+            double attempts = fg2a[r] + fg3a[r] + shootingFt * fta[r];
+            ts[r] = attempts > 0 ? 100 * points[r] / (2 * attempts) : 0;
+        }
+        // Plays used: possessions for players, and before offensive rebounds for teams
+        for (int r = 0; r < n; r++) {
+            possessions[r] = fg2a[r] + fg3a[r] + possessionFt * fta[r] + turnovers[r];
+        }
+        for (int r = 0; r < n; r++) {
+            if (!player[r]) {
+                possessions[r] = Math.max(0, possessions[r] - orbWeight * offRebounds[r]);
+            }
+        }
+        for (int r = 0; r < n; r++) {
+            ortg[r] = possessions[r] > 0 ? per * points[r] / possessions[r] : 0;
+        }
+        // Teams: both ratings over the game's possessions, the average of the two teams'
+        for (int r = 0; r < n; r++) {
+            if (!player[r]) {
+                usage[r] = 0;
+                double game = (possessions[r] + possessions[opponent[r]]) / 2;
+                ortg[r] = game > 0 ? per * points[r] / game : 0;
+                drtg[r] = game > 0 ? per * points[opponent[r]] / game : 0;
+            }
+        }
+        // Players: the team's defensive rating, and their share of the team's plays while on court
+        for (int r = 0; r < n; r++) {
+            if (player[r]) {
+                int t = team[r];
+                drtg[r] = drtg[t];
+                double teamPlays = fg2a[t] + fg3a[t] + possessionFt * fta[t] + turnovers[t];
+                usage[r] = minutes[r] > 0 && teamPlays > 0
+                        ? 100 * possessions[r] * minutes[t] / (minutes[r] * teamPlays) : 0;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Computes the metrics and writes them as triples on the statline subjects, then starts over.
+     */
+    public void write(PrintWriter w) {
+        compute();
+        w.println("## Advanced metrics");
+        for (int r = 0; r < rows; r++) {
+            w.printf("<%s>", subjects.get(r));
+            int last = player[r] ? USAGE : DRTG;
+            for (int m = 0; m <= last; m++) {
+                w.printf("%n    bball:%-22s \"%s\"^^xsd:double %s", METRICS[m],
+                        String.format(Locale.ROOT, "%.1f", metrics[m][r]), m == last ? "." : ";");
+            }
+            w.println();
+        }
+        w.println();
+        subjects.clear();
+        rows = 0;
+    }
+}
@@ -0,0 +1,36 @@
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+
+/**
+ * A place the converted .ttl files can be loaded into.
+ * Implemented by the Virtuoso server and by the embedded Sesame stores,
+ * so the loader runs unchanged against either of them.
+ */
+public interface TripleStore {
+
+    Repository getRepository();
+
+    default RepositoryConnection getConnection() throws RepositoryException {
+        return getRepository().getConnection();
+    }
+
+    default void shutDown() throws RepositoryException {
+        getRepository().shutDown();
+    }
+
+    // Picks a store from the command line: "virtuoso" (default), "memory" or "native <dir>"
+    static TripleStore fromArgs(String[] args) throws RepositoryException {
+        String type = args.length > 0 ? args[0] : "virtuoso";
+        switch (type) {
+            case "memory":
+                return SesameStore.inMemory();
+            case "native":
+                return SesameStore.nativeStore(new java.io.File(args.length > 1 ? args[1] : "store"));
+            case "virtuoso":
+                return new VirtuosoStore("localhost", "1111", "dba", "dba");
+            default:
+                throw new IllegalArgumentException("Unknown store type: " + type);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.openrdf.model.Statement;
+import org.openrdf.rio.ParseErrorListener;
+import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.RDFParser;
+import org.openrdf.rio.RioSetting;
+import org.openrdf.rio.helpers.BasicParserSettings;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+import org.openrdf.rio.helpers.RioSettingImpl;
+import org.openrdf.rio.turtle.TurtleParser;
+
+/**
+ * Parses every .ttl file before anything is uploaded, one file per core, so a malformed
+ * file is reported with its line and column instead of failing half way through a load.
+ * Files are streamed through the parser; only the statement count is kept.
+ */
+public class TurtleValidator {
+    // A raw line break in a short "..." string is invalid Turtle that Virtuoso rejects but the
+    // Sesame parser lets through
+    static final RioSetting<Boolean> REJECT_LINE_BREAKS_IN_LITERALS = new RioSettingImpl<>(
+            "org.example.rejectLineBreaksInLiterals", "Reject literals containing unescaped line breaks", Boolean.TRUE);
+
+    private final int threads;
+
+    public TurtleValidator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public TurtleValidator(int threads) {
+        this.threads = threads;
+    }
+
+    public List<Result> validate(File[] files) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files.length)));
+        List<Result> results = new ArrayList<>();
+        try {
+            // Largest files first, so one big file does not start last and hold up the rest
+            File[] ordered = files.clone();
+            Arrays.sort(ordered, (a, b) -> Long.compare(b.length(), a.length()));
+            List<Future<Result>> futures = new ArrayList<>();
+            for (File file : ordered) {
+                futures.add(pool.submit(() -> validate(file)));
+            }
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException(ex.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        results.sort((a, b) -> a.file.getName().compareTo(b.file.getName()));
+
+        long triples = 0;
+        int invalid = 0;
+        for (Result result : results) {
+            triples += result.triples;
+            if (!result.isValid()) {
+                invalid++;
+            }
+        }
+        System.out.println("Validated " + results.size() + " files (" + triples + " triples) on " + threads
+                + " threads in " + (System.currentTimeMillis() - start) + " ms, " + invalid + " with errors");
+        return results;
+    }
+
+    public Result validate(File file) {
+        Result result = new Result(file);
+        RDFParser parser = new StrictTurtleParser();
+        // Check literal values, and keep going after those errors so all of them are reported
+        parser.getParserConfig().set(BasicParserSettings.VERIFY_DATATYPE_VALUES, true);
+        parser.getParserConfig().set(BasicParserSettings.FAIL_ON_UNKNOWN_DATATYPES, false);
+        parser.getParserConfig().addNonFatalError(BasicParserSettings.VERIFY_DATATYPE_VALUES);
+        parser.getParserConfig().addNonFatalError(REJECT_LINE_BREAKS_IN_LITERALS);
+        parser.setParseErrorListener(result);
+        parser.setRDFHandler(new RDFHandlerBase() {
+            @Override
+            public void handleStatement(Statement st) {
+                result.triples++;
+            }
+        });
+
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+            parser.parse(in, file.toURI().toString());
+        } catch (RDFParseException ex) {
+            // Fatal errors are normally passed to the listener before being thrown
+            if (!result.fatal) {
+                result.errors.add(location(ex.getLineNumber(), ex.getColumnNumber()) + ex.getMessage());
+            }
+        } catch (Exception ex) {
+            result.errors.add("cannot read file: " + ex.getMessage());
+        }
+        return result;
+    }
+
+    private static String location(int line, int column) {
+        return column > 0 ? "line " + line + ", column " + column + ": " : "line " + line + ": ";
+    }
+
+    private static class StrictTurtleParser extends TurtleParser {
+        // Only called for short "..." and '...' strings, with the text as written, escapes
+        // undecoded; a line break in a """long""" string or written as \n is valid
+        @Override
+        protected String parseString(int closingCharacter) throws IOException, RDFParseException {
+            String raw = super.parseString(closingCharacter);
+            if (raw.indexOf('\n') >= 0 || raw.indexOf('\r') >= 0) {
+                String start = raw.length() > 40 ? raw.substring(0, 40) + "..." : raw;
+                reportError("unescaped line break in string literal \"" + start.replaceAll("[\r\n]+", " ") + "\"",
+                        REJECT_LINE_BREAKS_IN_LITERALS);
+            }
+            return raw;
+        }
+    }
+
+    public static class Result implements ParseErrorListener {
+        final File file;
+        final List<String> errors = new ArrayList<>();
+        long triples;
+        boolean fatal;
+
+        Result(File file) {
+            this.file = file;
+        }
+
+        public boolean isValid() {
+            return errors.isEmpty();
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public long getTriples() {
+            return triples;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        @Override
+        public void warning(String msg, int lineNo, int colNo) {
+        }
+
+        @Override
+        public void error(String msg, int lineNo, int colNo) {
+            errors.add(location(lineNo, colNo) + msg);
+        }
+
+        @Override
+        public void fatalError(String msg, int lineNo, int colNo) {
+            fatal = true;
+            errors.add(location(lineNo, colNo) + msg);
+        }
+    }
+}
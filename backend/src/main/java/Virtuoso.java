@@ -1,26 +1,65 @@
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
 import org.openrdf.repository.RepositoryConnection;
 import org.openrdf.repository.RepositoryException;
 import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandlerException;
 import org.openrdf.rio.RDFParseException;
-import virtuoso.sesame2.driver.VirtuosoRepository;
+import org.openrdf.rio.RDFParser;
+import org.openrdf.rio.Rio;
+import org.openrdf.rio.helpers.RDFHandlerBase;
 
 
 
 public class Virtuoso {
-    String virtuosoHost = "localhost";
-    String virtuosoPort = "1111";
-    String virtuosoUserName = "dba";
-    String virtuosoPassword = "dba";
-
-    public static void main(String[] args) {
-        Virtuoso vir = new Virtuoso();
-        // Upload all files from output folder
-        vir.uploadAllFiles();
+    static final String GRAPH_SPACE = "http://www.ics.forth.gr/isl/EuroleagueKG";
+    // VoID description of GRAPH_SPACE, rewritten after every load
+    static final String STATS_GRAPH = GRAPH_SPACE + "/void";
+    // Season and career aggregates GameToRDF writes to output/aggregates.ttl, replaced on every load
+    static final String AGGREGATES_GRAPH = GRAPH_SPACE + "/aggregates";
+    static final String AGGREGATES_FILE = "aggregates.ttl";
+    // HyperLogLog sketches of the distinct counts, one section per uploaded file, rewritten after every load
+    static final String DISTINCT_SKETCHES_FILE = "distinct.hll";
+
+    // Statements sent to the store in one add() call
+    private static final int BATCH_SIZE = 10000;
+
+    private final TripleStore store;
+    // Drop statements repeated across the files of a graph, by graph URI, so one already in
+    // another graph is still uploaded; null when run with -Ddedup=false
+    private final Map<String, StatementDeduplicator> deduplicators;
+    // Sketches of this and earlier loads; null until uploadAllFiles reads them
+    private DistinctSketches sketches;
+    private long uploadedStatements;
+    private long uploadNanos;
+
+    public Virtuoso(TripleStore store) {
+        this.store = store;
+        this.deduplicators = Boolean.parseBoolean(System.getProperty("dedup", "true")) ? new LinkedHashMap<>() : null;
+    }
+
+    public static void main(String[] args) throws RepositoryException {
+        // Store to load into: "virtuoso" (default), "memory" or "native <dir>"
+        TripleStore store = TripleStore.fromArgs(args);
+        Virtuoso vir = new Virtuoso(store);
+        try {
+            // Upload all files from output folder
+            vir.uploadAllFiles();
+        } finally {
+            store.shutDown();
+        }
     }
     public void uploadAllFiles() {
         String basePath = "output";
@@ -35,9 +74,23 @@ public class Virtuoso {
             if (ttlFiles != null && ttlFiles.length > 0) {
                 System.out.println("Found " + ttlFiles.length + " TTL files to upload");
 
+                // Nothing is uploaded unless every file parses
+                if (Boolean.parseBoolean(System.getProperty("validate", "true")) && !validateAll(ttlFiles)) {
+                    System.out.println("Upload aborted, fix the files above and run again");
+                    return;
+                }
+
+                File sketchFile = new File(outputFolder, DISTINCT_SKETCHES_FILE);
+                sketches = readSketches(sketchFile);
+                long start = System.currentTimeMillis();
                 for (File ttlFile : ttlFiles) {
                     uploadNewFile(ttlFile.getAbsolutePath());
                 }
+                System.out.println("Uploaded " + ttlFiles.length + " files in " + (System.currentTimeMillis() - start) + " ms");
+                printDeduplicationReport();
+                writeSketches(sketchFile);
+                writeStatistics();
+                writeLoadVersion();
             } else {
                 System.out.println("No TTL files found in output directory");
             }
@@ -46,13 +99,35 @@ public class Virtuoso {
         }
     }
 
+    public boolean validateAll(File[] ttlFiles) {
+        try {
+            boolean valid = true;
+            for (TurtleValidator.Result result : new TurtleValidator().validate(ttlFiles)) {
+                if (!result.isValid()) {
+                    valid = false;
+                    for (String error : result.getErrors()) {
+                        System.err.println(result.getFile().getName() + ": " + error);
+                    }
+                }
+            }
+            return valid;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
     public void uploadNewFile(String file) {
         File f = new File(file);
-        Virtuoso upload = new Virtuoso();
 
-        String graphspace = "http://www.ics.forth.gr/isl/EuroleagueKG";
         try {
-            upload.uploadFileToVirtuoso(f, graphspace);
+            if (f.getName().equals(AGGREGATES_FILE)) {
+                // Totals change as seasons are added, so the old ones must not stay next to the new
+                clearGraph(AGGREGATES_GRAPH);
+                uploadFile(f, AGGREGATES_GRAPH);
+            } else {
+                uploadFile(f, GRAPH_SPACE);
+            }
             System.out.println("Uploaded: " + file);
         } catch (RepositoryException ex) {
             Logger.getLogger(Virtuoso.class.getName()).log(Level.SEVERE, null, ex);
@@ -63,19 +138,185 @@ public class Virtuoso {
         }
     }
 
-    public void uploadFileToVirtuoso(File file, String graphSpace) throws RepositoryException, IOException, RDFParseException {
+    private static DistinctSketches readSketches(File file) {
+        try {
+            return DistinctSketches.read(file);
+        } catch (IOException ex) {
+            // Sections of files not uploaded this time are lost, so their counts are missing until they are
+            Logger.getLogger(Virtuoso.class.getName()).log(Level.WARNING, "Could not read " + file + ", starting the sketches over", ex);
+            return new DistinctSketches();
+        }
+    }
+
+    public void writeSketches(File file) {
+        try {
+            sketches.write(file);
+            System.out.printf("Wrote distinct count sketches to %s, ~%d distinct subjects and ~%d distinct objects in %s%n", file,
+                    sketches.estimate(GRAPH_SPACE, "distinctSubjects"), sketches.estimate(GRAPH_SPACE, "distinctObjects"), GRAPH_SPACE);
+        } catch (IOException ex) {
+            Logger.getLogger(Virtuoso.class.getName()).log(Level.SEVERE, "Could not write " + file, ex);
+        }
+    }
+
+    public void clearGraph(String graphSpace) throws RepositoryException {
+        RepositoryConnection conn = store.getConnection();
+        try {
+            conn.clear(conn.getRepository().getValueFactory().createURI(graphSpace));
+        } finally {
+            conn.close();
+        }
+    }
 
-        VirtuosoRepository virt_repository = new VirtuosoRepository("jdbc:virtuoso://"
-                + virtuosoHost + ":" + virtuosoPort
-                + "/charset=UTF-8/log_enable=2",
-                virtuosoUserName, virtuosoPassword);
+    public void writeStatistics() {
+        try {
+            RepositoryConnection conn = store.getConnection();
+            try {
+                new VoidStatistics(GRAPH_SPACE, STATS_GRAPH).materialise(conn);
+            } finally {
+                conn.close();
+            }
+        } catch (Exception ex) {
+            Logger.getLogger(Virtuoso.class.getName()).log(Level.SEVERE, "Could not write statistics to " + STATS_GRAPH, ex);
+        }
+    }
 
-        RepositoryConnection conn = virt_repository.getConnection();
-        System.out.println("Uploading File: " + file + " to graphSpace: " + graphSpace);
-        RDFFormat format = RDFFormat.TURTLE;
-        URI graph = conn.getRepository().getValueFactory().createURI(graphSpace);
-        conn.add(file, null, format, graph);
-        conn.close();
+    // Load timestamp next to the VoID description; the frontend keeps cached results until it changes.
+    // Written after the statistics, since materialising them clears the stats graph.
+    public void writeLoadVersion() {
+        try {
+            RepositoryConnection conn = store.getConnection();
+            try {
+                ValueFactory vf = conn.getValueFactory();
+                URI dataset = vf.createURI(GRAPH_SPACE);
+                URI loadedAt = vf.createURI(VoidStatistics.KGS, "loadedAt");
+                URI stats = vf.createURI(STATS_GRAPH);
+                conn.remove(dataset, loadedAt, null, stats);
+                conn.add(dataset, loadedAt, vf.createLiteral(new Date()), stats);
+            } finally {
+                conn.close();
+            }
+        } catch (RepositoryException ex) {
+            Logger.getLogger(Virtuoso.class.getName()).log(Level.SEVERE, "Could not write the load version to " + STATS_GRAPH, ex);
+        }
+    }
+
+    public void uploadFile(File file, String graphSpace) throws RepositoryException, IOException, RDFParseException {
+        RepositoryConnection conn = store.getConnection();
+        try {
+            System.out.println("Uploading File: " + file + " to graphSpace: " + graphSpace);
+            RDFFormat format = RDFFormat.TURTLE;
+            URI graph = conn.getRepository().getValueFactory().createURI(graphSpace);
+            DistinctSketches.Section section = sketches != null ? sketches.replace(file, graphSpace) : null;
+            if (deduplicators == null) {
+                long start = System.nanoTime();
+                conn.add(file, null, format, graph);
+                uploadNanos += System.nanoTime() - start;
+                if (section != null) {
+                    sketch(file, format, section, conn.getValueFactory());
+                }
+            } else {
+                uploadDeduplicated(conn, file, format, graph, section,
+                        deduplicators.computeIfAbsent(graphSpace, g -> new StatementDeduplicator()));
+            }
+        } finally {
+            conn.close();
+        }
+    }
+
+    // Parses the file here instead of in the store, so repeated statements never go over the wire
+    // Every parsed statement goes into the file's sketches, repeated or not, since the store holds it either way
+    private void uploadDeduplicated(RepositoryConnection conn, File file, RDFFormat format, URI graph,
+                                    DistinctSketches.Section section, StatementDeduplicator deduplicator)
+            throws RepositoryException, IOException, RDFParseException {
+        List<Statement> batch = new ArrayList<>(BATCH_SIZE);
+        long duplicatesBefore = deduplicator.getDuplicates();
+
+        RDFParser parser = Rio.createParser(format, conn.getValueFactory());
+        parser.setRDFHandler(new RDFHandlerBase() {
+            @Override
+            public void handleStatement(Statement st) throws RDFHandlerException {
+                if (section != null) {
+                    section.add(st);
+                }
+                if (deduplicator.add(st)) {
+                    batch.add(st);
+                    if (batch.size() == BATCH_SIZE) {
+                        flush(conn, batch, graph);
+                    }
+                }
+            }
+
+            @Override
+            public void endRDF() throws RDFHandlerException {
+                flush(conn, batch, graph);
+            }
+        });
+
+        try (InputStream in = new FileInputStream(file)) {
+            parser.parse(in, file.toURI().toString());
+        } catch (RDFHandlerException ex) {
+            if (ex.getCause() instanceof RepositoryException) {
+                throw (RepositoryException) ex.getCause();
+            }
+            throw new RepositoryException(ex);
+        }
+        System.out.println("Skipped " + (deduplicator.getDuplicates() - duplicatesBefore) + " duplicate statements in " + file.getName());
+    }
+
+    // Without deduplication the store parses the file itself, so the sketches need a pass of their own
+    private static void sketch(File file, RDFFormat format, DistinctSketches.Section section, ValueFactory vf)
+            throws IOException, RDFParseException, RepositoryException {
+        RDFParser parser = Rio.createParser(format, vf);
+        parser.setRDFHandler(new RDFHandlerBase() {
+            @Override
+            public void handleStatement(Statement st) {
+                section.add(st);
+            }
+        });
+        try (InputStream in = new FileInputStream(file)) {
+            parser.parse(in, file.toURI().toString());
+        } catch (RDFHandlerException ex) {
+            throw new RepositoryException(ex);
+        }
+    }
+
+    private void flush(RepositoryConnection conn, List<Statement> batch, URI graph) throws RDFHandlerException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            conn.add(batch, graph);
+            uploadNanos += System.nanoTime() - start;
+            uploadedStatements += batch.size();
+            batch.clear();
+        } catch (RepositoryException ex) {
+            throw new RDFHandlerException(ex);
+        }
+    }
+
+    private void printDeduplicationReport() {
+        if (deduplicators == null) {
+            System.out.println("Deduplication disabled, store add() time: " + uploadNanos / 1_000_000 + " ms");
+            return;
+        }
+        long duplicates = 0;
+        long total = 0;
+        long bytes = 0;
+        for (StatementDeduplicator deduplicator : deduplicators.values()) {
+            duplicates += deduplicator.getDuplicates();
+            total += deduplicator.getAccepted() + deduplicator.getDuplicates();
+            bytes += deduplicator.sizeInBytes();
+        }
+        System.out.printf("Deduplication: removed %d of %d statements (%.1f%%) in %d graphs, %.1f MB of fingerprints%n",
+                duplicates, total, total > 0 ? 100.0 * duplicates / total : 0, deduplicators.size(), bytes / (1024.0 * 1024.0));
+        if (uploadedStatements > 0) {
+            // Not measured: assumes a removed statement would have cost what a sent one did on average.
+            // Compare the add() time printed by a run with -Ddedup=false for the real saving
+            double nanosPerStatement = (double) uploadNanos / uploadedStatements;
+            System.out.printf("Store add() time: %d ms, extrapolated time saved (duplicates x average add() time): %d ms%n",
+                    uploadNanos / 1_000_000, (long) (duplicates * nanosPerStatement / 1_000_000));
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryException;
+import virtuoso.sesame2.driver.VirtuosoRepository;
+
+public class VirtuosoStore implements TripleStore {
+    private final VirtuosoRepository repository;
+
+    public VirtuosoStore(String host, String port, String userName, String password) throws RepositoryException {
+        repository = new VirtuosoRepository("jdbc:virtuoso://"
+                + host + ":" + port
+                + "/charset=UTF-8/log_enable=2",
+                userName, password);
+        repository.initialize();
+    }
+
+    @Override
+    public Repository getRepository() {
+        return repository;
+    }
+}
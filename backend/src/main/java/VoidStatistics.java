@@ -0,0 +1,148 @@
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.XMLSchema;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.repository.RepositoryConnection;
+
+/**
+ * Computes the dashboard statistics of the loaded graph once per load and stores
+ * them as a VoID description in a separate stats graph, so the frontend can
+ * read them instead of scanning every triple on each request.
+ */
+public class VoidStatistics {
+    static final String VOID = "http://rdfs.org/ns/void#";
+    // Counts VoID has no term for (literal/resource split, datatypes)
+    static final String KGS = "http://www.ics.forth.gr/isl/EuroleagueKG/stats#";
+    static final String DCTERMS_MODIFIED = "http://purl.org/dc/terms/modified";
+    // Most frequent subject URI prefixes kept in the description
+    private static final int MAX_URI_PREFIXES = 100;
+
+    private final String dataGraph;
+    private final String statsGraph;
+
+    public VoidStatistics(String dataGraph, String statsGraph) {
+        this.dataGraph = dataGraph;
+        this.statsGraph = statsGraph;
+    }
+
+    /**
+     * Replaces the contents of the stats graph with a fresh description of the data graph.
+     */
+    public void materialise(RepositoryConnection conn) throws Exception {
+        long start = System.currentTimeMillis();
+        List<Statement> description = describe(conn);
+
+        URI stats = conn.getValueFactory().createURI(statsGraph);
+        conn.clear(stats);
+        conn.add(description, stats);
+        System.out.println("Wrote " + description.size() + " VoID statements to " + statsGraph
+                + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private List<Statement> describe(RepositoryConnection conn) throws Exception {
+        ValueFactory vf = conn.getValueFactory();
+        URI dataset = vf.createURI(dataGraph);
+        List<Statement> out = new ArrayList<>();
+
+        out.add(vf.createStatement(dataset, RDF.TYPE, vf.createURI(VOID, "Dataset")));
+        out.add(vf.createStatement(dataset, vf.createURI(DCTERMS_MODIFIED), vf.createLiteral(new Date())));
+        addCount(conn, out, dataset, VOID + "triples", "SELECT (COUNT(*) AS ?n) WHERE { %s }");
+        addCount(conn, out, dataset, VOID + "entities", "SELECT (COUNT(DISTINCT ?s) AS ?n) WHERE { %s FILTER(?p = rdf:type) }");
+        addCount(conn, out, dataset, VOID + "properties", "SELECT (COUNT(DISTINCT ?p) AS ?n) WHERE { %s }");
+        addCount(conn, out, dataset, VOID + "classes", "SELECT (COUNT(DISTINCT ?o) AS ?n) WHERE { %s FILTER(?p = rdf:type) }");
+        addCount(conn, out, dataset, VOID + "distinctSubjects", "SELECT (COUNT(DISTINCT ?s) AS ?n) WHERE { %s }");
+        addCount(conn, out, dataset, VOID + "distinctObjects", "SELECT (COUNT(DISTINCT ?o) AS ?n) WHERE { %s }");
+        addCount(conn, out, dataset, KGS + "distinctResourceObjects", "SELECT (COUNT(DISTINCT ?o) AS ?n) WHERE { %s FILTER(!isLiteral(?o)) }");
+        addCount(conn, out, dataset, KGS + "resourceObjectTriples", "SELECT (COUNT(*) AS ?n) WHERE { %s FILTER(!isLiteral(?o)) }");
+        addCount(conn, out, dataset, KGS + "literalTriples", "SELECT (COUNT(*) AS ?n) WHERE { %s FILTER(isLiteral(?o)) }");
+        addCount(conn, out, dataset, KGS + "distinctLiterals", "SELECT (COUNT(DISTINCT ?o) AS ?n) WHERE { %s FILTER(isLiteral(?o)) }");
+
+        // void:classPartition, one per class
+        for (BindingSet row : select(conn, "SELECT ?class (COUNT(DISTINCT ?s) AS ?n) WHERE { %s FILTER(?p = rdf:type) BIND(?o AS ?class) } GROUP BY ?class")) {
+            BNode partition = addPartition(vf, out, dataset, VOID + "classPartition");
+            out.add(vf.createStatement(partition, vf.createURI(VOID, "class"), row.getValue("class")));
+            out.add(vf.createStatement(partition, vf.createURI(VOID, "entities"), count(vf, row)));
+        }
+
+        // void:propertyPartition, one per property
+        for (BindingSet row : select(conn, "SELECT ?p (COUNT(*) AS ?n) (COUNT(DISTINCT ?s) AS ?subjects) (COUNT(DISTINCT ?o) AS ?objects) WHERE { %s } GROUP BY ?p")) {
+            BNode partition = addPartition(vf, out, dataset, VOID + "propertyPartition");
+            out.add(vf.createStatement(partition, vf.createURI(VOID, "property"), row.getValue("p")));
+            out.add(vf.createStatement(partition, vf.createURI(VOID, "triples"), count(vf, row)));
+            out.add(vf.createStatement(partition, vf.createURI(VOID, "distinctSubjects"), integer(vf, intValue(row, "subjects"))));
+            out.add(vf.createStatement(partition, vf.createURI(VOID, "distinctObjects"), integer(vf, intValue(row, "objects"))));
+        }
+
+        // Literal datatypes; plain literals get no kgs:datatype
+        for (BindingSet row : select(conn, "SELECT ?datatype (COUNT(*) AS ?n) WHERE { %s FILTER(isLiteral(?o)) BIND(DATATYPE(?o) AS ?datatype) } GROUP BY ?datatype")) {
+            BNode partition = addPartition(vf, out, dataset, KGS + "datatypePartition");
+            if (row.getValue("datatype") != null) {
+                out.add(vf.createStatement(partition, vf.createURI(KGS, "datatype"), row.getValue("datatype")));
+            }
+            out.add(vf.createStatement(partition, vf.createURI(VOID, "triples"), count(vf, row)));
+        }
+
+        // Subject URI prefixes (the part before '#')
+        for (BindingSet row : select(conn, "SELECT ?prefix (COUNT(*) AS ?n) WHERE { %s FILTER(isURI(?s) && CONTAINS(STR(?s), '#')) BIND(STRBEFORE(STR(?s), '#') AS ?prefix) } "
+                + "GROUP BY ?prefix ORDER BY DESC(?n) LIMIT " + MAX_URI_PREFIXES)) {
+            BNode partition = addPartition(vf, out, dataset, KGS + "uriPrefixPartition");
+            out.add(vf.createStatement(partition, vf.createURI(VOID, "uriSpace"), row.getValue("prefix")));
+            out.add(vf.createStatement(partition, vf.createURI(VOID, "triples"), count(vf, row)));
+        }
+
+        return out;
+    }
+
+    private BNode addPartition(ValueFactory vf, List<Statement> out, Resource dataset, String partitionProperty) {
+        BNode partition = vf.createBNode();
+        out.add(vf.createStatement(dataset, vf.createURI(partitionProperty), partition));
+        return partition;
+    }
+
+    private void addCount(RepositoryConnection conn, List<Statement> out, Resource dataset, String property, String query) throws Exception {
+        List<BindingSet> rows = select(conn, query);
+        ValueFactory vf = conn.getValueFactory();
+        int n = rows.isEmpty() ? 0 : intValue(rows.get(0), "n");
+        out.add(vf.createStatement(dataset, vf.createURI(property), integer(vf, n)));
+    }
+
+    // Runs a query whose %s is replaced by the triple pattern over the data graph
+    private List<BindingSet> select(RepositoryConnection conn, String query) throws Exception {
+        String sparql = "PREFIX rdf: <" + RDF.NAMESPACE + ">\n"
+                + String.format(query, "GRAPH <" + dataGraph + "> { ?s ?p ?o }");
+        List<BindingSet> rows = new ArrayList<>();
+        TupleQueryResult result = conn.prepareTupleQuery(QueryLanguage.SPARQL, sparql).evaluate();
+        try {
+            while (result.hasNext()) {
+                rows.add(result.next());
+            }
+        } finally {
+            result.close();
+        }
+        return rows;
+    }
+
+    private static Literal count(ValueFactory vf, BindingSet row) {
+        return integer(vf, intValue(row, "n"));
+    }
+
+    private static Literal integer(ValueFactory vf, int n) {
+        return vf.createLiteral(String.valueOf(n), XMLSchema.INTEGER);
+    }
+
+    private static int intValue(BindingSet row, String name) {
+        Value value = row.getValue(name);
+        return value instanceof Literal ? ((Literal) value).intValue() : 0;
+    }
+}
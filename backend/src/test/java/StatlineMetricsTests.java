@@ -0,0 +1,78 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A worked example: one game's box score and its metrics, computed by hand with the default weights.
+ */
+class StatlineMetricsTests {
+
+    // Columns of StatlineMetrics.compute()
+    static final int EFG = 0, TS = 1, POSSESSIONS = 2, ORTG = 3, DRTG = 4, USAGE = 5;
+
+    @Test
+    void teamAndPlayerMetricsOfAKnownBoxScore() {
+        StatlineMetrics metrics = new StatlineMetrics(StatlineMetrics.Formulas.DEFAULT);
+        // 78 points: 20/40 twos, 8/24 threes, 14/18 free throws, 10 offensive rebounds, 12 turnovers
+        int home = metrics.addTeam("home", 40, 78, 20, 40, 8, 24, 18, 10, 12);
+        // 70 points on 38 twos, 20 threes and 20 free throws attempted, 8 offensive rebounds, 14 turnovers
+        int road = metrics.addTeam("road", 40, 70, 18, 38, 6, 20, 20, 8, 14);
+        metrics.opponents(home, road);
+        // 24 points in 30 minutes: 6/10 twos, 3/8 threes, 3/6 free throws, 3 turnovers
+        metrics.addPlayer("scorer", home, 30, 24, 6, 10, 3, 8, 6, 1, 3);
+        double[][] m = metrics.compute();
+
+        // (28 + 0.5 * 8) / 64
+        assertEquals(50.0, m[EFG][home], 1e-9);
+        // 78 / (2 * (64 + 0.44 * 18))
+        assertEquals(54.227, m[TS][home], 1e-3);
+        // 64 + 0.44 * 18 + 12 - 10, and 58 + 0.44 * 20 + 14 - 8
+        assertEquals(73.92, m[POSSESSIONS][home], 1e-9);
+        assertEquals(72.8, m[POSSESSIONS][road], 1e-9);
+        // Per 100 of the game's 73.36 possessions
+        assertEquals(106.325, m[ORTG][home], 1e-3);
+        assertEquals(95.420, m[DRTG][home], 1e-3);
+        assertEquals(m[ORTG][home], m[DRTG][road], 1e-9);
+
+        int scorer = 2;
+        // (9 + 0.5 * 3) / 18 and 24 / (2 * (18 + 0.44 * 6))
+        assertEquals(58.333, m[EFG][scorer], 1e-3);
+        assertEquals(58.140, m[TS][scorer], 1e-3);
+        // Plays used: 18 + 0.44 * 6 + 3
+        assertEquals(23.64, m[POSSESSIONS][scorer], 1e-9);
+        assertEquals(101.523, m[ORTG][scorer], 1e-3);
+        assertEquals(m[DRTG][home], m[DRTG][scorer], 1e-9);
+        // 100 * 23.64 * 40 / (30 * 83.92): 83.92 team plays, 40 minutes of game
+        assertEquals(37.560, m[USAGE][scorer], 1e-3);
+    }
+
+    @Test
+    void usageOfTheWholeTeamAveragesOneFifth() {
+        StatlineMetrics metrics = new StatlineMetrics(StatlineMetrics.Formulas.DEFAULT);
+        // One extra time: 45 minutes, and 225 player-minutes
+        double game = StatlineMetrics.gameMinutes(1);
+        assertEquals(45, game);
+        int team = metrics.addTeam("team", game, 90, 20, 40, 8, 24, 18, 10, 12);
+        metrics.opponents(team, metrics.addTeam("other", game, 88, 20, 40, 8, 24, 18, 10, 12));
+        // The team's attempts and turnovers split between six players
+        double[] minutes = {45, 45, 40, 40, 30, 25};
+        int[][] plays = {{10, 8, 6, 3}, {10, 4, 4, 3}, {8, 4, 4, 2}, {6, 4, 2, 2}, {4, 2, 2, 1}, {2, 2, 0, 1}};
+        for (int p = 0; p < minutes.length; p++) {
+            metrics.addPlayer("player" + p, team, minutes[p], 10, 0, plays[p][0], 0, plays[p][1], plays[p][2], 0,
+                    plays[p][3]);
+        }
+        double[][] m = metrics.compute();
+
+        double weighted = 0;
+        for (int p = 0; p < minutes.length; p++) {
+            weighted += m[USAGE][2 + p] * minutes[p];
+        }
+        assertEquals(20, weighted / (5 * game), 1e-9);
+    }
+
+    @Test
+    void playerMinutesAreNotTheGameLength() {
+        StatlineMetrics metrics = new StatlineMetrics(StatlineMetrics.Formulas.DEFAULT);
+        assertThrows(IllegalArgumentException.class, () -> metrics.addTeam("team", 200, 78, 20, 40, 8, 24, 18, 10, 12));
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.kgstats.similarity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The scalar and Vector API distance kernels scanning every player season for a query, and
+ * the k-nearest search over the same rows exactly and through the IVF lists. The vectors are
+ * random standard scores with as many features as {@link PlayerVectors}.
+ * Run with mvn -Pjmh package, then java -jar target/benchmarks.jar DistanceKernel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class DistanceKernelBenchmark {
+
+    // About 25 seasons of 300 players, and a history ten times that
+    @Param({"7500", "75000"})
+    int rows;
+
+    @Param({"scalar", "vector"})
+    String kernel;
+
+    private DistanceKernel distances;
+    private float[] vectors;
+    private int stride;
+    private float[] query;
+    // The query unpadded, as the index takes it
+    private float[] features;
+    private float[] out;
+    private VectorIndex index;
+
+    @Setup
+    public void fill() {
+        distances = kernel.equals("vector") ? new VectorKernel() : new ScalarKernel();
+        int dims = PlayerVectors.FEATURES.size();
+        stride = distances.stride(dims);
+        Random random = new Random(42);
+        float[] unpadded = new float[rows * dims];
+        for (int i = 0; i < unpadded.length; i++) {
+            unpadded[i] = (float) random.nextGaussian();
+        }
+        vectors = new float[rows * stride];
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(unpadded, r * dims, vectors, r * stride, dims);
+        }
+        query = new float[stride];
+        System.arraycopy(unpadded, 0, query, 0, dims);
+        features = Arrays.copyOf(unpadded, dims);
+        out = new float[rows];
+        index = VectorIndex.build(unpadded, dims, distances, (int) Math.round(Math.sqrt(rows)), 42);
+    }
+
+    @Benchmark
+    public float[] scan() {
+        distances.distances(query, vectors, 0, rows, stride, out);
+        return out;
+    }
+
+    @Benchmark
+    public List<Match> exactTop10() {
+        return index.exact(features, 10, r -> true);
+    }
+
+    @Benchmark
+    public List<Match> ivfTop10() {
+        return index.search(features, 10, 8, r -> true);
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.kgstats.cache;
+
+import org.example.kgstats.config.StoreProperties;
+import org.example.kgstats.store.TripleStore;
+import org.example.kgstats.store.TripleStoreException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The load timestamp the backend loader writes into the stats graph
+ * ({@code <graph> kgs:loadedAt ?time}) after every load. The graph only changes
+ * when the loader runs, so results computed for one version stay valid until it changes.
+ * The token is looked up at most once per {@code kgstats.cache.version-check}.
+ */
+@Component
+public class GraphVersion {
+
+    private final TripleStore store;
+    private final String query;
+    private final long checkNanos;
+
+    private volatile String token;
+    private volatile long checkedAt;
+    private volatile boolean checked;
+
+    public GraphVersion(TripleStore store, StoreProperties properties,
+                        @Value("${kgstats.cache.version-check:5s}") Duration check) {
+        this.store = store;
+        this.query = "SELECT ?version WHERE { GRAPH <" + properties.getStatsGraph() + "> { <" + properties.getGraph()
+                + "> <http://www.ics.forth.gr/isl/EuroleagueKG/stats#loadedAt> ?version } }";
+        this.checkNanos = check.toNanos();
+    }
+
+    /**
+     * @return the current version token, or null if the loader has not written one,
+     * in which case nothing may be cached
+     */
+    public String current() {
+        long now = System.nanoTime();
+        if (!checked || now - checkedAt >= checkNanos) {
+            List<String> versions;
+            try {
+                versions = store.select("graphVersion", query, row -> row.getString("version"));
+            } catch (TripleStoreException e) {
+                // Store unreachable: serve uncached and look again on the next request
+                return null;
+            }
+            token = versions.isEmpty() ? null : versions.get(0);
+            checkedAt = now;
+            checked = true;
+        }
+        return token;
+    }
+}
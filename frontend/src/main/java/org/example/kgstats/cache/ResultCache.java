@@ -0,0 +1,51 @@
+package org.example.kgstats.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Endpoint results keyed by endpoint and graph version. A new load changes the version,
+ * so old entries are never read again and age out of the cache.
+ */
+@Component
+public class ResultCache {
+
+    private record Key(String endpoint, String version) {
+    }
+
+    private final Cache<Key, Object> cache;
+
+    public ResultCache(@Value("${kgstats.cache.maximum-size:100}") long maximumSize) {
+        this.cache = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    /**
+     * Returns the cached result of {@code endpoint} for {@code version}, computing it once
+     * if absent; concurrent callers wait for the same computation. Results that fail
+     * {@code complete} are returned but not kept.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String endpoint, String version, Supplier<T> compute, Predicate<T> complete) {
+        if (version == null) {
+            return compute.get();
+        }
+        Key key = new Key(endpoint, version);
+        T result = (T) cache.get(key, k -> compute.get());
+        if (!complete.test(result)) {
+            cache.asMap().remove(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Entity tag of {@code endpoint} for {@code version}, unquoted.
+     */
+    public static String etag(String endpoint, String version) {
+        return endpoint + "-" + version.replace("\"", "");
+    }
+}
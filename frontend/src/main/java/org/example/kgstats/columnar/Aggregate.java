@@ -0,0 +1,35 @@
+package org.example.kgstats.columnar;
+
+/**
+ * An aggregate of one stat over a group of rows; {@code stat} is ignored by COUNT.
+ * Written as {@code function:stat} in the API, e.g. {@code avg:pir}, or {@code count}.
+ */
+public record Aggregate(Function function, Stat stat) {
+
+    public enum Function { COUNT, SUM, AVG, MIN, MAX }
+
+    public static Aggregate count() {
+        return new Aggregate(Function.COUNT, null);
+    }
+
+    public static Aggregate parse(String spec) {
+        String[] parts = spec.split(":", 2);
+        Function function;
+        try {
+            function = Function.valueOf(parts[0].trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("No aggregate " + parts[0] + ", expected count, sum, avg, min or max");
+        }
+        if (function == Function.COUNT) {
+            return count();
+        }
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Aggregate " + spec + " needs a stat, e.g. " + parts[0] + ":points");
+        }
+        return new Aggregate(function, Stat.of(parts[1].trim()));
+    }
+
+    public String name() {
+        return function == Function.COUNT ? "count" : function.name().toLowerCase() + ":" + stat.key();
+    }
+}
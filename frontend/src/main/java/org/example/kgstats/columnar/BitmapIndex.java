@@ -0,0 +1,189 @@
+package org.example.kgstats.columnar;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compressed bitmap indexes over the games and the statline rows of a {@link StatlineTable}:
+ * for each dimension and value, the game ids and the row numbers that have it. A filter on
+ * several dimensions is then a union of bitmaps within each dimension and an intersection
+ * across them, instead of a join over several triple patterns.
+ * <p>
+ * Values are the terms as the graph has them: IRIs for seasons, teams, players, venues and
+ * referees, the phase name, and the round number in decimal. A game has the players who
+ * have a statline in it; a statline has the fields of its game.
+ */
+public final class BitmapIndex {
+
+    public enum Dimension {
+        SEASON, TEAM, PLAYER, PHASE, ROUND, VENUE, REFEREE;
+
+        public String key() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final StatlineTable table;
+    private final Map<Dimension, Map<String, RoaringBitmap>> games = new EnumMap<>(Dimension.class);
+    private final Map<Dimension, Map<String, RoaringBitmap>> statlines = new EnumMap<>(Dimension.class);
+    private final RoaringBitmap allGames = new RoaringBitmap();
+
+    private BitmapIndex(StatlineTable table) {
+        this.table = table;
+        for (Dimension dimension : Dimension.values()) {
+            games.put(dimension, new HashMap<>());
+            statlines.put(dimension, new HashMap<>());
+        }
+    }
+
+    public static BitmapIndex build(StatlineTable table) {
+        BitmapIndex index = new BitmapIndex(table);
+        Dictionary seasons = table.dictionary(Key.SEASON);
+        Dictionary teams = table.dictionary(Key.TEAM);
+        Dictionary players = table.dictionary(Key.PLAYER);
+
+        int gameCount = table.dictionary(Key.GAME).size();
+        for (int id = 0; id < gameCount; id++) {
+            Game game = table.game(id);
+            if (game == null) {
+                continue;
+            }
+            index.allGames.add(id);
+            index.add(index.games, Dimension.SEASON, seasons.value(game.season()), id);
+            index.add(index.games, Dimension.TEAM, teams.value(game.home()), id);
+            index.add(index.games, Dimension.TEAM, teams.value(game.road()), id);
+            index.add(index.games, Dimension.ROUND, Integer.toString(game.round()), id);
+            index.add(index.games, Dimension.PHASE, game.phase(), id);
+            index.add(index.games, Dimension.VENUE, game.venue(), id);
+            for (String referee : game.referees()) {
+                index.add(index.games, Dimension.REFEREE, referee, id);
+            }
+        }
+
+        // Bitmaps by dictionary id and by game, so the loop over the rows does no lookups by value
+        RoaringBitmap[] seasonRows = bitmaps(seasons.size());
+        RoaringBitmap[] teamRows = bitmaps(teams.size());
+        RoaringBitmap[] playerRows = bitmaps(players.size());
+        RoaringBitmap[] playerGames = bitmaps(players.size());
+        Map<Integer, RoaringBitmap> roundRows = new HashMap<>();
+        RoaringBitmap[][] gameRows = new RoaringBitmap[gameCount][];
+        for (int id = 0; id < gameCount; id++) {
+            Game game = table.game(id);
+            if (game != null) {
+                List<RoaringBitmap> rows = new ArrayList<>();
+                rows.add(index.bitmap(index.statlines, Dimension.PHASE, game.phase()));
+                rows.add(index.bitmap(index.statlines, Dimension.VENUE, game.venue()));
+                for (String referee : game.referees()) {
+                    rows.add(index.bitmap(index.statlines, Dimension.REFEREE, referee));
+                }
+                gameRows[id] = rows.toArray(new RoaringBitmap[0]);
+            }
+        }
+
+        // Rows in ascending order, so every row bitmap is appended to at its end
+        for (int row = 0; row < table.rows(); row++) {
+            int gameId = table.key(Key.GAME, row);
+            int player = table.key(Key.PLAYER, row);
+            seasonRows[table.key(Key.SEASON, row)].add(row);
+            teamRows[table.key(Key.TEAM, row)].add(row);
+            playerRows[player].add(row);
+            roundRows.computeIfAbsent(table.round(row), r -> new RoaringBitmap()).add(row);
+            if (gameRows[gameId] != null) {
+                playerGames[player].add(gameId);
+                for (RoaringBitmap rows : gameRows[gameId]) {
+                    rows.add(row);
+                }
+            }
+        }
+        index.put(index.statlines, Dimension.SEASON, seasonRows, seasons);
+        index.put(index.statlines, Dimension.TEAM, teamRows, teams);
+        index.put(index.statlines, Dimension.PLAYER, playerRows, players);
+        index.put(index.games, Dimension.PLAYER, playerGames, players);
+        roundRows.forEach((round, rows) -> index.statlines.get(Dimension.ROUND).put(Integer.toString(round), rows));
+        index.games.values().forEach(byValue -> byValue.values().forEach(RoaringBitmap::runOptimize));
+        index.statlines.values().forEach(byValue -> byValue.values().forEach(RoaringBitmap::runOptimize));
+        return index;
+    }
+
+    private void add(Map<Dimension, Map<String, RoaringBitmap>> bitmaps, Dimension dimension, String value, int bit) {
+        bitmap(bitmaps, dimension, value).add(bit);
+    }
+
+    private RoaringBitmap bitmap(Map<Dimension, Map<String, RoaringBitmap>> bitmaps, Dimension dimension, String value) {
+        return bitmaps.get(dimension).computeIfAbsent(value, v -> new RoaringBitmap());
+    }
+
+    // Keys the non-empty bitmaps of a dictionary's ids by their values
+    private void put(Map<Dimension, Map<String, RoaringBitmap>> bitmaps, Dimension dimension,
+                     RoaringBitmap[] byId, Dictionary dictionary) {
+        for (int id = 0; id < byId.length; id++) {
+            if (!byId[id].isEmpty()) {
+                bitmaps.get(dimension).put(dictionary.value(id), byId[id]);
+            }
+        }
+    }
+
+    private static RoaringBitmap[] bitmaps(int size) {
+        RoaringBitmap[] bitmaps = new RoaringBitmap[size];
+        for (int i = 0; i < size; i++) {
+            bitmaps[i] = new RoaringBitmap();
+        }
+        return bitmaps;
+    }
+
+    public StatlineTable table() {
+        return table;
+    }
+
+    /**
+     * @param filter for each dimension the values any of which a game must have
+     * @return the ids of the games matching on every dimension; all of them for no filter
+     */
+    public RoaringBitmap games(Map<Dimension, ? extends Collection<String>> filter) {
+        return match(games, filter, allGames);
+    }
+
+    /**
+     * @param filter for each dimension the values any of which a statline must have
+     * @return the numbers of the rows matching on every dimension; all of them for no filter
+     */
+    public RoaringBitmap statlines(Map<Dimension, ? extends Collection<String>> filter) {
+        RoaringBitmap all = new RoaringBitmap();
+        all.add(0L, table.rows());
+        return match(statlines, filter, all);
+    }
+
+    private static RoaringBitmap match(Map<Dimension, Map<String, RoaringBitmap>> bitmaps,
+                                       Map<Dimension, ? extends Collection<String>> filter, RoaringBitmap all) {
+        List<RoaringBitmap> dimensions = new ArrayList<>();
+        for (Map.Entry<Dimension, ? extends Collection<String>> entry : filter.entrySet()) {
+            Map<String, RoaringBitmap> byValue = bitmaps.get(entry.getKey());
+            RoaringBitmap[] values = entry.getValue().stream()
+                    .map(byValue::get)
+                    .filter(bitmap -> bitmap != null)
+                    .toArray(RoaringBitmap[]::new);
+            dimensions.add(values.length == 1 ? values[0] : FastAggregation.or(values));
+        }
+        if (dimensions.isEmpty()) {
+            return all.clone();
+        }
+        // Smallest first, so each intersection is at most as large as the one before
+        dimensions.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+        RoaringBitmap result = dimensions.get(0).clone();
+        for (RoaringBitmap dimension : dimensions.subList(1, dimensions.size())) {
+            if (result.isEmpty()) {
+                break;
+            }
+            result.and(dimension);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.kgstats.columnar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding of one string column: each distinct value gets a dense id from 0,
+ * so the column itself is an {@code int[]} and group-by keys are array indexes.
+ */
+public final class Dictionary {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    int encode(String value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    /**
+     * @return the id of {@code value}, or -1 if no row has it
+     */
+    public int id(String value) {
+        Integer id = ids.get(value);
+        return id != null ? id : -1;
+    }
+
+    public String value(int id) {
+        return values.get(id);
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
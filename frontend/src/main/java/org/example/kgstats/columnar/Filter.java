@@ -0,0 +1,48 @@
+package org.example.kgstats.columnar;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A condition on statline rows. Each kind narrows a selection vector of row numbers
+ * in one pass over a single column.
+ */
+public sealed interface Filter {
+
+    // A stat condition, e.g. minutes>=10
+    Pattern CONDITION = Pattern.compile("(\\w+)\\s*(>=|<=|>|<|=)\\s*(-?\\d+(?:\\.\\d+)?)");
+
+    /**
+     * A condition on a stat such as {@code minutes>=10} or {@code points>20}, as a {@link Range}.
+     * A strict bound is the next value the column can hold: minutes are floats, whose column
+     * would round the next double back to the bound itself.
+     */
+    static Filter parse(String condition) {
+        Matcher m = CONDITION.matcher(condition.trim());
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Invalid condition " + condition + ", expected e.g. minutes>=10");
+        }
+        Stat stat = Stat.of(m.group(1));
+        double value = Double.parseDouble(m.group(3));
+        boolean floats = stat == Stat.MINUTES;
+        return switch (m.group(2)) {
+            case ">=" -> new Range(stat, value, Double.POSITIVE_INFINITY);
+            case ">" -> new Range(stat, floats ? Math.nextUp((float) value) : Math.nextUp(value), Double.POSITIVE_INFINITY);
+            case "<=" -> new Range(stat, Double.NEGATIVE_INFINITY, value);
+            case "<" -> new Range(stat, Double.NEGATIVE_INFINITY, floats ? Math.nextDown((float) value) : Math.nextDown(value));
+            default -> new Range(stat, value, value);
+        };
+    }
+
+    /**
+     * Rows whose {@code key} column is the dictionary id {@code id}.
+     */
+    record Equals(Key key, int id) implements Filter {
+    }
+
+    /**
+     * Rows whose {@code stat} lies in {@code [min, max]}.
+     */
+    record Range(Stat stat, double min, double max) implements Filter {
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.kgstats.columnar;
+
+import java.util.List;
+
+/**
+ * The fields of a game that its statlines are filtered by beyond their own columns.
+ * Season and teams are ids in the table's dictionaries; the phase is its name, as in
+ * {@code bball:hasPhase}, venue and referees are IRIs.
+ */
+public record Game(int season, int home, int road, int round, String phase, String venue, List<String> referees) {
+}
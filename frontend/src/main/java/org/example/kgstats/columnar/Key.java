@@ -0,0 +1,33 @@
+package org.example.kgstats.columnar;
+
+import java.util.Arrays;
+
+/**
+ * The dictionary-encoded columns of a statline, which rows are filtered and grouped by.
+ */
+public enum Key {
+    PLAYER("player"),
+    TEAM("team"),
+    SEASON("season"),
+    GAME("game");
+
+    private final String key;
+
+    Key(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public static Key of(String key) {
+        for (Key k : values()) {
+            if (k.key.equalsIgnoreCase(key)) {
+                return k;
+            }
+        }
+        throw new IllegalArgumentException("No key " + key + ", expected one of "
+                + Arrays.stream(values()).map(Key::key).toList());
+    }
+}
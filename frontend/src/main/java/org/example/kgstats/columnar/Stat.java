@@ -0,0 +1,57 @@
+package org.example.kgstats.columnar;
+
+import java.util.Arrays;
+
+/**
+ * The per-game numbers of a player's {@code bball:Statline}, one column each.
+ * Minutes are a {@code float[]} column, everything else an {@code int[]}.
+ */
+public enum Stat {
+    MINUTES("minutes", "minutesPlayed"),
+    POINTS("points", "points"),
+    PIR("pir", "PIR"),
+    REBOUNDS("rebounds", "totalRebounds"),
+    OFFENSIVE_REBOUNDS("offensiveRebounds", "offensiveRebounds"),
+    DEFENSIVE_REBOUNDS("defensiveRebounds", "defensiveRebounds"),
+    ASSISTS("assists", "assists"),
+    STEALS("steals", "steals"),
+    TURNOVERS("turnovers", "turnovers"),
+    BLOCKS("blocks", "blocks"),
+    BLOCKS_AGAINST("blocksAgainst", "blocksAgainst"),
+    FOULS_COMMITTED("foulsCommitted", "foulsCommitted"),
+    FOULS_RECEIVED("foulsReceived", "foulsReceived"),
+    PLUS_MINUS("plusMinus", "plusMinus"),
+    FIELD_GOALS_MADE_2("fieldGoalsMade2", "fieldGoalsMade2"),
+    FIELD_GOALS_ATTEMPTED_2("fieldGoalsAttempted2", "fieldGoalsAttempted2"),
+    FIELD_GOALS_MADE_3("fieldGoalsMade3", "fieldGoalsMade3"),
+    FIELD_GOALS_ATTEMPTED_3("fieldGoalsAttempted3", "fieldGoalsAttempted3"),
+    FREE_THROWS_MADE("freeThrowsMade", "freeThrowsMade"),
+    FREE_THROWS_ATTEMPTED("freeThrowsAttempted", "freeThrowsAttempted");
+
+    // Name in the API, and local name of the bball: property the loader reads it from
+    private final String key;
+    private final String property;
+
+    Stat(String key, String property) {
+        this.key = key;
+        this.property = property;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public String property() {
+        return property;
+    }
+
+    public static Stat of(String key) {
+        for (Stat stat : values()) {
+            if (stat.key.equalsIgnoreCase(key)) {
+                return stat;
+            }
+        }
+        throw new IllegalArgumentException("No stat " + key + ", expected one of "
+                + Arrays.stream(values()).map(Stat::key).toList());
+    }
+}
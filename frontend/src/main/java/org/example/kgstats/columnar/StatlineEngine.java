@@ -0,0 +1,49 @@
+package org.example.kgstats.columnar;
+
+import org.example.kgstats.cache.GraphVersion;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * The current {@link StatlineTable} and its {@link BitmapIndex}, loaded on first use and
+ * again after the loader writes a new graph version. Requests that arrive while they load
+ * wait for them.
+ */
+@Component
+public class StatlineEngine {
+
+    private final StatlineLoader loader;
+    private final GraphVersion graphVersion;
+
+    private volatile Loaded loaded;
+
+    private record Loaded(String version, BitmapIndex index) {
+    }
+
+    public StatlineEngine(StatlineLoader loader, GraphVersion graphVersion) {
+        this.loader = loader;
+        this.graphVersion = graphVersion;
+    }
+
+    public StatlineTable table() {
+        return index().table();
+    }
+
+    public BitmapIndex index() {
+        String version = graphVersion.current();
+        Loaded current = loaded;
+        // Without a version token there is no way to tell a reload, so keep what was loaded
+        if (current != null && (version == null || Objects.equals(version, current.version()))) {
+            return current.index();
+        }
+        synchronized (this) {
+            current = loaded;
+            if (current == null || (version != null && !Objects.equals(version, current.version()))) {
+                current = new Loaded(version, BitmapIndex.build(loader.load()));
+                loaded = current;
+            }
+            return current.index();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package org.example.kgstats.columnar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opens the statline column files the backend's GameToRDF writes next to each season's
+ * .ttl ({@code statlines<season>.cols}, see its {@code StatlineColumnsWriter} for the layout).
+ * Each file is memory-mapped and becomes one {@link StatlineTable.Segment} whose columns are
+ * views of the mapping, so the statlines are scanned in place rather than copied onto the
+ * heap. Only the dictionaries and the small per-game section are decoded, the dictionaries
+ * merged into the table's.
+ */
+public final class StatlineFiles {
+
+    public static final String GLOB = "statlines*.cols";
+
+    private static final String MAGIC = "KGCOLS02";
+
+    private StatlineFiles() {
+    }
+
+    /**
+     * @return a table of the rows of every column file in {@code dir}, in file name order
+     */
+    public static StatlineTable open(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> found = Files.newDirectoryStream(dir, GLOB)) {
+            found.forEach(files::add);
+        }
+        files.sort(null);
+        if (files.isEmpty()) {
+            throw new IOException("No " + GLOB + " files in " + dir);
+        }
+
+        Map<Key, Dictionary> dictionaries = new EnumMap<>(Key.class);
+        for (Key key : Key.values()) {
+            dictionaries.put(key, new Dictionary());
+        }
+        List<StatlineTable.Segment> segments = new ArrayList<>();
+        Map<Integer, Game> games = new HashMap<>();
+        for (Path file : files) {
+            segments.add(map(file, dictionaries, games));
+        }
+        return new StatlineTable(dictionaries, segments, games);
+    }
+
+    private static StatlineTable.Segment map(Path file, Map<Key, Dictionary> dictionaries, Map<Integer, Game> games)
+            throws IOException {
+        MappedByteBuffer buf;
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + ": larger than 2 GB cannot be mapped in one piece");
+            }
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            byte[] magic = new byte[MAGIC.length()];
+            buf.get(0, magic);
+            if (!MAGIC.equals(new String(magic, StandardCharsets.US_ASCII))) {
+                throw new IOException(file + ": not a statline column file");
+            }
+            int rows = buf.getInt(8);
+            int columns = buf.getInt(12);
+            int pos = 16;
+
+            // The writer's dictionaries are in Key order
+            Map<Key, int[]> ids = new EnumMap<>(Key.class);
+            for (Key key : Key.values()) {
+                List<String> terms = new ArrayList<>();
+                pos = dictionary(buf, pos, terms);
+                ids.put(key, terms.stream().mapToInt(dictionaries.get(key)::encode).toArray());
+            }
+
+            Map<String, Character> types = new HashMap<>();
+            List<String> names = new ArrayList<>();
+            for (int c = 0; c < columns; c++) {
+                char type = (char) buf.get(pos);
+                byte[] name = new byte[buf.get(pos + 1)];
+                buf.get(pos + 2, name);
+                names.add(new String(name, StandardCharsets.US_ASCII));
+                types.put(names.get(c), type);
+                pos += 2 + name.length;
+            }
+            pos = align(pos);
+            long end = pos + 4L * rows * (Key.values().length + columns);
+            if (end > buf.limit()) {
+                throw new IOException(file + ": truncated, " + buf.limit() + " bytes of " + end);
+            }
+
+            Map<Key, IntBuffer> keys = new EnumMap<>(Key.class);
+            for (Key key : Key.values()) {
+                keys.put(key, column(buf, pos, rows).asIntBuffer());
+                pos += 4 * rows;
+            }
+            Map<String, ByteBuffer> byName = new HashMap<>();
+            for (String name : names) {
+                byName.put(name, column(buf, pos, rows));
+                pos += 4 * rows;
+            }
+
+            IntBuffer round = required(file, byName, types, "hasRound", 'I').asIntBuffer();
+            FloatBuffer minutes = required(file, byName, types, Stat.MINUTES.property(), 'F').asFloatBuffer();
+            IntBuffer[] counts = new IntBuffer[Stat.values().length];
+            for (Stat stat : Stat.values()) {
+                if (stat != Stat.MINUTES) {
+                    counts[stat.ordinal()] = required(file, byName, types, stat.property(), 'I').asIntBuffer();
+                }
+            }
+            // The games section follows the last column
+            games(buf, (int) end, ids, games);
+            return new StatlineTable.Segment(rows, keys, ids, round, minutes, counts);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException(file + ": truncated", e);
+        }
+    }
+
+    // Reads a dictionary at pos into terms; returns the position after it
+    private static int dictionary(MappedByteBuffer buf, int pos, List<String> terms) {
+        int count = buf.getInt(pos);
+        int start = pos + 4 + 4 * (count + 1);
+        for (int id = 0; id < count; id++) {
+            byte[] term = new byte[buf.getInt(pos + 8 + 4 * id) - buf.getInt(pos + 4 + 4 * id)];
+            buf.get(start + buf.getInt(pos + 4 + 4 * id), term);
+            terms.add(new String(term, StandardCharsets.UTF_8));
+        }
+        return align(start + buf.getInt(pos + 4 + 4 * count));
+    }
+
+    // Adds the games section at pos to games, by table id
+    private static void games(MappedByteBuffer buf, int pos, Map<Key, int[]> ids, Map<Integer, Game> games) {
+        int count = buf.getInt(pos);
+        List<String> phases = new ArrayList<>();
+        List<String> venues = new ArrayList<>();
+        List<String> referees = new ArrayList<>();
+        pos = dictionary(buf, pos + 4, phases);
+        pos = dictionary(buf, pos, venues);
+        pos = dictionary(buf, pos, referees);
+        // Seven int[count] columns, then the referee offsets and ids
+        int offsets = pos + 7 * 4 * count;
+        int refereeIds = offsets + 4 * (count + 1);
+        for (int g = 0; g < count; g++) {
+            int game = ids.get(Key.GAME)[field(buf, pos, count, 0, g)];
+            List<String> gameReferees = new ArrayList<>();
+            for (int r = buf.getInt(offsets + 4 * g); r < buf.getInt(offsets + 4 * (g + 1)); r++) {
+                gameReferees.add(referees.get(buf.getInt(refereeIds + 4 * r)));
+            }
+            games.put(game, new Game(ids.get(Key.SEASON)[field(buf, pos, count, 1, g)],
+                    ids.get(Key.TEAM)[field(buf, pos, count, 2, g)], ids.get(Key.TEAM)[field(buf, pos, count, 3, g)],
+                    field(buf, pos, count, 4, g), phases.get(field(buf, pos, count, 5, g)),
+                    venues.get(field(buf, pos, count, 6, g)), List.copyOf(gameReferees)));
+        }
+    }
+
+    private static int field(MappedByteBuffer buf, int pos, int count, int field, int game) {
+        return buf.getInt(pos + 4 * (field * count + game));
+    }
+
+    // A view of the mapping, big-endian like the writer's DataOutputStream
+    private static ByteBuffer column(MappedByteBuffer buf, int pos, int rows) {
+        return buf.slice(pos, 4 * rows);
+    }
+
+    private static ByteBuffer required(Path file, Map<String, ByteBuffer> columns, Map<String, Character> types,
+                                       String name, char type) throws IOException {
+        if (!columns.containsKey(name) || types.get(name) != type) {
+            throw new IOException(file + ": no " + (type == 'F' ? "float" : "int") + " column " + name);
+        }
+        return columns.get(name);
+    }
+
+    private static int align(int pos) {
+        return (pos + 3) & ~3;
+    }
+}
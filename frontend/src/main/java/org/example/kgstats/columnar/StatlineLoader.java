@@ -0,0 +1,106 @@
+package org.example.kgstats.columnar;
+
+import org.example.kgstats.config.StoreProperties;
+import org.example.kgstats.store.SparqlRow;
+import org.example.kgstats.store.TripleStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the {@link StatlineTable} from the store, in one streamed query over every
+ * {@code bball:PlayerParticipation} that has a statline. GameToRDF writes every stat of
+ * a statline, so the stats are required patterns rather than OPTIONALs. A second query
+ * reads the fields of each game its statlines are filtered by.
+ * When {@code kgstats.columnar.dir} is set, maps the column files GameToRDF writes there
+ * instead ({@link StatlineFiles}), without querying the store.
+ */
+@Component
+public class StatlineLoader {
+
+    private static final String STATLINES = """
+            PREFIX bball: <http://www.ics.forth.gr/isl/Basketball#>
+            SELECT ?player ?team ?season ?game ?round %2$s
+            FROM <%1$s>
+            WHERE {
+                ?game bball:hasSeason ?season ;
+                      bball:hasRound ?round ;
+                      bball:hasTeamBoxscore ?boxscore .
+                ?boxscore bball:overTeam ?team ;
+                          bball:hasPlayerParticipation ?participation .
+                ?participation bball:overPlayer ?player ;
+                               bball:hasPlayerStatline ?line .
+                ?line %3$s .
+            }
+            """;
+
+    // The fields games are filtered by, with the referees as one space-separated list
+    private static final String GAMES = """
+            PREFIX bball: <http://www.ics.forth.gr/isl/Basketball#>
+            SELECT ?game ?season ?round ?phase ?venue ?home ?road (GROUP_CONCAT(STR(?referee); separator=" ") AS ?referees)
+            FROM <%s>
+            WHERE {
+                ?game a bball:Game ;
+                      bball:hasSeason ?season ;
+                      bball:hasRound ?round ;
+                      bball:hasPhase ?phase ;
+                      bball:gameVenue ?venue ;
+                      bball:homeTeam ?home ;
+                      bball:roadTeam ?road .
+                OPTIONAL { ?game bball:hasReferee ?referee }
+            }
+            GROUP BY ?game ?season ?round ?phase ?venue ?home ?road
+            """;
+
+    private final TripleStore store;
+    private final String sparql;
+    private final String gamesSparql;
+    private final String dir;
+
+    public StatlineLoader(TripleStore store, StoreProperties properties,
+                          @Value("${kgstats.columnar.dir:}") String dir) {
+        this.store = store;
+        this.dir = dir;
+        this.sparql = STATLINES.formatted(properties.getGraph(),
+                Arrays.stream(Stat.values()).map(stat -> "?" + stat.name()).collect(Collectors.joining(" ")),
+                Arrays.stream(Stat.values()).map(stat -> "bball:" + stat.property() + " ?" + stat.name())
+                        .collect(Collectors.joining(" ;\n          ")));
+        this.gamesSparql = GAMES.formatted(properties.getGraph());
+    }
+
+    public StatlineTable load() {
+        if (!dir.isBlank()) {
+            try {
+                return StatlineFiles.open(Path.of(dir));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open the statline columns in " + dir, e);
+            }
+        }
+        StatlineTable.Builder table = new StatlineTable.Builder(1 << 14);
+        store.forEach("columnar.statlines", sparql, row -> add(table, row));
+        store.forEach("columnar.games", gamesSparql, row -> {
+            String referees = row.getString("referees");
+            table.game(row.getString("game"), row.getString("season"), row.getString("home"), row.getString("road"),
+                    row.getInt("round"), row.getString("phase"), row.getString("venue"),
+                    referees == null || referees.isBlank() ? List.of() : List.of(referees.split(" ")));
+        });
+        return table.build();
+    }
+
+    private static void add(StatlineTable.Builder table, SparqlRow row) {
+        table.add(row.getString("player"), row.getString("team"), row.getString("season"), row.getString("game"),
+                row.getInt("round"));
+        table.set(Stat.MINUTES, row.getDouble(Stat.MINUTES.name()));
+        for (Stat stat : Stat.values()) {
+            if (stat != Stat.MINUTES) {
+                table.set(stat, row.getInt(stat.name()));
+            }
+        }
+    }
+}
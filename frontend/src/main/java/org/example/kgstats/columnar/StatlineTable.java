@@ -0,0 +1,466 @@
+package org.example.kgstats.columnar;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every player statline of the graph as struct-of-arrays: one primitive column per stat,
+ * row {@code i} of each column belonging to the same statline. Player, team, season and game
+ * are dictionary ids. Queries run as tight loops over the few columns they touch:
+ * {@link #select} narrows a selection vector of row numbers, {@link #aggregate} groups it.
+ * Immutable once built, so it can be shared by concurrent requests.
+ * <p>
+ * The rows are stored in {@link Segment}s: the columns memory-mapped from one of the
+ * converter's files ({@link StatlineFiles}), or arrays built from the store. Row numbers
+ * run across the segments in order.
+ */
+public final class StatlineTable {
+
+    // Group keys are mixed-radix numbers over the dictionary sizes; up to this many
+    // possible keys they index an array, beyond it a hash map
+    private static final int DENSE_GROUPS = 1 << 22;
+
+    private final int rows;
+    private final Map<Key, Dictionary> dictionaries;
+    private final Segment[] segments;
+    // First row of each segment, and the row count after the last
+    private final int[] bases;
+    // By game id; null for a game only known from its statlines
+    private final Game[] games;
+
+    StatlineTable(Map<Key, Dictionary> dictionaries, List<Segment> segments, Map<Integer, Game> games) {
+        this.dictionaries = dictionaries;
+        this.games = new Game[dictionaries.get(Key.GAME).size()];
+        games.forEach((id, game) -> this.games[id] = game);
+        this.segments = segments.toArray(new Segment[0]);
+        this.bases = new int[this.segments.length + 1];
+        for (int s = 0; s < this.segments.length; s++) {
+            bases[s + 1] = bases[s] + this.segments[s].rows();
+        }
+        this.rows = bases[this.segments.length];
+    }
+
+    /**
+     * A run of rows stored together. Key columns hold the segment's own dictionary ids,
+     * which {@code ids} maps to the table's. {@code counts} is by Stat ordinal, with
+     * MINUTES in the float column instead.
+     */
+    record Segment(int rows, Map<Key, IntBuffer> keys, Map<Key, int[]> ids, IntBuffer round,
+                   FloatBuffer minutes, IntBuffer[] counts) {
+
+        // The segment's id for a table id, or -1 if none of its rows has it
+        int localId(Key key, int id) {
+            int[] table = ids.get(key);
+            for (int local = 0; local < table.length; local++) {
+                if (table[local] == id) {
+                    return local;
+                }
+            }
+            return -1;
+        }
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public Dictionary dictionary(Key key) {
+        return dictionaries.get(key);
+    }
+
+    /**
+     * @param id a game's id in {@code dictionary(Key.GAME)}
+     * @return its fields, or null if the game is only known from its statlines
+     */
+    public Game game(int id) {
+        return games[id];
+    }
+
+    public int key(Key key, int row) {
+        int s = segment(row);
+        return segments[s].ids().get(key)[segments[s].keys().get(key).get(row - bases[s])];
+    }
+
+    public int round(int row) {
+        int s = segment(row);
+        return segments[s].round().get(row - bases[s]);
+    }
+
+    public double value(Stat stat, int row) {
+        int s = segment(row);
+        int local = row - bases[s];
+        return stat == Stat.MINUTES ? segments[s].minutes().get(local) : segments[s].counts()[stat.ordinal()].get(local);
+    }
+
+    private int segment(int row) {
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rows);
+        }
+        int s = Arrays.binarySearch(bases, row);
+        // Skip empty segments that start at the same row
+        if (s >= 0) {
+            while (segments[s].rows() == 0) {
+                s++;
+            }
+            return s;
+        }
+        return -s - 2;
+    }
+
+    /**
+     * @return the numbers of the rows matching every filter, ascending
+     */
+    public int[] select(List<Filter> filters) {
+        int[] selection = new int[rows];
+        int size = 0;
+        for (int s = 0; s < segments.length; s++) {
+            size = select(s, filters, selection, size);
+        }
+        return Arrays.copyOf(selection, size);
+    }
+
+    /**
+     * Narrows a selection, such as the rows of a {@link BitmapIndex} lookup, by more filters.
+     *
+     * @param rows row numbers, ascending
+     */
+    public int[] select(int[] rows, List<Filter> filters) {
+        int[] selection = rows.clone();
+        int size = 0;
+        int i = 0;
+        for (int s = 0; s < segments.length; s++) {
+            // Move the segment's run of the selection up behind what the earlier ones kept
+            int from = i;
+            while (i < selection.length && selection[i] < bases[s + 1]) {
+                i++;
+            }
+            System.arraycopy(selection, from, selection, size, i - from);
+            int end = size + i - from;
+            for (Filter filter : filters) {
+                end = narrow(segments[s], bases[s], filter, selection, size, end, false);
+            }
+            size = end;
+        }
+        return Arrays.copyOf(selection, size);
+    }
+
+    // Appends the matching rows of one segment to the selection at from; returns its new size
+    private int select(int s, List<Filter> filters, int[] selection, int from) {
+        Segment segment = segments[s];
+        int base = bases[s];
+        if (filters.isEmpty()) {
+            for (int i = 0; i < segment.rows(); i++) {
+                selection[from + i] = base + i;
+            }
+            return from + segment.rows();
+        }
+        // The first filter scans the column itself, the others only the rows still selected
+        int end = narrow(segment, base, filters.get(0), selection, from, from + segment.rows(), true);
+        for (Filter filter : filters.subList(1, filters.size())) {
+            end = narrow(segment, base, filter, selection, from, end, false);
+        }
+        return end;
+    }
+
+    // Compacts the rows of selection[from, to) that pass to its front, in place; with all set,
+    // tests every row of the segment instead of the rows in the selection
+    private static int narrow(Segment segment, int base, Filter filter, int[] selection, int from, int to, boolean all) {
+        int kept = from;
+        if (filter instanceof Filter.Equals eq) {
+            int id = segment.localId(eq.key(), eq.id());
+            if (id < 0) {
+                return from;
+            }
+            IntBuffer column = segment.keys().get(eq.key());
+            for (int i = from; i < to; i++) {
+                int row = all ? i - from : selection[i] - base;
+                if (column.get(row) == id) {
+                    selection[kept++] = base + row;
+                }
+            }
+        } else if (filter instanceof Filter.Range range && range.stat() == Stat.MINUTES) {
+            FloatBuffer column = segment.minutes();
+            float min = (float) range.min(), max = (float) range.max();
+            for (int i = from; i < to; i++) {
+                int row = all ? i - from : selection[i] - base;
+                float v = column.get(row);
+                if (v >= min && v <= max) {
+                    selection[kept++] = base + row;
+                }
+            }
+        } else if (filter instanceof Filter.Range range) {
+            IntBuffer column = segment.counts()[range.stat().ordinal()];
+            double min = range.min(), max = range.max();
+            for (int i = from; i < to; i++) {
+                int row = all ? i - from : selection[i] - base;
+                int v = column.get(row);
+                if (v >= min && v <= max) {
+                    selection[kept++] = base + row;
+                }
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Groups the selected rows by {@code groupBy} (all of them in one group when empty)
+     * and computes each aggregate per group. Groups come out in order of first appearance.
+     */
+    public List<Group> aggregate(int[] selection, List<Key> groupBy, List<Aggregate> aggregates) {
+        int[][] keyValues = new int[groupBy.size()][];
+        long[] radix = new long[groupBy.size()];
+        long possible = 1;
+        for (int k = 0; k < groupBy.size(); k++) {
+            keyValues[k] = gather(groupBy.get(k), selection);
+            radix[k] = Math.max(1, dictionaries.get(groupBy.get(k)).size());
+            possible = possible > Long.MAX_VALUE / radix[k] ? Long.MAX_VALUE : possible * radix[k];
+        }
+
+        // Group number of every selected row
+        int[] groupOf = new int[selection.length];
+        // Position in the selection of each group's first row, to read its keys from
+        int[] firsts = new int[16];
+        int groups = 0;
+        if (possible <= DENSE_GROUPS) {
+            int[] groupByKey = new int[(int) possible];
+            Arrays.fill(groupByKey, -1);
+            for (int i = 0; i < selection.length; i++) {
+                int composite = (int) composite(keyValues, radix, i);
+                int g = groupByKey[composite];
+                if (g < 0) {
+                    g = groupByKey[composite] = groups;
+                    if (groups == firsts.length) {
+                        firsts = Arrays.copyOf(firsts, groups * 2);
+                    }
+                    firsts[groups++] = i;
+                }
+                groupOf[i] = g;
+            }
+        } else {
+            Map<Long, Integer> groupByKey = new HashMap<>();
+            for (int i = 0; i < selection.length; i++) {
+                Integer g = groupByKey.putIfAbsent(composite(keyValues, radix, i), groups);
+                if (g == null) {
+                    if (groups == firsts.length) {
+                        firsts = Arrays.copyOf(firsts, groups * 2);
+                    }
+                    firsts[groups] = i;
+                    g = groups++;
+                }
+                groupOf[i] = g;
+            }
+        }
+
+        int[] rowCounts = new int[groups];
+        for (int g : groupOf) {
+            rowCounts[g]++;
+        }
+        double[][] values = new double[aggregates.size()][];
+        for (int a = 0; a < aggregates.size(); a++) {
+            values[a] = aggregate(aggregates.get(a), selection, groupOf, rowCounts);
+        }
+
+        List<Group> result = new ArrayList<>(groups);
+        for (int g = 0; g < groups; g++) {
+            int[] groupKeys = new int[groupBy.size()];
+            for (int k = 0; k < groupKeys.length; k++) {
+                groupKeys[k] = keyValues[k][firsts[g]];
+            }
+            double[] groupValues = new double[aggregates.size()];
+            for (int a = 0; a < groupValues.length; a++) {
+                groupValues[a] = values[a][g];
+            }
+            result.add(new Group(groupKeys, rowCounts[g], groupValues));
+        }
+        return result;
+    }
+
+    private static long composite(int[][] keyValues, long[] radix, int i) {
+        long composite = 0;
+        for (int k = 0; k < keyValues.length; k++) {
+            composite = composite * radix[k] + keyValues[k][i];
+        }
+        return composite;
+    }
+
+    // The table ids of a key column at the selected rows, read segment by segment
+    private int[] gather(Key key, int[] selection) {
+        int[] out = new int[selection.length];
+        int i = 0;
+        for (int s = 0; s < segments.length && i < selection.length; s++) {
+            IntBuffer column = segments[s].keys().get(key);
+            int[] ids = segments[s].ids().get(key);
+            int base = bases[s], end = bases[s + 1];
+            for (; i < selection.length && selection[i] < end; i++) {
+                out[i] = ids[column.get(selection[i] - base)];
+            }
+        }
+        return out;
+    }
+
+    // A stat at the selected rows, widened to double so each aggregate is a single loop
+    private double[] gather(Stat stat, int[] selection) {
+        double[] out = new double[selection.length];
+        int i = 0;
+        for (int s = 0; s < segments.length && i < selection.length; s++) {
+            int base = bases[s], end = bases[s + 1];
+            if (stat == Stat.MINUTES) {
+                FloatBuffer column = segments[s].minutes();
+                for (; i < selection.length && selection[i] < end; i++) {
+                    out[i] = column.get(selection[i] - base);
+                }
+            } else {
+                IntBuffer column = segments[s].counts()[stat.ordinal()];
+                for (; i < selection.length && selection[i] < end; i++) {
+                    out[i] = column.get(selection[i] - base);
+                }
+            }
+        }
+        return out;
+    }
+
+    // One aggregate for every group, in a single pass over the stat's column
+    private double[] aggregate(Aggregate aggregate, int[] selection, int[] groupOf, int[] rowCounts) {
+        int groups = rowCounts.length;
+        double[] out = new double[groups];
+        if (aggregate.function() == Aggregate.Function.COUNT) {
+            for (int g = 0; g < groups; g++) {
+                out[g] = rowCounts[g];
+            }
+            return out;
+        }
+        double[] v = gather(aggregate.stat(), selection);
+        switch (aggregate.function()) {
+            case MIN -> {
+                Arrays.fill(out, Double.POSITIVE_INFINITY);
+                for (int i = 0; i < v.length; i++) {
+                    out[groupOf[i]] = Math.min(out[groupOf[i]], v[i]);
+                }
+            }
+            case MAX -> {
+                Arrays.fill(out, Double.NEGATIVE_INFINITY);
+                for (int i = 0; i < v.length; i++) {
+                    out[groupOf[i]] = Math.max(out[groupOf[i]], v[i]);
+                }
+            }
+            default -> {
+                for (int i = 0; i < v.length; i++) {
+                    out[groupOf[i]] += v[i];
+                }
+            }
+        }
+        if (aggregate.function() == Aggregate.Function.AVG) {
+            for (int g = 0; g < groups; g++) {
+                out[g] /= rowCounts[g];
+            }
+        }
+        return out;
+    }
+
+    /**
+     * One group of an aggregation: the dictionary ids of its keys, in groupBy order,
+     * the number of rows in it and the aggregates, in request order.
+     */
+    public record Group(int[] keys, int rows, double[] values) {
+    }
+
+    /**
+     * Appends statlines one at a time, growing the columns as needed, into a single
+     * heap segment.
+     */
+    public static final class Builder {
+        private final Map<Key, Dictionary> dictionaries = new EnumMap<>(Key.class);
+        private final Map<Key, int[]> keys = new EnumMap<>(Key.class);
+        private int[] round;
+        private float[] minutes;
+        private final int[][] counts = new int[Stat.values().length][];
+        private int rows;
+        private final Map<Integer, Game> games = new HashMap<>();
+
+        public Builder(int expectedRows) {
+            int capacity = Math.max(16, expectedRows);
+            for (Key key : Key.values()) {
+                dictionaries.put(key, new Dictionary());
+                keys.put(key, new int[capacity]);
+            }
+            round = new int[capacity];
+            minutes = new float[capacity];
+            for (Stat stat : Stat.values()) {
+                if (stat != Stat.MINUTES) {
+                    counts[stat.ordinal()] = new int[capacity];
+                }
+            }
+        }
+
+        /**
+         * Starts a new row; set its stats with {@link #set} before the next call.
+         */
+        public Builder add(String player, String team, String season, String game, int gameRound) {
+            if (rows == round.length) {
+                grow(rows * 2);
+            }
+            keys.get(Key.PLAYER)[rows] = dictionaries.get(Key.PLAYER).encode(player);
+            keys.get(Key.TEAM)[rows] = dictionaries.get(Key.TEAM).encode(team);
+            keys.get(Key.SEASON)[rows] = dictionaries.get(Key.SEASON).encode(season);
+            keys.get(Key.GAME)[rows] = dictionaries.get(Key.GAME).encode(game);
+            round[rows] = gameRound;
+            rows++;
+            return this;
+        }
+
+        public Builder game(String game, String season, String home, String road, int gameRound,
+                            String phase, String venue, List<String> referees) {
+            games.put(dictionaries.get(Key.GAME).encode(game), new Game(dictionaries.get(Key.SEASON).encode(season),
+                    dictionaries.get(Key.TEAM).encode(home), dictionaries.get(Key.TEAM).encode(road),
+                    gameRound, phase, venue, List.copyOf(referees)));
+            return this;
+        }
+
+        public Builder set(Stat stat, double value) {
+            if (stat == Stat.MINUTES) {
+                minutes[rows - 1] = (float) value;
+            } else {
+                counts[stat.ordinal()][rows - 1] = (int) value;
+            }
+            return this;
+        }
+
+        private void grow(int capacity) {
+            keys.replaceAll((key, column) -> Arrays.copyOf(column, capacity));
+            round = Arrays.copyOf(round, capacity);
+            minutes = Arrays.copyOf(minutes, capacity);
+            for (int s = 0; s < counts.length; s++) {
+                if (counts[s] != null) {
+                    counts[s] = Arrays.copyOf(counts[s], capacity);
+                }
+            }
+        }
+
+        public StatlineTable build() {
+            Map<Key, IntBuffer> keyColumns = new EnumMap<>(Key.class);
+            Map<Key, int[]> ids = new EnumMap<>(Key.class);
+            keys.forEach((key, column) -> {
+                keyColumns.put(key, IntBuffer.wrap(Arrays.copyOf(column, rows)));
+                // The builder's dictionaries are the table's
+                int[] identity = new int[dictionaries.get(key).size()];
+                Arrays.setAll(identity, id -> id);
+                ids.put(key, identity);
+            });
+            IntBuffer[] countColumns = new IntBuffer[counts.length];
+            for (int s = 0; s < counts.length; s++) {
+                if (counts[s] != null) {
+                    countColumns[s] = IntBuffer.wrap(Arrays.copyOf(counts[s], rows));
+                }
+            }
+            Segment segment = new Segment(rows, keyColumns, ids, IntBuffer.wrap(Arrays.copyOf(round, rows)),
+                    FloatBuffer.wrap(Arrays.copyOf(minutes, rows)), countColumns);
+            return new StatlineTable(dictionaries, List.of(segment), games);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.kgstats.config;
+
+import org.example.kgstats.cache.GraphVersion;
+import org.example.kgstats.sketch.DistinctSketchFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Serves approximate stats ({@code ?approx=true}) from the loader's distinct count sketches
+ * when {@code kgstats.distinct-sketches.file} is set.
+ */
+@Configuration
+@ConditionalOnProperty("kgstats.distinct-sketches.file")
+public class DistinctSketchConfig {
+
+    @Bean
+    public DistinctSketchFile distinctSketchFile(@Value("${kgstats.distinct-sketches.file}") String file,
+                                                 StoreProperties properties, GraphVersion graphVersion) {
+        return new DistinctSketchFile(Path.of(file), properties.getGraph(), graphVersion);
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.kgstats.config;
+
+import org.example.kgstats.sketch.StatSketches;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Reads the stat percentile sketches when {@code kgstats.sketches.file} is set.
+ */
+@Configuration
+@ConditionalOnProperty("kgstats.sketches.file")
+public class SketchConfig {
+
+    @Bean
+    public StatSketches statSketches(@Value("${kgstats.sketches.file}") String file) throws IOException {
+        return StatSketches.open(Path.of(file));
+    }
+}
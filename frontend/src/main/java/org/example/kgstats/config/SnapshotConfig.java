@@ -0,0 +1,23 @@
+package org.example.kgstats.config;
+
+import org.example.kgstats.snapshot.HdtSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Opens the read-only graph snapshot when {@code kgstats.snapshot.file} is set.
+ */
+@Configuration
+@ConditionalOnProperty("kgstats.snapshot.file")
+public class SnapshotConfig {
+
+    @Bean
+    public HdtSnapshot hdtSnapshot(@Value("${kgstats.snapshot.file}") String file) throws IOException {
+        return HdtSnapshot.open(Path.of(file));
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.kgstats.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads the {@code /kgStatsFull} sections run on. Keep the size at or below the
+ * connection pool size, so a request never queues on the pool behind itself.
+ */
+@Configuration
+public class StatsExecutorConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService statsExecutor(@Value("${kgstats.stats.parallelism:8}") int parallelism) {
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "kgstats-query-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
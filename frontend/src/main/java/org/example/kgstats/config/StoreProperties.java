@@ -0,0 +1,94 @@
+package org.example.kgstats.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Which triple store the dashboard reads from ({@code kgstats.store.*}).
+ * The Virtuoso connection itself is the {@code spring.datasource} pool.
+ */
+@ConfigurationProperties(prefix = "kgstats.store")
+public class StoreProperties {
+
+    public enum Type { VIRTUOSO, MEMORY, NATIVE }
+
+    private Type type = Type.VIRTUOSO;
+    // Directory of a Sesame native store, used when type is NATIVE
+    private String dataDir = "store";
+    // Named graph the loader puts the data in, and the graph of its VoID description
+    private String graph = "http://www.ics.forth.gr/isl/EuroleagueKG";
+    private String statsGraph = "http://www.ics.forth.gr/isl/EuroleagueKG/void";
+    // Graph of the season and career aggregates GameToRDF precomputes (aggregates.ttl)
+    private String aggregatesGraph = "http://www.ics.forth.gr/isl/EuroleagueKG/aggregates";
+    // Longest a single SPARQL query may run before it is cancelled
+    private Duration queryTimeout = Duration.ofSeconds(30);
+    // Rows the Virtuoso driver fetches per round trip; streamed results hold one fetch in memory
+    private int fetchSize = 500;
+    // Queries taking at least this long are logged with their SPARQL text
+    private Duration slowQueryThreshold = Duration.ofSeconds(1);
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getDataDir() {
+        return dataDir;
+    }
+
+    public void setDataDir(String dataDir) {
+        this.dataDir = dataDir;
+    }
+
+    public String getGraph() {
+        return graph;
+    }
+
+    public void setGraph(String graph) {
+        this.graph = graph;
+    }
+
+    public Duration getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    public void setQueryTimeout(Duration queryTimeout) {
+        this.queryTimeout = queryTimeout;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public Duration getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    public void setSlowQueryThreshold(Duration slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    public String getStatsGraph() {
+        return statsGraph;
+    }
+
+    public void setStatsGraph(String statsGraph) {
+        this.statsGraph = statsGraph;
+    }
+
+    public String getAggregatesGraph() {
+        return aggregatesGraph;
+    }
+
+    public void setAggregatesGraph(String aggregatesGraph) {
+        this.aggregatesGraph = aggregatesGraph;
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.kgstats.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.kgstats.store.InstrumentedTripleStore;
+import org.example.kgstats.store.SesameTripleStore;
+import org.example.kgstats.store.TripleStore;
+import org.example.kgstats.store.VirtuosoTripleStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.io.File;
+
+@Configuration
+@EnableConfigurationProperties(StoreProperties.class)
+public class TripleStoreConfig {
+
+    // Every query is timed and counted by name, whichever store runs it
+    @Bean
+    public TripleStore tripleStore(StoreProperties properties, ObjectProvider<DataSource> dataSource, MeterRegistry registry) {
+        return new InstrumentedTripleStore(store(properties, dataSource), registry, properties.getSlowQueryThreshold());
+    }
+
+    private static TripleStore store(StoreProperties properties, ObjectProvider<DataSource> dataSource) {
+        return switch (properties.getType()) {
+            case VIRTUOSO -> new VirtuosoTripleStore(dataSource.getObject(), properties.getQueryTimeout(), properties.getFetchSize());
+            case MEMORY -> withTimeout(SesameTripleStore.inMemory(), properties);
+            case NATIVE -> withTimeout(SesameTripleStore.nativeStore(new File(properties.getDataDir())), properties);
+        };
+    }
+
+    private static SesameTripleStore withTimeout(SesameTripleStore store, StoreProperties properties) {
+        store.setQueryTimeout(properties.getQueryTimeout());
+        return store;
+    }
+}
@@ -1,275 +1,243 @@
 package org.example.kgstats.controller;
 
+import org.example.kgstats.cache.GraphVersion;
+import org.example.kgstats.cache.ResultCache;
+import org.example.kgstats.guard.Bulkhead;
+import org.example.kgstats.guard.BulkheadFullException;
+import org.example.kgstats.sketch.DistinctSketchFile;
+import org.example.kgstats.sketch.DistinctSketches;
+import org.example.kgstats.snapshot.HdtSnapshot;
+import org.example.kgstats.stats.KGStats;
+import org.example.kgstats.stats.ScanStats;
+import org.example.kgstats.stats.SketchStats;
+import org.example.kgstats.stats.StatsFanOut;
+import org.example.kgstats.stats.VoidStats;
+import org.example.kgstats.store.QueryScope;
+import org.example.kgstats.store.TripleStoreException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.sql.*;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 @RestController
 public class KGStatsController {
 
-    private static final String DB_URL = "jdbc:virtuoso://localhost:1111";
-    private static final String DB_USERNAME = "dba";
-    private static final String DB_PASSWORD = "dba";
-
-    @GetMapping("/kgStatsFull")
-    public Map<String, Object> getFullStats() {
-        Map<String, Object> fullStats = new HashMap<>();
-
-        try {
-            Class.forName("virtuoso.jdbc3.Driver");
-            Connection conn = DriverManager.getConnection(DB_URL, DB_USERNAME, DB_PASSWORD);
-
-            // Basic stats - enhanced with new metrics
-            Map<String, Integer> basic = new HashMap<>();
-            basic.put("totalTriples", queryCount(conn, "SELECT COUNT(*) WHERE { ?s ?p ?o }"));
-            basic.put("totalEntities", queryCount(conn, "SELECT COUNT(DISTINCT ?s) WHERE { ?s a [] }"));
-            basic.put("totalPredicates", queryCount(conn, "SELECT COUNT(DISTINCT ?p) WHERE { ?s ?p ?o }"));
-            basic.put("totalClasses", queryCount(conn, "SELECT COUNT(DISTINCT ?o) WHERE { ?s a ?o }"));
-            basic.put("distinctSubjects", queryCount(conn, "SELECT COUNT(DISTINCT ?s) WHERE { ?s ?p ?o }"));
-            basic.put("distinctObjects", queryCount(conn, "SELECT COUNT(DISTINCT ?o) WHERE { ?s ?p ?o FILTER(!isLiteral(?o)) }"));
-            basic.put("triplesWithObjectURIs", queryCount(conn, "SELECT COUNT(*) WHERE { ?s ?p ?o FILTER(!isLiteral(?o)) }"));
-            basic.put("triplesWithObjectLiterals", queryCount(conn, "SELECT COUNT(*) WHERE { ?s ?p ?o FILTER(isLiteral(?o)) }"));
-            basic.put("distinctLiterals", queryCount(conn, "SELECT COUNT(DISTINCT ?o) WHERE { ?s ?p ?o FILTER(isLiteral(?o)) }"));
-
-            fullStats.put("basic", basic);
-
-            // Top Classes with enhanced data
-            List<Map<String, Object>> classes = queryClassStats(conn);
-            fullStats.put("classes", classes);
-
-            // Top Properties
-            List<Map<String, Object>> properties = queryPropertyStats(conn);
-            fullStats.put("properties", properties);
-            List<Map<String, Object>> propertySubjects = queryPropertySubjects(conn);
-            fullStats.put("propertySubjects", propertySubjects);
-            List<Map<String, Object>> propertyObjects = queryPropertyObjects(conn);
-            fullStats.put("propertyObjects", propertyObjects);
-
-            //Literal types distribution
-            List<Map<String, Object>> literalTypes = queryLiteralTypes(conn);
-            fullStats.put("literalTypes", literalTypes);
-
-            //Top URI prefixes
-            List<Map<String, Object>> uriPrefixes = queryURIPrefixes(conn);
-            fullStats.put("uriPrefixes", uriPrefixes);
-
-            conn.close();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return fullStats;
+    private static final Logger log = LoggerFactory.getLogger(KGStatsController.class);
+
+    // Clients may keep a response but must check its ETag, which changes with every load
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
+    // On ?approx=true responses: the relative standard error of every count in them
+    static final String STANDARD_ERROR_HEADER = "X-Standard-Error";
+
+    private final VoidStats voidStats;
+    private final ScanStats scanStats;
+    private final StatsFanOut fanOut;
+    private final GraphVersion graphVersion;
+    private final ResultCache resultCache;
+    private final Bulkhead bulkhead;
+    private final ObjectProvider<HdtSnapshot> snapshot;
+    private final ObjectProvider<DistinctSketchFile> distinctSketches;
+
+    public KGStatsController(VoidStats voidStats, ScanStats scanStats, StatsFanOut fanOut, GraphVersion graphVersion,
+                             ResultCache resultCache, Bulkhead bulkhead, ObjectProvider<HdtSnapshot> snapshot,
+                             ObjectProvider<DistinctSketchFile> distinctSketches) {
+        this.voidStats = voidStats;
+        this.scanStats = scanStats;
+        this.fanOut = fanOut;
+        this.graphVersion = graphVersion;
+        this.resultCache = resultCache;
+        this.bulkhead = bulkhead;
+        this.snapshot = snapshot;
+        this.distinctSketches = distinctSketches;
     }
 
-    private List<Map<String, Object>> queryClassStats(Connection conn) throws SQLException {
-        List<Map<String, Object>> classes = new ArrayList<>();
-        String sparql = """
-            SELECT ?class (COUNT(?s) AS ?count) (COUNT(DISTINCT ?s) AS ?distinctInstances)
-            WHERE { ?s a ?class } 
-            GROUP BY ?class 
-            ORDER BY DESC(?count) 
-            LIMIT 20
-            """;
+    // The loader's VoID description when there is one, a full scan otherwise
+    private KGStats stats() {
+        return voidStats.isAvailable() ? voidStats : scanStats;
+    }
 
-        Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery("SPARQL " + sparql);
-        while (rs.next()) {
-            Map<String, Object> row = new HashMap<>();
-            row.put("class", rs.getString("class"));
-            row.put("count", rs.getInt("count"));
-            row.put("distinctInstances", rs.getInt("distinctInstances"));
-            classes.add(row);
-        }
-        rs.close();
-        stmt.close();
-        return classes;
+    // Every section is queried concurrently; sections that fail or miss the deadline are listed under "errors".
+    // With ?approx=true every endpoint answers its counts from the loader's distinct sketches instead.
+    @GetMapping("/kgStatsFull")
+    public WebAsyncTask<ResponseEntity<Map<String, Object>>> getFullStats(@RequestParam(defaultValue = "false") boolean approx,
+                                                                          WebRequest request) {
+        return async(() -> cached("kgStatsFull", approx, request, fanOut::fullStats, full -> !full.containsKey("errors")));
     }
 
-    private List<Map<String, Object>> queryPropertyStats(Connection conn) throws SQLException {
-        List<Map<String, Object>> properties = new ArrayList<>();
-        String sparql = """
-            SELECT ?p (COUNT(*) AS ?count) 
-            WHERE { ?s ?p ?o } 
-            GROUP BY ?p 
-            ORDER BY DESC(?count) 
-            LIMIT 20
-            """;
+    @GetMapping("/kgStats")
+    public WebAsyncTask<ResponseEntity<Map<String, Integer>>> getStats(@RequestParam(defaultValue = "false") boolean approx,
+                                                                       WebRequest request) {
+        // A failed query is a 503 like any other section, rather than an empty 200
+        return async(() -> cached("kgStats", approx, request, KGStats::summary, stats -> !stats.isEmpty()));
+    }
 
-        Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery("SPARQL " + sparql);
-        while (rs.next()) {
-            Map<String, Object> row = new HashMap<>();
-            row.put("property", rs.getString("p"));
-            row.put("count", rs.getInt("count"));
-            properties.add(row);
-        }
-        rs.close();
-        stmt.close();
-        return properties;
+    // One section of /kgStatsFull, so the dashboard can load and draw them separately
+    @GetMapping("/kgStats/{section}")
+    public WebAsyncTask<? extends ResponseEntity<?>> getSection(@PathVariable String section,
+                                                                @RequestParam(defaultValue = "false") boolean approx,
+                                                                WebRequest request) {
+        return switch (section) {
+            case "basic" -> async(() -> cached("basic", approx, request, KGStats::basic, basic -> true));
+            case "classes" -> async(() -> cached("classes", approx, request, KGStats::classes, rows -> true));
+            case "literalTypes" -> async(() -> cached("literalTypes", approx, request, KGStats::literalTypes, rows -> true));
+            case "uriPrefixes" -> async(() -> cached("uriPrefixes", approx, request, KGStats::uriPrefixes, rows -> true));
+            case "properties", "propertySubjects", "propertyObjects" -> async(() -> {
+                // The three property sections are computed together, so they share one cache entry
+                ResponseEntity<Map<String, List<Map<String, Object>>>> all =
+                        cached("propertySections", approx, request, KGStats::propertySections, sections -> true);
+                return ResponseEntity.status(all.getStatusCode()).headers(all.getHeaders())
+                        .body(all.getBody() != null ? all.getBody().get(section) : null);
+            });
+            default -> throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No stats section " + section);
+        };
     }
 
-    private List<Map<String, Object>> queryPropertySubjects(Connection conn) throws SQLException {
-        List<Map<String, Object>> propertySubjects = new ArrayList<>();
-        String sparql = """
-            SELECT ?p (COUNT(DISTINCT ?s) AS ?count) 
-            WHERE { ?s ?p ?o } 
-            GROUP BY ?p 
-            ORDER BY DESC(?count) 
-            LIMIT 20
-            """;
+    @ExceptionHandler(TripleStoreException.class)
+    public ResponseEntity<Map<String, String>> storeFailed(TripleStoreException e) {
+        log.warn("Stats query failed: {}", e.getMessage(), e);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+    }
 
-        Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery("SPARQL " + sparql);
-        while (rs.next()) {
-            Map<String, Object> row = new HashMap<>();
-            row.put("property", rs.getString("p"));
-            row.put("count", rs.getInt("count"));
-            propertySubjects.add(row);
-        }
-        rs.close();
-        stmt.close();
-        return propertySubjects;
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<Map<String, String>> bulkheadFull(BulkheadFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .body(Map.of("error", e.getMessage()));
     }
 
-    private List<Map<String, Object>> queryPropertyObjects(Connection conn) throws SQLException {
-        List<Map<String, Object>> propertyObjects = new ArrayList<>();
-        String sparql = """
-            SELECT ?p (COUNT(DISTINCT ?o) AS ?count) 
-            WHERE { ?s ?p ?o } 
-            GROUP BY ?p 
-            ORDER BY DESC(?count) 
-            LIMIT 20
-            """;
+    // Runs the request's queries off the servlet thread in one QueryScope. When the container
+    // reports the request as failed (the client went away) or timed out, the scope is cancelled,
+    // which stops its statements on the server; so does completion, for any still running.
+    private static <T> WebAsyncTask<ResponseEntity<T>> async(Supplier<ResponseEntity<T>> work) {
+        QueryScope scope = new QueryScope();
+        WebAsyncTask<ResponseEntity<T>> task = new WebAsyncTask<>(() -> scope.call(work));
+        task.onError(() -> {
+            scope.cancel();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        });
+        task.onTimeout(() -> {
+            scope.cancel();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        });
+        task.onCompletion(scope::cancel);
+        return task;
+    }
 
-        Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery("SPARQL " + sparql);
-        while (rs.next()) {
-            Map<String, Object> row = new HashMap<>();
-            row.put("property", rs.getString("p"));
-            row.put("count", rs.getInt("count"));
-            propertyObjects.add(row);
+    // The exact or the approximate stats of an endpoint, cached apart; approximate responses
+    // carry their standard error. The sketches are looked up first, so that without them
+    // approx=true is a 404 even when nothing would be computed.
+    private <T> ResponseEntity<T> cached(String endpoint, boolean approx, WebRequest request,
+                                         Function<KGStats, T> compute, Predicate<T> complete) {
+        if (!approx) {
+            return cached(endpoint, request, () -> compute.apply(stats()), complete);
         }
-        rs.close();
-        stmt.close();
-        return propertyObjects;
+        DistinctSketchFile sketches = distinctSketches();
+        ResponseEntity<T> response = cached(endpoint + "~approx", request,
+                () -> compute.apply(new SketchStats(sketches.current(), sketches.graph(), stats())), complete);
+        return ResponseEntity.status(response.getStatusCode()).headers(response.getHeaders())
+                .header(STANDARD_ERROR_HEADER, String.valueOf(DistinctSketches.STANDARD_ERROR))
+                .body(response.getBody());
     }
 
-    private List<Map<String, Object>> queryLiteralTypes(Connection conn) throws SQLException {
-        List<Map<String, Object>> literalTypes = new ArrayList<>();
-        String sparql = """
-            SELECT (DATATYPE(?o) AS ?datatype) (COUNT(*) AS ?count) 
-            WHERE { ?s ?p ?o FILTER(isLiteral(?o)) } 
-            GROUP BY (DATATYPE(?o)) 
-            ORDER BY DESC(?count) 
-            LIMIT 15
-            """;
-
-        Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery("SPARQL " + sparql);
-        while (rs.next()) {
-            Map<String, Object> row = new HashMap<>();
-            String datatype = rs.getString("datatype");
-            row.put("datatype", datatype != null ? datatype : "untyped");
-            row.put("count", rs.getInt("count"));
-            literalTypes.add(row);
+    // Serves a result cached for the current graph version, or 304 when the client already has it.
+    // Without a version token from the loader nothing is cached.
+    private <T> ResponseEntity<T> cached(String endpoint, WebRequest request, Supplier<T> compute, Predicate<T> complete) {
+        String version = graphVersion.current();
+        // Only a computation that misses the cache takes a bulkhead slot
+        Supplier<T> guarded = () -> bulkhead.call(compute);
+        if (version == null) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(guarded.get());
+        }
+        String etag = ResultCache.etag(endpoint, version);
+        if (notModified(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
         }
-        rs.close();
-        stmt.close();
-        return literalTypes;
+        T result = resultCache.get(endpoint, version, guarded, complete);
+        if (!complete.test(result)) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(result);
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(result);
     }
 
-    private List<Map<String, Object>> queryURIPrefixes(Connection conn) throws SQLException {
-        List<Map<String, Object>> uriPrefixes = new ArrayList<>();
-        String sparql = """
-            SELECT (SUBSTR(?s, 1, CHARINDEX('#', ?s) - 1) AS ?prefix) (COUNT(*) AS ?count)
-            WHERE { 
-                ?s ?p ?o 
-                FILTER(isURI(?s) && CONTAINS(STR(?s), '#'))
-            } 
-            GROUP BY (SUBSTR(?s, 1, CHARINDEX('#', ?s) - 1))
-            ORDER BY DESC(?count) 
-            LIMIT 15
-            """;
-
-        try {
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SPARQL " + sparql);
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                row.put("prefix", rs.getString("prefix"));
-                row.put("count", rs.getInt("count"));
-                uriPrefixes.add(row);
+    private static boolean notModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
             }
-            rs.close();
-            stmt.close();
-        } catch (SQLException e) {
-            // If the advanced query fails, try a simpler approach
-            String simpleSparql = """
-                SELECT ?s (COUNT(*) AS ?count)
-                WHERE { ?s ?p ?o } 
-                GROUP BY ?s 
-                ORDER BY DESC(?count) 
-                LIMIT 10
-                """;
-
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SPARQL " + simpleSparql);
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                String uri = rs.getString("s");
-                String prefix = extractPrefix(uri);
-                row.put("prefix", prefix);
-                row.put("count", rs.getInt("count"));
-                uriPrefixes.add(row);
+            if (tag.equals("*") || tag.equals("\"" + etag + "\"")) {
+                return true;
             }
-            rs.close();
-            stmt.close();
         }
-        return uriPrefixes;
+        return false;
     }
 
-    private String extractPrefix(String uri) {
-        if (uri.contains("#")) {
-            return uri.substring(0, uri.lastIndexOf("#"));
-        } else if (uri.contains("/")) {
-            return uri.substring(0, uri.lastIndexOf("/"));
+    // Triple pattern lookups served from the memory-mapped snapshot, without the store.
+    // Omitted terms are wildcards; a term not starting with <, " or _: is taken as an IRI.
+    @GetMapping("/snapshot/triples")
+    public List<Map<String, String>> getSnapshotTriples(@RequestParam(required = false) String s,
+                                                        @RequestParam(required = false) String p,
+                                                        @RequestParam(required = false) String o,
+                                                        @RequestParam(defaultValue = "100") int limit) {
+        List<Map<String, String>> triples = new ArrayList<>();
+        for (String[] t : snapshot().find(term(s), term(p), term(o), Math.max(0, Math.min(limit, 10000)))) {
+            triples.add(Map.of("s", t[0], "p", t[1], "o", t[2]));
         }
-        return uri;
+        return triples;
     }
 
-    @GetMapping("/kgStats")
-    public Map<String, Integer> getStats() {
-        Map<String, Integer> stats = new HashMap<>();
-
-        try {
-            Class.forName("virtuoso.jdbc3.Driver");
-            Connection conn = DriverManager.getConnection(DB_URL, DB_USERNAME, DB_PASSWORD);
-
-            stats.put("totalTriples", queryCount(conn, "SELECT COUNT(*) WHERE { ?s ?p ?o }"));
-            stats.put("distinctSubjects", queryCount(conn, "SELECT COUNT(DISTINCT ?s) WHERE { ?s ?p ?o }"));
-            stats.put("distinctPredicates", queryCount(conn, "SELECT COUNT(DISTINCT ?p) WHERE { ?s ?p ?o }"));
-            stats.put("distinctObjects", queryCount(conn, "SELECT COUNT(DISTINCT ?o) WHERE { ?s ?p ?o }"));
+    @GetMapping("/snapshot/count")
+    public Map<String, Long> getSnapshotCount(@RequestParam(required = false) String s,
+                                              @RequestParam(required = false) String p,
+                                              @RequestParam(required = false) String o) {
+        return Map.of("count", snapshot().count(term(s), term(p), term(o)));
+    }
 
-            conn.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+    private HdtSnapshot snapshot() {
+        HdtSnapshot hdt = snapshot.getIfAvailable();
+        if (hdt == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No snapshot configured (kgstats.snapshot.file)");
         }
+        return hdt;
+    }
 
-        return stats;
+    private DistinctSketchFile distinctSketches() {
+        DistinctSketchFile sketches = distinctSketches.getIfAvailable();
+        if (sketches == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No distinct sketches configured (kgstats.distinct-sketches.file)");
+        }
+        return sketches;
     }
 
-    private int queryCount(Connection conn, String sparql) throws SQLException {
-        Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery("SPARQL " + sparql);
-        rs.next();
-        int count = rs.getInt(1);
-        rs.close();
-        stmt.close();
-        return count;
+    private static String term(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        if (value.startsWith("<") || value.startsWith("\"") || value.startsWith("_:")) {
+            return value;
+        }
+        return "<" + value + ">";
     }
 }
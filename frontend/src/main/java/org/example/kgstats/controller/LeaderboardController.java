@@ -0,0 +1,68 @@
+package org.example.kgstats.controller;
+
+import org.example.kgstats.columnar.Stat;
+import org.example.kgstats.leaderboard.LeaderboardEngine;
+import org.example.kgstats.leaderboard.Leaderboards;
+import org.example.kgstats.league.LeagueQueries;
+import org.example.kgstats.store.TripleStoreException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The leaders of a stat, read from the leaderboards kept in memory instead of sorting every
+ * statline: the best single games, season totals or career totals, of one season or all.
+ */
+@RestController
+public class LeaderboardController {
+
+    private static final Pattern SEASON = Pattern.compile("\\d{4}-\\d{2}");
+
+    private final Leaderboards leaderboards;
+
+    public LeaderboardController(Leaderboards leaderboards) {
+        this.leaderboards = leaderboards;
+    }
+
+    // e.g. /leaders/points?scope=season&season=2023-24 (top scorers), /leaders/pir?scope=game (highest PIR games),
+    // /leaders/assists?scope=career&k=25
+    @GetMapping("/leaders/{stat}")
+    public Map<String, Object> getLeaders(@PathVariable String stat,
+                                          @RequestParam(defaultValue = "season") String scope,
+                                          @RequestParam(required = false) String season,
+                                          @RequestParam(defaultValue = "10") int k) {
+        long start = System.nanoTime();
+        Stat s = Stat.of(stat);
+        LeaderboardEngine.Scope sc = LeaderboardEngine.Scope.of(scope);
+        if (season != null && !SEASON.matcher(season).matches()) {
+            throw new IllegalArgumentException("Invalid season: " + season);
+        }
+        LeaderboardEngine engine = leaderboards.engine();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("stat", s.key());
+        response.put("scope", sc.key());
+        response.put("season", season);
+        response.put("leaders", engine.top(s, sc, season != null ? LeagueQueries.seasonIri(season) : null,
+                Math.max(0, Math.min(k, engine.capacity()))));
+        response.put("micros", (System.nanoTime() - start) / 1000);
+        return response;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(TripleStoreException.class)
+    public ResponseEntity<Map<String, String>> storeFailed(TripleStoreException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,182 @@
+package org.example.kgstats.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.kgstats.league.Aggregates;
+import org.example.kgstats.league.CareerLines;
+import org.example.kgstats.league.EntityLookup;
+import org.example.kgstats.league.LeagueQueries;
+import org.example.kgstats.league.Page;
+import org.example.kgstats.store.TripleStoreException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The basketball data itself: players, teams and games. Listings are paginated by an
+ * opaque {@code after} cursor taken from the previous page's {@code next}.
+ */
+@RestController
+public class LeagueController {
+
+    // Player and team codes as in the Euroleague URLs (011204, PAN), and seasons as 2023-24
+    private static final Pattern CODE = Pattern.compile("[A-Za-z0-9]{1,16}");
+    private static final Pattern SEASON = Pattern.compile("\\d{4}-\\d{2}");
+    private static final int MAX_LIMIT = 500;
+
+    private final CareerLines careerLines;
+    private final Aggregates aggregates;
+    private final LeagueQueries queries;
+    private final EntityLookup lookup;
+    private final int batchMax;
+    private final ObjectMapper objectMapper;
+
+    public LeagueController(CareerLines careerLines, Aggregates aggregates, LeagueQueries queries, EntityLookup lookup,
+                            @Value("${kgstats.league.batch-max:100}") int batchMax, ObjectMapper objectMapper) {
+        this.careerLines = careerLines;
+        this.aggregates = aggregates;
+        this.queries = queries;
+        this.lookup = lookup;
+        this.batchMax = batchMax;
+        this.objectMapper = objectMapper;
+    }
+
+    // Every player's career line, written to the client row by row as the store returns them,
+    // so memory stays constant however many players there are. A query that fails part way
+    // leaves the array unterminated, since the status has already been sent.
+    @GetMapping("/players/careers")
+    public ResponseEntity<StreamingResponseBody> getCareers() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                careerLines.forEach(line -> {
+                    try {
+                        json.writeObject(line);
+                    } catch (IOException e) {
+                        // The client went away; stop reading the result
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // Precomputed season and career totals, averages and percentages of one player or team
+    @GetMapping("/players/{code}/seasons")
+    public List<Map<String, Object>> getPlayerSeasons(@PathVariable String code) {
+        return aggregates.playerSeasons(check(CODE, "player code", code));
+    }
+
+    @GetMapping("/players/{code}/career")
+    public Map<String, Object> getPlayerCareer(@PathVariable String code) {
+        return found(aggregates.playerCareer(check(CODE, "player code", code)), "player", code);
+    }
+
+    @GetMapping("/teams/{code}/seasons")
+    public List<Map<String, Object>> getTeamSeasons(@PathVariable String code) {
+        return aggregates.teamSeasons(check(CODE, "team code", code));
+    }
+
+    @GetMapping("/teams/{code}/career")
+    public Map<String, Object> getTeamCareer(@PathVariable String code) {
+        return found(aggregates.teamCareer(check(CODE, "team code", code)), "team", code);
+    }
+
+    @GetMapping("/players/{code}/games")
+    public Page<Map<String, Object>> getPlayerGames(@PathVariable String code,
+                                                    @RequestParam(required = false) String after,
+                                                    @RequestParam(defaultValue = "50") int limit) {
+        return queries.playerGames(check(CODE, "player code", code), after, limit(limit));
+    }
+
+    @GetMapping("/teams/{code}/boxscores")
+    public Page<Map<String, Object>> getTeamBoxscores(@PathVariable String code, @RequestParam String season,
+                                                      @RequestParam(required = false) String after,
+                                                      @RequestParam(defaultValue = "50") int limit) {
+        return queries.teamBoxscores(check(CODE, "team code", code), check(SEASON, "season", season), after, limit(limit));
+    }
+
+    @GetMapping("/games")
+    public Page<Map<String, Object>> getRoundGames(@RequestParam String season, @RequestParam int round,
+                                                   @RequestParam(required = false) String after,
+                                                   @RequestParam(defaultValue = "50") int limit) {
+        return queries.roundGames(check(SEASON, "season", season), round, after, limit(limit));
+    }
+
+    // Many entities of one type in a single query, e.g. a roster: ?codes=011204,002328&fields=name,height.
+    // Only the requested fields are fetched; all of them without ?fields.
+    @GetMapping("/players/batch")
+    public Map<String, Map<String, Object>> getPlayers(@RequestParam List<String> codes,
+                                                       @RequestParam(defaultValue = "") List<String> fields) {
+        return batch(EntityLookup.Type.PLAYER, codes, fields);
+    }
+
+    @GetMapping("/teams/batch")
+    public Map<String, Map<String, Object>> getTeams(@RequestParam List<String> codes,
+                                                     @RequestParam(defaultValue = "") List<String> fields) {
+        return batch(EntityLookup.Type.TEAM, codes, fields);
+    }
+
+    // Games by season code and number, E2023_333
+    @GetMapping("/games/batch")
+    public Map<String, Map<String, Object>> getGames(@RequestParam List<String> codes,
+                                                     @RequestParam(defaultValue = "") List<String> fields) {
+        return batch(EntityLookup.Type.GAME, codes, fields);
+    }
+
+    private Map<String, Map<String, Object>> batch(EntityLookup.Type type, List<String> codes, List<String> fields) {
+        if (codes.size() > batchMax) {
+            throw new IllegalArgumentException("At most " + batchMax + " codes per request, got " + codes.size());
+        }
+        if (type != EntityLookup.Type.GAME) {
+            codes.forEach(code -> check(CODE, type.name().toLowerCase() + " code", code));
+        }
+        return lookup.lookup(type, codes, fields.stream().filter(field -> !field.isBlank()).toList());
+    }
+
+    private static String check(Pattern pattern, String what, String value) {
+        if (!pattern.matcher(value).matches()) {
+            throw new IllegalArgumentException("Invalid " + what + ": " + value);
+        }
+        return value;
+    }
+
+    private static Map<String, Object> found(Map<String, Object> aggregate, String what, String code) {
+        if (aggregate == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No games played by " + what + " " + code);
+        }
+        return aggregate;
+    }
+
+    private static int limit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(TripleStoreException.class)
+    public ResponseEntity<Map<String, String>> storeFailed(TripleStoreException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.kgstats.controller;
+
+import org.example.kgstats.league.LeagueQueries;
+import org.example.kgstats.similarity.PlayerSimilarity;
+import org.example.kgstats.store.TripleStoreException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The player seasons statistically nearest a player's, by their per-36-minute stats and
+ * shooting splits, searched in memory by the player similarity index.
+ */
+@RestController
+public class SimilarityController {
+
+    private static final Pattern CODE = Pattern.compile("[A-Za-z0-9]{1,16}");
+    private static final Pattern SEASON = Pattern.compile("\\d{4}-\\d{2}");
+    private static final int MAX_K = 100;
+
+    private final PlayerSimilarity similarity;
+
+    public SimilarityController(PlayerSimilarity similarity) {
+        this.similarity = similarity;
+    }
+
+    // e.g. /players/011204/similar?season=2023-24&k=10; without a season, the player's latest.
+    // exact=true scans every player season even when the index is approximate.
+    @GetMapping("/players/{code}/similar")
+    public Map<String, Object> getSimilar(@PathVariable String code,
+                                          @RequestParam(required = false) String season,
+                                          @RequestParam(defaultValue = "10") int k,
+                                          @RequestParam(defaultValue = "false") boolean exact) {
+        long start = System.nanoTime();
+        if (!CODE.matcher(code).matches()) {
+            throw new IllegalArgumentException("Invalid player code: " + code);
+        }
+        if (season != null && !SEASON.matcher(season).matches()) {
+            throw new IllegalArgumentException("Invalid season: " + season);
+        }
+        PlayerSimilarity.Result result = similarity.similar(LeagueQueries.PLAYERS + code,
+                season != null ? LeagueQueries.seasonIri(season) : null, Math.max(0, Math.min(k, MAX_K)), exact);
+        if (result == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "No season of player " + code + (season != null ? " in " + season : "") + " with enough minutes");
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("player", result.player());
+        response.put("kernel", result.kernel());
+        response.put("search", result.mode());
+        response.put("similar", result.neighbours());
+        response.put("micros", (System.nanoTime() - start) / 1000);
+        return response;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(TripleStoreException.class)
+    public ResponseEntity<Map<String, String>> storeFailed(TripleStoreException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.kgstats.controller;
+
+import org.example.kgstats.columnar.Stat;
+import org.example.kgstats.league.LeagueQueries;
+import org.example.kgstats.sketch.StatSketches;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where a value of a player stat ranks among every statline of some seasons and positions,
+ * and the stat's quantiles and histogram, answered from the t-digest sketches the backend
+ * writes instead of sorting the statlines. Seasons (2023-24) and positions (Guard) take
+ * comma-separated lists; without them every season or position counts.
+ */
+@RestController
+public class SketchController {
+
+    private static final int MAX_BINS = 200;
+
+    private final ObjectProvider<StatSketches> sketches;
+
+    public SketchController(ObjectProvider<StatSketches> sketches) {
+        this.sketches = sketches;
+    }
+
+    // e.g. /distribution/pir/percentile?value=25&season=2023-24: 97.1 is "97th percentile PIR this season"
+    @GetMapping("/distribution/{stat}/percentile")
+    public Map<String, Object> getPercentile(@PathVariable String stat, @RequestParam double value,
+                                             @RequestParam(defaultValue = "") List<String> season,
+                                             @RequestParam(defaultValue = "") List<String> position) {
+        long start = System.nanoTime();
+        Stat s = Stat.of(stat);
+        List<String> seasons = seasons(season);
+        List<String> positions = values(position);
+        Map<String, Object> response = response(s, seasons, positions, sketches().count(s, seasons, positions));
+        response.put("value", value);
+        response.put("percentile", round(100 * sketches().cdf(s, seasons, positions, value)));
+        response.put("micros", (System.nanoTime() - start) / 1000);
+        return response;
+    }
+
+    @GetMapping("/distribution/{stat}/quantiles")
+    public Map<String, Object> getQuantiles(@PathVariable String stat,
+                                            @RequestParam(defaultValue = "0.1,0.25,0.5,0.75,0.9,0.99") List<Double> q,
+                                            @RequestParam(defaultValue = "") List<String> season,
+                                            @RequestParam(defaultValue = "") List<String> position) {
+        long start = System.nanoTime();
+        Stat s = Stat.of(stat);
+        for (double quantile : q) {
+            if (quantile < 0 || quantile > 1) {
+                throw new IllegalArgumentException("Quantiles are between 0 and 1, got " + quantile);
+            }
+        }
+        List<String> seasons = seasons(season);
+        List<String> positions = values(position);
+        double[] values = sketches().quantiles(s, seasons, positions, q.stream().mapToDouble(Double::doubleValue).toArray());
+        Map<String, Object> quantiles = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            quantiles.put(q.get(i).toString(), round(values[i]));
+        }
+        Map<String, Object> response = response(s, seasons, positions, sketches().count(s, seasons, positions));
+        response.put("quantiles", quantiles);
+        response.put("micros", (System.nanoTime() - start) / 1000);
+        return response;
+    }
+
+    @GetMapping("/distribution/{stat}/histogram")
+    public Map<String, Object> getHistogram(@PathVariable String stat, @RequestParam(defaultValue = "20") int bins,
+                                            @RequestParam(defaultValue = "") List<String> season,
+                                            @RequestParam(defaultValue = "") List<String> position) {
+        long start = System.nanoTime();
+        Stat s = Stat.of(stat);
+        List<String> seasons = seasons(season);
+        List<String> positions = values(position);
+        List<Map<String, Object>> histogram = new ArrayList<>();
+        for (double[] bin : sketches().histogram(s, seasons, positions, Math.max(1, Math.min(bins, MAX_BINS)))) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("from", round(bin[0]));
+            entry.put("count", Math.round(bin[1]));
+            histogram.add(entry);
+        }
+        Map<String, Object> response = response(s, seasons, positions, sketches().count(s, seasons, positions));
+        response.put("bins", histogram);
+        response.put("micros", (System.nanoTime() - start) / 1000);
+        return response;
+    }
+
+    private StatSketches sketches() {
+        StatSketches statSketches = sketches.getIfAvailable();
+        if (statSketches == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No stat sketches configured (kgstats.sketches.file)");
+        }
+        return statSketches;
+    }
+
+    private static Map<String, Object> response(Stat stat, List<String> seasons, List<String> positions, long statlines) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("stat", stat.key());
+        response.put("seasons", seasons);
+        response.put("positions", positions);
+        response.put("statlines", statlines);
+        return response;
+    }
+
+    private static List<String> seasons(List<String> seasons) {
+        return values(seasons).stream().map(LeagueQueries::seasonIri).toList();
+    }
+
+    private static List<String> values(List<String> values) {
+        return values.stream().filter(value -> !value.isBlank()).toList();
+    }
+
+    // NaN, for no statlines, as null
+    private static Double round(double value) {
+        return Double.isNaN(value) ? null : Math.round(value * 100) / 100.0;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
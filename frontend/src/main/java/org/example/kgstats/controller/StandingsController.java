@@ -0,0 +1,107 @@
+package org.example.kgstats.controller;
+
+import org.example.kgstats.league.LeagueQueries;
+import org.example.kgstats.standings.RatingChange;
+import org.example.kgstats.standings.Standings;
+import org.example.kgstats.standings.StandingsEngine;
+import org.example.kgstats.store.TripleStoreException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Season standings and Elo ratings, kept in memory by the standings engine and updated
+ * game by game, so a table is a snapshot lookup instead of an aggregation over every game.
+ */
+@RestController
+public class StandingsController {
+
+    private static final Pattern CODE = Pattern.compile("[A-Za-z0-9]{1,16}");
+    private static final Pattern SEASON = Pattern.compile("\\d{4}-\\d{2}");
+
+    private final Standings standings;
+
+    public StandingsController(Standings standings) {
+        this.standings = standings;
+    }
+
+    // The table after a round (?round=10), as of a date (?asOf=2024-01-15, the whole day, or a
+    // date and time), or after the season's latest game
+    @GetMapping("/standings")
+    public Map<String, Object> getStandings(@RequestParam String season,
+                                            @RequestParam(required = false) Integer round,
+                                            @RequestParam(required = false) String asOf) {
+        if (!SEASON.matcher(season).matches()) {
+            throw new IllegalArgumentException("Invalid season: " + season);
+        }
+        if (round != null && asOf != null) {
+            throw new IllegalArgumentException("Give either round or asOf, not both");
+        }
+        StandingsEngine engine = standings.engine();
+        String seasonIri = LeagueQueries.seasonIri(season);
+        StandingsEngine.Snapshot snapshot = asOf != null
+                ? engine.asOf(seasonIri, dateTime(asOf))
+                : engine.afterRound(seasonIri, round);
+        if (snapshot == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "No games in season " + season + (round != null ? " round " + round : ""));
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("season", season);
+        result.put("round", snapshot.round());
+        result.put("games", snapshot.games());
+        result.put("lastGame", snapshot.date());
+        result.put("table", snapshot.table());
+        return result;
+    }
+
+    // Every rating change of a team, oldest first; ?season=2023-24 for one season's
+    @GetMapping("/ratings/{code}/history")
+    public List<RatingChange> getRatingHistory(@PathVariable String code,
+                                               @RequestParam(required = false) String season) {
+        if (!CODE.matcher(code).matches()) {
+            throw new IllegalArgumentException("Invalid team code: " + code);
+        }
+        if (season != null && !SEASON.matcher(season).matches()) {
+            throw new IllegalArgumentException("Invalid season: " + season);
+        }
+        List<RatingChange> history = standings.engine().ratingHistory(LeagueQueries.TEAMS + code);
+        if (season == null) {
+            return history;
+        }
+        String seasonIri = LeagueQueries.seasonIri(season);
+        return history.stream().filter(change -> change.season().equals(seasonIri)).toList();
+    }
+
+    private static LocalDateTime dateTime(String value) {
+        try {
+            return value.length() == 10 ? LocalDate.parse(value).atTime(LocalTime.MAX) : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + value + ", expected e.g. 2024-01-15 or 2024-01-15T20:00:00");
+        }
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(TripleStoreException.class)
+    public ResponseEntity<Map<String, String>> storeFailed(TripleStoreException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+    }
+}
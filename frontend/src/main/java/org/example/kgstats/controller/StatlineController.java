@@ -0,0 +1,215 @@
+package org.example.kgstats.controller;
+
+import org.example.kgstats.columnar.Aggregate;
+import org.example.kgstats.columnar.BitmapIndex;
+import org.example.kgstats.columnar.Filter;
+import org.example.kgstats.columnar.Game;
+import org.example.kgstats.columnar.Key;
+import org.example.kgstats.columnar.Stat;
+import org.example.kgstats.columnar.StatlineEngine;
+import org.example.kgstats.columnar.StatlineTable;
+import org.example.kgstats.league.LeagueQueries;
+import org.example.kgstats.store.TripleStoreException;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Aggregates over every player statline, computed in memory by the columnar engine
+ * instead of joining statline triples in the store, and the games and statlines matching
+ * a filter on several dimensions, looked up in its bitmap indexes.
+ * Each dimension takes a comma-separated list of values, any of which matches.
+ */
+@RestController
+public class StatlineController {
+
+    // Venues and referees are entities named by their code
+    private static final String ENTITIES = "http://www.ics.forth.gr/isl/Basketball/entities/";
+
+    private final StatlineEngine engine;
+
+    public StatlineController(StatlineEngine engine) {
+        this.engine = engine;
+    }
+
+    // e.g. /statlines/aggregate?groupBy=season,player&agg=avg:pir,count&where=minutes>=10&season=2023-24
+    // Results are sorted by the first aggregate, highest first
+    @GetMapping("/statlines/aggregate")
+    public Map<String, Object> aggregate(@RequestParam(defaultValue = "") List<String> groupBy,
+                                         @RequestParam(defaultValue = "count") List<String> agg,
+                                         @RequestParam(defaultValue = "") List<String> where,
+                                         @RequestParam(required = false) List<String> player,
+                                         @RequestParam(required = false) List<String> team,
+                                         @RequestParam(required = false) List<String> season,
+                                         @RequestParam(required = false) List<String> phase,
+                                         @RequestParam(required = false) List<Integer> round,
+                                         @RequestParam(required = false) List<String> venue,
+                                         @RequestParam(required = false) List<String> referee,
+                                         @RequestParam(defaultValue = "100") int limit) {
+        long start = System.nanoTime();
+        BitmapIndex index = engine.index();
+        StatlineTable table = index.table();
+
+        RoaringBitmap rows = index.statlines(dimensions(player, team, season, phase, round, venue, referee));
+        int[] selection = table.select(rows.toArray(), conditions(where));
+        List<Key> keys = groupBy.stream().filter(key -> !key.isBlank()).map(Key::of).toList();
+        List<Aggregate> aggregates = agg.stream().filter(a -> !a.isBlank()).map(Aggregate::parse).toList();
+        if (aggregates.isEmpty()) {
+            aggregates = List.of(Aggregate.count());
+        }
+
+        List<StatlineTable.Group> groups = new ArrayList<>(table.aggregate(selection, keys, aggregates));
+        groups.sort(Comparator.comparingDouble((StatlineTable.Group g) -> g.values()[0]).reversed());
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (StatlineTable.Group group : groups.subList(0, Math.min(groups.size(), Math.max(0, limit)))) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (int k = 0; k < keys.size(); k++) {
+                result.put(keys.get(k).key(), table.dictionary(keys.get(k)).value(group.keys()[k]));
+            }
+            result.put("rows", group.rows());
+            for (int a = 0; a < aggregates.size(); a++) {
+                result.put(aggregates.get(a).name(), group.values()[a]);
+            }
+            results.add(result);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("rows", selection.length);
+        response.put("groups", groups.size());
+        response.put("micros", (System.nanoTime() - start) / 1000);
+        response.put("results", results);
+        return response;
+    }
+
+    // e.g. /filter/games?team=PAN&phase=Final Four, /filter/games?venue=ASY4&season=2023-24,2022-23
+    @GetMapping("/filter/games")
+    public Map<String, Object> filterGames(@RequestParam(required = false) List<String> player,
+                                           @RequestParam(required = false) List<String> team,
+                                           @RequestParam(required = false) List<String> season,
+                                           @RequestParam(required = false) List<String> phase,
+                                           @RequestParam(required = false) List<Integer> round,
+                                           @RequestParam(required = false) List<String> venue,
+                                           @RequestParam(required = false) List<String> referee,
+                                           @RequestParam(defaultValue = "100") int limit) {
+        long start = System.nanoTime();
+        BitmapIndex index = engine.index();
+        StatlineTable table = index.table();
+        RoaringBitmap games = index.games(dimensions(player, team, season, phase, round, venue, referee));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int id : games) {
+            if (results.size() >= limit) {
+                break;
+            }
+            Game game = table.game(id);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("game", table.dictionary(Key.GAME).value(id));
+            result.put("season", table.dictionary(Key.SEASON).value(game.season()));
+            result.put("round", game.round());
+            result.put("phase", game.phase());
+            result.put("home", table.dictionary(Key.TEAM).value(game.home()));
+            result.put("road", table.dictionary(Key.TEAM).value(game.road()));
+            result.put("venue", game.venue());
+            result.put("referees", game.referees());
+            results.add(result);
+        }
+        return filtered(games.getCardinality(), start, "games", results);
+    }
+
+    // e.g. /filter/statlines?player=011204&team=PAN&phase=Final Four&where=pir>=15
+    @GetMapping("/filter/statlines")
+    public Map<String, Object> filterStatlines(@RequestParam(defaultValue = "") List<String> where,
+                                               @RequestParam(required = false) List<String> player,
+                                               @RequestParam(required = false) List<String> team,
+                                               @RequestParam(required = false) List<String> season,
+                                               @RequestParam(required = false) List<String> phase,
+                                               @RequestParam(required = false) List<Integer> round,
+                                               @RequestParam(required = false) List<String> venue,
+                                               @RequestParam(required = false) List<String> referee,
+                                               @RequestParam(defaultValue = "100") int limit) {
+        long start = System.nanoTime();
+        BitmapIndex index = engine.index();
+        StatlineTable table = index.table();
+        RoaringBitmap rows = index.statlines(dimensions(player, team, season, phase, round, venue, referee));
+        int[] selection = table.select(rows.toArray(), conditions(where));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int row : Arrays.copyOf(selection, Math.min(selection.length, Math.max(0, limit)))) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (Key key : Key.values()) {
+                result.put(key.key(), table.dictionary(key).value(table.key(key, row)));
+            }
+            result.put("round", table.round(row));
+            for (Stat stat : Stat.values()) {
+                result.put(stat.key(), stat == Stat.MINUTES ? table.value(stat, row) : (Object) (int) table.value(stat, row));
+            }
+            results.add(result);
+        }
+        return filtered(selection.length, start, "statlines", results);
+    }
+
+    private static Map<String, Object> filtered(int count, long start, String name, List<Map<String, Object>> results) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("count", count);
+        response.put("micros", (System.nanoTime() - start) / 1000);
+        response.put(name, results);
+        return response;
+    }
+
+    // The request's codes as the terms the index is keyed by; dimensions not given are left out
+    private static Map<BitmapIndex.Dimension, List<String>> dimensions(List<String> player, List<String> team,
+                                                                      List<String> season, List<String> phase,
+                                                                      List<Integer> round, List<String> venue,
+                                                                      List<String> referee) {
+        Map<BitmapIndex.Dimension, List<String>> dimensions = new EnumMap<>(BitmapIndex.Dimension.class);
+        putTerms(dimensions, BitmapIndex.Dimension.PLAYER, player, code -> LeagueQueries.PLAYERS + code);
+        putTerms(dimensions, BitmapIndex.Dimension.TEAM, team, code -> LeagueQueries.TEAMS + code);
+        putTerms(dimensions, BitmapIndex.Dimension.SEASON, season, LeagueQueries::seasonIri);
+        putTerms(dimensions, BitmapIndex.Dimension.PHASE, phase, name -> name);
+        putTerms(dimensions, BitmapIndex.Dimension.ROUND, round, String::valueOf);
+        putTerms(dimensions, BitmapIndex.Dimension.VENUE, venue, code -> ENTITIES + code);
+        putTerms(dimensions, BitmapIndex.Dimension.REFEREE, referee, code -> ENTITIES + code);
+        return dimensions;
+    }
+
+    private static <T> void putTerms(Map<BitmapIndex.Dimension, List<String>> dimensions, BitmapIndex.Dimension dimension,
+                                     List<T> values, Function<T, String> term) {
+        if (values != null && !values.isEmpty()) {
+            dimensions.put(dimension, values.stream().map(term).toList());
+        }
+    }
+
+    private static List<Filter> conditions(List<String> where) {
+        List<Filter> filters = new ArrayList<>();
+        for (String condition : where) {
+            if (!condition.isBlank()) {
+                filters.add(Filter.parse(condition));
+            }
+        }
+        return filters;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(TripleStoreException.class)
+    public ResponseEntity<Map<String, String>> storeFailed(TripleStoreException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+    }
+}
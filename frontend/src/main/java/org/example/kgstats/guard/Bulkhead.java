@@ -0,0 +1,90 @@
+package org.example.kgstats.guard;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many heavy analytical computations (stats scans that miss the cache) run at
+ * once, so a burst of requests cannot take every pooled connection. Callers past the
+ * cap wait up to {@code max-wait} in a queue of at most {@code max-queued}; beyond that
+ * they are rejected at once, which the controller turns into a 503.
+ * Publishes {@code kgstats.bulkhead.active}, {@code .queued} and {@code .rejected}.
+ */
+@Component
+public class Bulkhead {
+
+    private final Semaphore permits;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter rejected;
+
+    public Bulkhead(@Value("${kgstats.bulkhead.max-concurrent:2}") int maxConcurrent,
+                    @Value("${kgstats.bulkhead.max-queued:4}") int maxQueued,
+                    @Value("${kgstats.bulkhead.max-wait:2s}") Duration maxWait,
+                    MeterRegistry registry) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxQueued = maxQueued;
+        this.maxWait = maxWait;
+        Gauge.builder("kgstats.bulkhead.active", active, AtomicInteger::get)
+                .description("Heavy queries running").register(registry);
+        Gauge.builder("kgstats.bulkhead.queued", queued, AtomicInteger::get)
+                .description("Heavy queries waiting for a slot").register(registry);
+        this.rejected = Counter.builder("kgstats.bulkhead.rejected")
+                .description("Heavy queries turned away because the bulkhead was full").register(registry);
+    }
+
+    public <T> T call(Supplier<T> work) {
+        acquire();
+        active.incrementAndGet();
+        try {
+            return work.get();
+        } finally {
+            active.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    private void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            throw reject("queue full");
+        }
+        try {
+            if (!permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw reject("no slot within " + maxWait.toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("interrupted");
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    private BulkheadFullException reject(String reason) {
+        rejected.increment();
+        return new BulkheadFullException("Too many statistics queries running (" + reason + ")", maxWait);
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+}
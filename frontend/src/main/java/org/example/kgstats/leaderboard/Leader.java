@@ -0,0 +1,9 @@
+package org.example.kgstats.leaderboard;
+
+/**
+ * One place on a leaderboard. A game leader is one statline, with its team, season and game;
+ * a season leader has the team of the player's latest game that season and no game; a career
+ * leader has neither team nor season. {@code games} is the number of statlines in the value.
+ */
+public record Leader(int rank, String player, String team, String season, String game, int games, double value) {
+}
@@ -0,0 +1,197 @@
+package org.example.kgstats.leaderboard;
+
+import org.example.kgstats.columnar.Stat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The leaders of every stat, kept up to date one statline at a time: the best single games,
+ * the highest season totals and the highest career totals, each per season and over all
+ * seasons (careers over all seasons only). Every board is a {@link TopK} of {@code capacity}
+ * places, so the top k is a copy of k places and adding a statline costs one comparison per
+ * board it does not make. Season and career totals are kept for every player, so a player
+ * climbs onto a board as soon as a game takes them past its last place.
+ * <p>
+ * Only the plus-minus can make a total go down; a board whose player drops while it is full
+ * is rebuilt from the totals the next time it is read.
+ * <p>
+ * Thread-safe: statlines may be added while boards are read.
+ */
+public final class LeaderboardEngine {
+
+    public enum Scope {
+        GAME("game"),
+        SEASON("season"),
+        CAREER("career");
+
+        private final String key;
+
+        Scope(String key) {
+            this.key = key;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public static Scope of(String key) {
+            for (Scope scope : values()) {
+                if (scope.key.equalsIgnoreCase(key)) {
+                    return scope;
+                }
+            }
+            throw new IllegalArgumentException("No scope " + key + ", expected one of "
+                    + Arrays.stream(values()).map(Scope::key).toList());
+        }
+    }
+
+    private static final Stat[] STATS = Stat.values();
+
+    // The boards of every stat of a scope and season, by Stat ordinal; season is null for those over every season
+    private record Boards(Scope scope, String season) {
+    }
+
+    // A game board's entry
+    private record Line(String player, String team, String season, String game) {
+    }
+
+    // A player's running totals in one season, or over their career (season null); compared by identity
+    private static final class Totals {
+        final String player;
+        final String season;
+        final double[] values = new double[STATS.length];
+        String team;
+        int games;
+
+        Totals(String player, String season) {
+            this.player = player;
+            this.season = season;
+        }
+    }
+
+    private record PlayerSeason(String player, String season) {
+    }
+
+    private final int capacity;
+    private final Map<Boards, TopK<Object>[]> boards = new HashMap<>();
+    // In the order first seen, so a rebuilt board breaks ties as the incremental one did
+    private final Map<PlayerSeason, Totals> seasonTotals = new LinkedHashMap<>();
+    private final Map<String, Totals> careerTotals = new LinkedHashMap<>();
+    private long statlines;
+
+    /**
+     * @param capacity the places kept on each board, the largest k that can be asked for
+     */
+    public LeaderboardEngine(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Leaderboard capacity must be at least 1, got " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Adds a player's statline of a game.
+     *
+     * @param values by {@link Stat} ordinal
+     */
+    public synchronized void add(String player, String team, String season, String game, double[] values) {
+        if (values.length != STATS.length) {
+            throw new IllegalArgumentException("Expected " + STATS.length + " stats, got " + values.length);
+        }
+        Line line = new Line(player, team, season, game);
+        Totals inSeason = seasonTotals.computeIfAbsent(new PlayerSeason(player, season), ps -> new Totals(player, season));
+        Totals career = careerTotals.computeIfAbsent(player, p -> new Totals(player, null));
+        inSeason.team = team;
+        inSeason.games++;
+        career.games++;
+        TopK<Object>[] seasonGames = boards(Scope.GAME, season);
+        TopK<Object>[] allGames = boards(Scope.GAME, null);
+        TopK<Object>[] seasonSeasons = boards(Scope.SEASON, season);
+        TopK<Object>[] allSeasons = boards(Scope.SEASON, null);
+        TopK<Object>[] careers = boards(Scope.CAREER, null);
+        for (int s = 0; s < STATS.length; s++) {
+            double value = values[s];
+            seasonGames[s].put(line, value, Double.NaN);
+            allGames[s].put(line, value, Double.NaN);
+            double previous = inSeason.values[s];
+            double total = inSeason.values[s] += value;
+            seasonSeasons[s].put(inSeason, total, previous);
+            allSeasons[s].put(inSeason, total, previous);
+            previous = career.values[s];
+            total = career.values[s] += value;
+            careers[s].put(career, total, previous);
+        }
+        statlines++;
+    }
+
+    public synchronized long statlines() {
+        return statlines;
+    }
+
+    /**
+     * @param season a season IRI, or null for every season; must be null for careers
+     * @param k      at most {@link #capacity()}
+     * @return the first k places, highest first; fewer if fewer players or games have the stat
+     */
+    public synchronized List<Leader> top(Stat stat, Scope scope, String season, int k) {
+        if (scope == Scope.CAREER && season != null) {
+            throw new IllegalArgumentException("Career leaders are over every season");
+        }
+        if (k < 0 || k > capacity) {
+            throw new IllegalArgumentException("Leaderboards keep " + capacity + " places, asked for " + k);
+        }
+        TopK<Object>[] ofScope = boards.get(new Boards(scope, season));
+        if (ofScope == null) {
+            return List.of();
+        }
+        TopK<Object> board = ofScope[stat.ordinal()];
+        if (board.stale()) {
+            board = ofScope[stat.ordinal()] = rebuild(stat, scope, season);
+        }
+        List<Leader> leaders = new ArrayList<>(Math.min(k, board.size()));
+        for (int rank = 0; rank < Math.min(k, board.size()); rank++) {
+            double value = board.value(rank);
+            if (board.id(rank) instanceof Line line) {
+                leaders.add(new Leader(rank + 1, line.player(), line.team(), line.season(), line.game(), 1, value));
+            } else {
+                Totals totals = (Totals) board.id(rank);
+                leaders.add(new Leader(rank + 1, totals.player, totals.season != null ? totals.team : null,
+                        totals.season, null, totals.games, value));
+            }
+        }
+        return leaders;
+    }
+
+    @SuppressWarnings("unchecked")
+    private TopK<Object>[] boards(Scope scope, String season) {
+        return boards.computeIfAbsent(new Boards(scope, season), b -> {
+            TopK<Object>[] created = new TopK[STATS.length];
+            for (int s = 0; s < created.length; s++) {
+                created[s] = new TopK<>(capacity);
+            }
+            return created;
+        });
+    }
+
+    // Only totals boards go stale; game boards never have a value replaced
+    private TopK<Object> rebuild(Stat stat, Scope scope, String season) {
+        TopK<Object> board = new TopK<>(capacity);
+        Collection<Totals> totals = scope == Scope.CAREER ? careerTotals.values() : seasonTotals.values();
+        for (Totals t : totals) {
+            if (season == null || season.equals(t.season)) {
+                board.put(t, t.values[stat.ordinal()], Double.NaN);
+            }
+        }
+        return board;
+    }
+}
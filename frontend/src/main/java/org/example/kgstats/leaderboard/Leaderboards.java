@@ -0,0 +1,84 @@
+package org.example.kgstats.leaderboard;
+
+import org.example.kgstats.columnar.Dictionary;
+import org.example.kgstats.columnar.Key;
+import org.example.kgstats.columnar.Stat;
+import org.example.kgstats.columnar.StatlineEngine;
+import org.example.kgstats.columnar.StatlineTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The current {@link LeaderboardEngine}, fed every statline of the columnar table on first
+ * use. When the loader writes a new graph version and the table is reloaded, only the
+ * statlines of games the engine has not seen yet are added, so new rounds cost their own
+ * statlines rather than a rebuild. A reload that drops a game the engine has counted
+ * starts a new engine. Requests that arrive while statlines are added wait for them.
+ */
+@Component
+public class Leaderboards {
+
+    private final StatlineEngine statlines;
+    private final int capacity;
+
+    private volatile Loaded loaded;
+
+    // The table last fed and the games of every table fed so far
+    private record Loaded(StatlineTable table, LeaderboardEngine engine, Set<String> games) {
+    }
+
+    public Leaderboards(StatlineEngine statlines, @Value("${kgstats.leaders.capacity:100}") int capacity) {
+        this.statlines = statlines;
+        this.capacity = capacity;
+    }
+
+    public LeaderboardEngine engine() {
+        StatlineTable table = statlines.table();
+        Loaded current = loaded;
+        if (current != null && current.table() == table) {
+            return current.engine();
+        }
+        synchronized (this) {
+            current = loaded;
+            if (current == null || current.table() != table) {
+                current = current != null && containsAll(table, current.games())
+                        ? new Loaded(table, current.engine(), current.games())
+                        : new Loaded(table, new LeaderboardEngine(capacity), new HashSet<>());
+                feed(table, current.engine(), current.games());
+                loaded = current;
+            }
+            return current.engine();
+        }
+    }
+
+    private static boolean containsAll(StatlineTable table, Set<String> games) {
+        Dictionary dictionary = table.dictionary(Key.GAME);
+        return games.stream().allMatch(game -> dictionary.id(game) >= 0);
+    }
+
+    // Adds the statlines of the table's games not in games, and adds those games to it
+    static void feed(StatlineTable table, LeaderboardEngine engine, Set<String> games) {
+        Dictionary dictionary = table.dictionary(Key.GAME);
+        boolean[] fresh = new boolean[dictionary.size()];
+        for (int id = 0; id < fresh.length; id++) {
+            fresh[id] = games.add(dictionary.value(id));
+        }
+        Stat[] stats = Stat.values();
+        double[] values = new double[stats.length];
+        for (int row = 0; row < table.rows(); row++) {
+            if (!fresh[table.key(Key.GAME, row)]) {
+                continue;
+            }
+            for (Stat stat : stats) {
+                values[stat.ordinal()] = table.value(stat, row);
+            }
+            engine.add(table.dictionary(Key.PLAYER).value(table.key(Key.PLAYER, row)),
+                    table.dictionary(Key.TEAM).value(table.key(Key.TEAM, row)),
+                    table.dictionary(Key.SEASON).value(table.key(Key.SEASON, row)),
+                    dictionary.value(table.key(Key.GAME, row)), values);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.kgstats.leaderboard;
+
+/**
+ * The highest values put, at most {@code capacity} of them, in two parallel arrays sorted
+ * highest first, so reading the top k is a copy of k slots. Ties keep the entry that got
+ * its value first ahead. Putting a value costs one comparison with the smallest kept when
+ * it does not make the cut, and a shift of at most {@code capacity} slots when it does.
+ * <p>
+ * An id put again has its value replaced. When a kept value goes down and all slots are
+ * full, an id that was left out may now belong in, which only its owner can tell; the
+ * board is then {@link #stale()} until rebuilt.
+ */
+final class TopK<T> {
+
+    private final Object[] ids;
+    private final double[] values;
+    private int size;
+    private boolean stale;
+
+    TopK(int capacity) {
+        this.ids = new Object[capacity];
+        this.values = new double[capacity];
+    }
+
+    /**
+     * @param previous the id's value when last put, NaN if it is new
+     */
+    void put(T id, double value, double previous) {
+        boolean full = size == ids.length;
+        // An id whose previous value was below the smallest kept cannot be on the board
+        if (!Double.isNaN(previous) && (!full || previous >= values[size - 1])) {
+            int at = indexOf(id);
+            if (at >= 0) {
+                remove(at);
+                if (value < previous && full) {
+                    stale = true;
+                }
+            }
+        }
+        if (size < ids.length || value > values[size - 1]) {
+            insert(id, value);
+        }
+    }
+
+    private int indexOf(T id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i].equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void remove(int at) {
+        System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+        System.arraycopy(values, at + 1, values, at, size - at - 1);
+        ids[--size] = null;
+    }
+
+    private void insert(T id, double value) {
+        // After every value at least as high, so earlier ties stay ahead
+        int at = size;
+        while (at > 0 && values[at - 1] < value) {
+            at--;
+        }
+        if (size == ids.length) {
+            size--;
+        }
+        System.arraycopy(ids, at, ids, at + 1, size - at);
+        System.arraycopy(values, at, values, at + 1, size - at);
+        ids[at] = id;
+        values[at] = value;
+        size++;
+    }
+
+    boolean stale() {
+        return stale;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    T id(int rank) {
+        return (T) ids[rank];
+    }
+
+    double value(int rank) {
+        return values[rank];
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.kgstats.league;
+
+import org.example.kgstats.config.StoreProperties;
+import org.example.kgstats.store.SparqlTemplate;
+import org.example.kgstats.store.TripleStore;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A player's or team's season and career aggregates, as the backend GameToRDF precomputes
+ * them into the aggregates graph: totals, per-game averages, shooting percentages, games
+ * played and, for players, starts. Each aggregate is one subject, so a lookup reads its
+ * properties rather than summing statlines. Fields are named by the bball: property.
+ */
+@Component
+public class Aggregates {
+
+    private static final String BBALL = "http://www.ics.forth.gr/isl/Basketball#";
+    private static final String SEASON_AGGREGATE = BBALL + "SeasonAggregate";
+    private static final String CAREER_AGGREGATE = BBALL + "CareerAggregate";
+
+    private static final SparqlTemplate AGGREGATES = new SparqlTemplate("""
+            PREFIX bball: <http://www.ics.forth.gr/isl/Basketball#>
+            SELECT ?aggregate ?property ?value ?type
+            FROM $graph
+            WHERE {
+                ?aggregate bball:aggregateOf $subject ;
+                           a $class ;
+                           ?property ?value .
+                FILTER(STRSTARTS(STR(?property), "http://www.ics.forth.gr/isl/Basketball#")
+                       && ?property != bball:aggregateOf)
+                BIND(IF(isLiteral(?value), STR(DATATYPE(?value)), "") AS ?type)
+            }
+            ORDER BY ?aggregate
+            """);
+
+    private final TripleStore store;
+    private final String graph;
+
+    public Aggregates(TripleStore store, StoreProperties properties) {
+        this.store = store;
+        this.graph = properties.getAggregatesGraph();
+    }
+
+    /**
+     * @return the player's aggregate of each season they played in, oldest first
+     */
+    public List<Map<String, Object>> playerSeasons(String playerCode) {
+        return aggregates("league.aggregates.player-seasons", LeagueQueries.PLAYERS + playerCode, SEASON_AGGREGATE);
+    }
+
+    /**
+     * @return the player's career aggregate, or null if they never played
+     */
+    public Map<String, Object> playerCareer(String playerCode) {
+        List<Map<String, Object>> career = aggregates("league.aggregates.player-career",
+                LeagueQueries.PLAYERS + playerCode, CAREER_AGGREGATE);
+        return career.isEmpty() ? null : career.get(0);
+    }
+
+    /**
+     * @return the team's aggregate of each season it played in, oldest first
+     */
+    public List<Map<String, Object>> teamSeasons(String teamCode) {
+        return aggregates("league.aggregates.team-seasons", LeagueQueries.TEAMS + teamCode, SEASON_AGGREGATE);
+    }
+
+    /**
+     * @return the team's aggregate over every season, or null if it never played
+     */
+    public Map<String, Object> teamCareer(String teamCode) {
+        List<Map<String, Object>> career = aggregates("league.aggregates.team-career",
+                LeagueQueries.TEAMS + teamCode, CAREER_AGGREGATE);
+        return career.isEmpty() ? null : career.get(0);
+    }
+
+    // The subject's aggregates of one class in IRI order, which for seasons (#aggregate_2023_24) is by season
+    private List<Map<String, Object>> aggregates(String name, String subject, String aggregateClass) {
+        String sparql = AGGREGATES.bind()
+                .iri("graph", graph)
+                .iri("subject", subject)
+                .iri("class", aggregateClass)
+                .sparql();
+        Map<String, Map<String, Object>> aggregates = new LinkedHashMap<>();
+        store.forEach(name, sparql, row -> aggregates
+                .computeIfAbsent(row.getString("aggregate"), iri -> new LinkedHashMap<>())
+                .put(row.getString("property").substring(BBALL.length()), EntityLookup.value(row)));
+        return new ArrayList<>(aggregates.values());
+    }
+}
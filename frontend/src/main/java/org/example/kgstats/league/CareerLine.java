@@ -0,0 +1,8 @@
+package org.example.kgstats.league;
+
+/**
+ * A player's totals over every game in the graph they have a statline for.
+ */
+public record CareerLine(String player, String name, int games, double minutes,
+                         int points, int rebounds, int assists, int pir) {
+}
@@ -0,0 +1,54 @@
+package org.example.kgstats.league;
+
+import org.example.kgstats.config.StoreProperties;
+import org.example.kgstats.store.TripleStore;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Career totals of every player, read from the {@code bball:CareerAggregate} resources the
+ * backend GameToRDF precomputes into the aggregates graph, one subject per player, so no
+ * statline is summed per request. Games the player did not play in are not counted.
+ */
+@Component
+public class CareerLines {
+
+    private static final String CAREERS = """
+            PREFIX bball: <http://www.ics.forth.gr/isl/Basketball#>
+            PREFIX rdfs:  <http://www.w3.org/2000/01/rdf-schema#>
+            SELECT ?player ?name ?games ?minutes ?points ?rebounds ?assists ?pir
+            FROM <%s>
+            FROM <%s>
+            WHERE {
+                ?career a bball:CareerAggregate ;
+                        bball:aggregateOf ?player ;
+                        bball:gamesPlayed ?games ;
+                        bball:minutesPlayed ?minutes ;
+                        bball:points ?points ;
+                        bball:totalRebounds ?rebounds ;
+                        bball:assists ?assists ;
+                        bball:PIR ?pir .
+                FILTER(STRSTARTS(STR(?player), "%s"))
+                OPTIONAL { ?player rdfs:label ?name }
+            }
+            ORDER BY ?player
+            """;
+
+    private final TripleStore store;
+    private final String sparql;
+
+    public CareerLines(TripleStore store, StoreProperties properties) {
+        this.store = store;
+        this.sparql = CAREERS.formatted(properties.getAggregatesGraph(), properties.getGraph(), LeagueQueries.PLAYERS);
+    }
+
+    /**
+     * Hands each player's line to {@code action} as the store returns it, ordered by player IRI.
+     */
+    public void forEach(Consumer<CareerLine> action) {
+        store.forEach("league.careers", sparql, row -> action.accept(new CareerLine(
+                row.getString("player"), row.getString("name"), row.getInt("games"), row.getDouble("minutes"),
+                row.getInt("points"), row.getInt("rebounds"), row.getInt("assists"), row.getInt("pir"))));
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.kgstats.league;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by game date, then game code: the key of the last row
+ * served. The next page starts after it with a range filter, so a deep page costs as much
+ * as the first, where OFFSET would skip every row before it. Sent to clients as an opaque token.
+ */
+record Cursor(String date, String code) {
+
+    // Sorts before every game
+    static final Cursor START = new Cursor("0001-01-01T00:00:00", "");
+
+    // xsd:dateTime lexical form without a timezone, as GameToRDF writes bball:hasDate
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss");
+
+    static Cursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return START;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\n", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+            return new Cursor(normalise(parts[0]), parts[1]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+    }
+
+    String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((date + "\n" + code).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The dateTime as Sesame ({@code 2024-05-26T20:00:00}) or the Virtuoso driver
+     * ({@code 2024-05-26 20:00:00.0}) returns it, in the form the queries compare against.
+     */
+    static String normalise(String dateTime) {
+        return LocalDateTime.parse(dateTime.replace(' ', 'T')).format(DATE);
+    }
+}
@@ -0,0 +1,191 @@
+package org.example.kgstats.league;
+
+import org.example.kgstats.config.StoreProperties;
+import org.example.kgstats.store.SparqlRow;
+import org.example.kgstats.store.SparqlTemplate;
+import org.example.kgstats.store.TripleStore;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves many players, teams or games in one query: the entities and the requested
+ * properties go into {@code VALUES} blocks, and the store returns one row per value,
+ * so only the projected properties are fetched. Properties are named by field, the
+ * way the API exposes them; each type has a fixed set of fields.
+ */
+@Component
+public class EntityLookup {
+
+    public enum Type { PLAYER, TEAM, GAME }
+
+    private static final String BBALL = "http://www.ics.forth.gr/isl/Basketball#";
+    private static final String RDFS_LABEL = "http://www.w3.org/2000/01/rdf-schema#label";
+    private static final String FOAF_DEPICTION = "http://xmlns.com/foaf/0.1/depiction";
+    private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+
+    private static final String GAMES = "https://www.euroleaguebasketball.net/euroleague/game-center/";
+    // Game codes as season code and game number, E2023_333 for .../game-center/2023-24/-/E2023/333
+    private static final Pattern GAME_CODE = Pattern.compile("(E(\\d{4}))_(\\d+)");
+
+    // Fields of each type, by the property that holds them, as the backend converters write them
+    private static final Map<Type, Map<String, String>> FIELDS = Map.of(
+            Type.PLAYER, fields(
+                    "name", RDFS_LABEL,
+                    "country", BBALL + "hasCountry",
+                    "bornIn", BBALL + "wasBornIn",
+                    "height", BBALL + "hasHeight",
+                    "weight", BBALL + "hasWeight",
+                    "birthDate", BBALL + "hasBirthDate",
+                    "position", BBALL + "hasPosition",
+                    "image", FOAF_DEPICTION,
+                    "biography", BBALL + "hasBiography",
+                    "achievements", BBALL + "hasAchievements"),
+            Type.TEAM, fields(
+                    "name", RDFS_LABEL,
+                    "fullName", "https://www.w3.org/TR/skos-reference/altLabel",
+                    "country", BBALL + "teamCountry",
+                    "venue", BBALL + "teamVenue",
+                    "website", BBALL + "hasWebsite",
+                    "crest", FOAF_DEPICTION,
+                    "description", "http://www.w3.org/2000/01/rdf-schema#comment"),
+            Type.GAME, fields(
+                    "name", RDFS_LABEL,
+                    "season", BBALL + "hasSeason",
+                    "phase", BBALL + "hasPhase",
+                    "round", BBALL + "hasRound",
+                    "date", BBALL + "hasDate",
+                    "home", BBALL + "homeTeam",
+                    "road", BBALL + "roadTeam",
+                    "homeScore", BBALL + "hasHomeTeamScore",
+                    "roadScore", BBALL + "hasRoadTeamScore",
+                    "audience", BBALL + "hasAudience",
+                    "venue", BBALL + "gameVenue",
+                    "winner", BBALL + "winningTeam"));
+
+    private static final SparqlTemplate LOOKUP = new SparqlTemplate("""
+            SELECT ?entity ?property ?value ?type
+            FROM $graph
+            WHERE {
+                VALUES ?entity { $entities }
+                VALUES ?property { $properties }
+                ?entity ?property ?value
+                BIND(IF(isLiteral(?value), STR(DATATYPE(?value)), "") AS ?type)
+            }
+            """);
+
+    private final TripleStore store;
+    private final String graph;
+
+    public EntityLookup(TripleStore store, StoreProperties properties) {
+        this.store = store;
+        this.graph = properties.getGraph();
+    }
+
+    public static Collection<String> fieldNames(Type type) {
+        return FIELDS.get(type).keySet();
+    }
+
+    /**
+     * @param codes  player or team codes (011204, PAN) or game codes (E2023_333)
+     * @param fields the fields to fetch, all of the type's when empty
+     * @return each code's fields in the order of {@code codes}; null for a code nothing is known about.
+     * A field with several values is a list.
+     * @throws IllegalArgumentException for a field the type does not have or a malformed game code
+     */
+    public Map<String, Map<String, Object>> lookup(Type type, List<String> codes, List<String> fields) {
+        Map<String, String> typeFields = FIELDS.get(type);
+        Map<String, String> fieldByProperty = new LinkedHashMap<>();
+        for (String field : fields.isEmpty() ? typeFields.keySet() : fields) {
+            String property = typeFields.get(field);
+            if (property == null) {
+                throw new IllegalArgumentException("No field " + field + " for " + type.name().toLowerCase()
+                        + "s, expected one of " + typeFields.keySet());
+            }
+            fieldByProperty.put(property, field);
+        }
+        Map<String, String> codeByIri = new LinkedHashMap<>();
+        for (String code : codes) {
+            codeByIri.put(iri(type, code), code);
+        }
+
+        Map<String, Map<String, Object>> entities = new LinkedHashMap<>();
+        codes.forEach(code -> entities.put(code, null));
+        if (codeByIri.isEmpty()) {
+            return entities;
+        }
+        String sparql = LOOKUP.bind()
+                .iri("graph", graph)
+                .iris("entities", codeByIri.keySet())
+                .iris("properties", fieldByProperty.keySet())
+                .sparql();
+        store.forEach("league.lookup." + type.name().toLowerCase(), sparql, row -> {
+            Map<String, Object> entity = entities.get(codeByIri.get(row.getString("entity")));
+            if (entity == null) {
+                entity = new LinkedHashMap<>();
+                entity.put("iri", row.getString("entity"));
+                entities.put(codeByIri.get(row.getString("entity")), entity);
+            }
+            entity.merge(fieldByProperty.get(row.getString("property")), value(row), EntityLookup::addValue);
+        });
+        return entities;
+    }
+
+    static String iri(Type type, String code) {
+        return switch (type) {
+            case PLAYER -> LeagueQueries.PLAYERS + code;
+            case TEAM -> LeagueQueries.TEAMS + code;
+            case GAME -> {
+                Matcher m = GAME_CODE.matcher(code);
+                if (!m.matches()) {
+                    throw new IllegalArgumentException("Invalid game code: " + code + ", expected e.g. E2023_333");
+                }
+                int year = Integer.parseInt(m.group(2));
+                String season = year + "-" + String.format("%02d", (year + 1) % 100);
+                yield GAMES + season + "/-/" + m.group(1) + "/" + m.group(3);
+            }
+        };
+    }
+
+    // Numbers and booleans as JSON numbers and booleans, everything else as its lexical form
+    static Object value(SparqlRow row) {
+        String type = row.getString("type");
+        if (type == null || !type.startsWith(XSD)) {
+            return row.getString("value");
+        }
+        return switch (type.substring(XSD.length())) {
+            case "integer", "int", "long", "short" -> row.getInt("value");
+            case "double", "float", "decimal" -> row.getDouble("value");
+            case "boolean" -> Boolean.parseBoolean(row.getString("value"));
+            case "dateTime" -> Cursor.normalise(row.getString("value"));
+            default -> row.getString("value");
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object addValue(Object values, Object value) {
+        List<Object> list;
+        if (values instanceof List<?>) {
+            list = (List<Object>) values;
+        } else {
+            list = new ArrayList<>();
+            list.add(values);
+        }
+        list.add(value);
+        return list;
+    }
+
+    private static Map<String, String> fields(String... fieldsAndProperties) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < fieldsAndProperties.length; i += 2) {
+            fields.put(fieldsAndProperties[i], fieldsAndProperties[i + 1]);
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,184 @@
+package org.example.kgstats.league;
+
+import org.example.kgstats.config.StoreProperties;
+import org.example.kgstats.store.SparqlRow;
+import org.example.kgstats.store.SparqlTemplate;
+import org.example.kgstats.store.TripleStore;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Listings of the basketball data itself, over the BBall ontology as the backend GameToRDF
+ * writes it: a player's game log, a team's boxscores in a season and the games of a round.
+ * Each is a {@link SparqlTemplate} with the request's values bound as terms, ordered by
+ * game date then game code and paginated by keyset ({@link Cursor}).
+ */
+@Component
+public class LeagueQueries {
+
+    public static final String PLAYERS = "https://www.euroleaguebasketball.net/euroleague/players/-/";
+    public static final String TEAMS = "https://www.euroleaguebasketball.net/euroleague/teams/-/";
+    public static final String SEASONS = "http://www.ics.forth.gr/isl/Basketball/entities/Season_";
+
+    private static final String XSD_DATE_TIME = "http://www.w3.org/2001/XMLSchema#dateTime";
+
+    private static final String PREFIXES = """
+            PREFIX bball: <http://www.ics.forth.gr/isl/Basketball#>
+            """;
+
+    // Rows after the cursor, in the order the cursor follows
+    private static final String AFTER = """
+                FILTER(?date > $afterDate || (?date = $afterDate && STR(?code) > $afterCode))
+            }
+            ORDER BY ?date STR(?code)
+            LIMIT $limit
+            """;
+
+    private static final SparqlTemplate PLAYER_GAMES = new SparqlTemplate(PREFIXES + """
+            SELECT ?game ?code ?date ?team ?minutes ?points ?rebounds ?assists ?pir
+            FROM $graph
+            WHERE {
+                ?participation bball:overPlayer $player ;
+                               bball:hasPlayerStatline ?line .
+                ?boxscore bball:hasPlayerParticipation ?participation ;
+                          bball:overTeam ?team .
+                ?game bball:hasTeamBoxscore ?boxscore ;
+                      bball:hasCode ?code ;
+                      bball:hasDate ?date .
+                ?line bball:minutesPlayed ?minutes ;
+                      bball:points ?points ;
+                      bball:totalRebounds ?rebounds ;
+                      bball:assists ?assists ;
+                      bball:PIR ?pir .
+            """ + AFTER);
+
+    private static final SparqlTemplate TEAM_BOXSCORES = new SparqlTemplate(PREFIXES + """
+            SELECT ?game ?code ?date ?opponent ?points ?opponentPoints ?rebounds ?assists ?turnovers ?pir
+            FROM $graph
+            WHERE {
+                ?game bball:hasSeason $season ;
+                      bball:hasCode ?code ;
+                      bball:hasDate ?date ;
+                      bball:hasTeamBoxscore ?boxscore, ?other .
+                ?boxscore bball:overTeam $team ;
+                          bball:hasTeamStatline ?line .
+                ?other bball:overTeam ?opponent ;
+                       bball:hasTeamStatline ?otherLine .
+                FILTER(?opponent != $team)
+                ?line bball:points ?points ;
+                      bball:totalRebounds ?rebounds ;
+                      bball:assists ?assists ;
+                      bball:turnovers ?turnovers ;
+                      bball:PIR ?pir .
+                ?otherLine bball:points ?opponentPoints .
+            """ + AFTER);
+
+    private static final SparqlTemplate ROUND_GAMES = new SparqlTemplate(PREFIXES + """
+            SELECT ?game ?code ?date ?home ?road ?homeScore ?roadScore
+            FROM $graph
+            WHERE {
+                ?game a bball:Game ;
+                      bball:hasSeason $season ;
+                      bball:hasRound $round ;
+                      bball:hasCode ?code ;
+                      bball:hasDate ?date ;
+                      bball:homeTeam ?home ;
+                      bball:roadTeam ?road .
+                OPTIONAL { ?game bball:hasHomeTeamScore ?homeScore ; bball:hasRoadTeamScore ?roadScore }
+            """ + AFTER);
+
+    private final TripleStore store;
+    private final String graph;
+
+    public LeagueQueries(TripleStore store, StoreProperties properties) {
+        this.store = store;
+        this.graph = properties.getGraph();
+    }
+
+    /**
+     * The games a player has a statline in, with their line in each.
+     */
+    public Page<Map<String, Object>> playerGames(String playerCode, String after, int limit) {
+        SparqlTemplate.Binding query = PLAYER_GAMES.bind().iri("player", PLAYERS + playerCode);
+        return page("league.playerGames", query, after, limit, row -> {
+            Map<String, Object> game = gameKey(row);
+            game.put("team", row.getString("team"));
+            game.put("minutes", row.getDouble("minutes"));
+            game.put("points", row.getInt("points"));
+            game.put("rebounds", row.getInt("rebounds"));
+            game.put("assists", row.getInt("assists"));
+            game.put("pir", row.getInt("pir"));
+            return game;
+        });
+    }
+
+    /**
+     * A team's boxscore totals in every game of a season, against the opponent's points.
+     *
+     * @param season as in the game-center URLs, e.g. {@code 2023-24}
+     */
+    public Page<Map<String, Object>> teamBoxscores(String teamCode, String season, String after, int limit) {
+        SparqlTemplate.Binding query = TEAM_BOXSCORES.bind()
+                .iri("team", TEAMS + teamCode)
+                .iri("season", seasonIri(season));
+        return page("league.teamBoxscores", query, after, limit, row -> {
+            Map<String, Object> game = gameKey(row);
+            game.put("opponent", row.getString("opponent"));
+            game.put("points", row.getInt("points"));
+            game.put("opponentPoints", row.getInt("opponentPoints"));
+            game.put("rebounds", row.getInt("rebounds"));
+            game.put("assists", row.getInt("assists"));
+            game.put("turnovers", row.getInt("turnovers"));
+            game.put("pir", row.getInt("pir"));
+            return game;
+        });
+    }
+
+    public Page<Map<String, Object>> roundGames(String season, int round, String after, int limit) {
+        SparqlTemplate.Binding query = ROUND_GAMES.bind()
+                .iri("season", seasonIri(season))
+                .integer("round", round);
+        return page("league.roundGames", query, after, limit, row -> {
+            Map<String, Object> game = gameKey(row);
+            game.put("home", row.getString("home"));
+            game.put("road", row.getString("road"));
+            game.put("homeScore", row.getString("homeScore") != null ? row.getInt("homeScore") : null);
+            game.put("roadScore", row.getString("roadScore") != null ? row.getInt("roadScore") : null);
+            return game;
+        });
+    }
+
+    public static String seasonIri(String season) {
+        return SEASONS + season.replace('-', '_');
+    }
+
+    // Asks for one row more than the page holds, to know whether there is a next page
+    private Page<Map<String, Object>> page(String name, SparqlTemplate.Binding query, String after, int limit,
+                                           Function<SparqlRow, Map<String, Object>> mapper) {
+        Cursor cursor = Cursor.decode(after);
+        String sparql = query.iri("graph", graph)
+                .typed("afterDate", cursor.date(), XSD_DATE_TIME)
+                .string("afterCode", cursor.code())
+                .integer("limit", limit + 1)
+                .sparql();
+        List<Map<String, Object>> rows = store.select(name, sparql, mapper::apply);
+        if (rows.size() <= limit) {
+            return new Page<>(rows, null);
+        }
+        List<Map<String, Object>> items = rows.subList(0, limit);
+        Map<String, Object> last = items.get(limit - 1);
+        return new Page<>(items, new Cursor((String) last.get("date"), (String) last.get("code")).encode());
+    }
+
+    private static Map<String, Object> gameKey(SparqlRow row) {
+        Map<String, Object> game = new LinkedHashMap<>();
+        game.put("game", row.getString("game"));
+        game.put("code", row.getString("code"));
+        game.put("date", Cursor.normalise(row.getString("date")));
+        return game;
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.kgstats.league;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing; {@code next} is the cursor of the page after it,
+ * null on the last page.
+ */
+public record Page<T>(List<T> items, String next) {
+}
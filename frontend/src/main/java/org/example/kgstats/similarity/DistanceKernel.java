@@ -0,0 +1,46 @@
+package org.example.kgstats.similarity;
+
+/**
+ * Squared Euclidean distances between vectors stored back to back in one {@code float[]},
+ * row {@code r} at offset {@code r * stride}. A kernel may want rows padded with zeros to a
+ * {@link #stride} longer than the vectors, which leaves the distances unchanged.
+ */
+public interface DistanceKernel {
+
+    String name();
+
+    /**
+     * @return the row length this kernel reads vectors of {@code dims} floats in
+     */
+    int stride(int dims);
+
+    /**
+     * @return the squared distance between the rows at {@code a} in {@code x} and {@code b} in {@code y}
+     */
+    float distance(float[] x, int a, float[] y, int b, int stride);
+
+    /**
+     * Writes to {@code out[i]} the squared distance from {@code query} to row {@code first + i}
+     * of {@code rows}, for {@code count} rows.
+     */
+    default void distances(float[] query, float[] rows, int first, int count, int stride, float[] out) {
+        for (int i = 0; i < count; i++) {
+            out[i] = distance(query, 0, rows, (first + i) * stride, stride);
+        }
+    }
+
+    /**
+     * @return the Vector API kernel when the JVM runs with {@code --add-modules jdk.incubator.vector},
+     * the scalar one otherwise
+     */
+    static DistanceKernel best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new VectorKernel();
+            } catch (LinkageError e) {
+                // The module is there but its classes cannot be used on this platform
+            }
+        }
+        return new ScalarKernel();
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.kgstats.similarity;
+
+/**
+ * A row of a {@link VectorIndex} found near a query, by its number in the vectors the index
+ * was built from, and its Euclidean distance to the query.
+ */
+public record Match(int row, double distance) {
+}
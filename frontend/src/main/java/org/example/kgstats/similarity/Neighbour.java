@@ -0,0 +1,9 @@
+package org.example.kgstats.similarity;
+
+/**
+ * A player season near the one asked about, by the Euclidean distance of their standardised
+ * per-36 vectors: 0 is identical, and about {@code sqrt(2 * features)} is typical of two
+ * player seasons picked at random.
+ */
+public record Neighbour(String player, String season, int games, double minutes, double distance) {
+}
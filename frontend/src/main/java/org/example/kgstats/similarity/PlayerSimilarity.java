@@ -0,0 +1,93 @@
+package org.example.kgstats.similarity;
+
+import org.example.kgstats.columnar.StatlineEngine;
+import org.example.kgstats.columnar.StatlineTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * The player seasons most like a given one, from a {@link VectorIndex} over the
+ * {@link PlayerVectors} of the columnar statline table, rebuilt whenever the table is.
+ * Small histories are searched exactly; from {@code kgstats.similarity.ivf-threshold} player
+ * seasons on the index is an IVF of about sqrt(n) lists, of which each search probes
+ * {@code kgstats.similarity.probes}. The distance kernel uses the Vector API when the JVM was
+ * started with {@code --add-modules jdk.incubator.vector}.
+ */
+@Component
+public class PlayerSimilarity {
+
+    private final StatlineEngine statlines;
+    private final DistanceKernel kernel;
+    private final double minMinutes;
+    private final int ivfThreshold;
+    private final int probes;
+
+    private volatile Loaded loaded;
+
+    private record Loaded(StatlineTable table, PlayerVectors vectors, VectorIndex index) {
+    }
+
+    /**
+     * @param mode       how the neighbours were searched: "exact", or "ivf" for the approximate index
+     * @param neighbours nearest first, without the player's other seasons
+     */
+    public record Result(Neighbour player, String kernel, String mode, List<Neighbour> neighbours) {
+    }
+
+    public PlayerSimilarity(StatlineEngine statlines,
+                            @Value("${kgstats.similarity.min-minutes:100}") double minMinutes,
+                            @Value("${kgstats.similarity.ivf-threshold:2000}") int ivfThreshold,
+                            @Value("${kgstats.similarity.probes:8}") int probes) {
+        this.statlines = statlines;
+        this.kernel = DistanceKernel.best();
+        this.minMinutes = minMinutes;
+        this.ivfThreshold = ivfThreshold;
+        this.probes = probes;
+    }
+
+    /**
+     * @param season a season IRI, or null for the player's latest season
+     * @param exact  search every player season even when the index is an IVF
+     * @return null if the player has no season with enough minutes
+     */
+    public Result similar(String player, String season, int k, boolean exact) {
+        Loaded current = current();
+        PlayerVectors vectors = current.vectors();
+        int row = vectors.row(player, season);
+        if (row < 0) {
+            return null;
+        }
+        boolean approximate = !exact && current.index().lists() > 1;
+        float[] query = vectors.vector(row);
+        List<Match> matches = approximate
+                ? current.index().search(query, k, probes, r -> !vectors.player(r).equals(player))
+                : current.index().exact(query, k, r -> !vectors.player(r).equals(player));
+        return new Result(neighbour(vectors, row, 0), kernel.name(), approximate ? "ivf" : "exact",
+                matches.stream().map(m -> neighbour(vectors, m.row(), m.distance())).toList());
+    }
+
+    private static Neighbour neighbour(PlayerVectors vectors, int row, double distance) {
+        return new Neighbour(vectors.player(row), vectors.season(row), vectors.games(row),
+                Math.round(vectors.minutes(row) * 10) / 10.0, Math.round(distance * 1000) / 1000.0);
+    }
+
+    private Loaded current() {
+        StatlineTable table = statlines.table();
+        Loaded current = loaded;
+        if (current != null && current.table() == table) {
+            return current;
+        }
+        synchronized (this) {
+            current = loaded;
+            if (current == null || current.table() != table) {
+                PlayerVectors vectors = PlayerVectors.of(table, minMinutes);
+                int lists = vectors.size() >= ivfThreshold ? (int) Math.round(Math.sqrt(vectors.size())) : 1;
+                current = new Loaded(table, vectors, VectorIndex.build(vectors.vectors(), vectors.dims(), kernel, lists, 42));
+                loaded = current;
+            }
+            return current;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.example.kgstats.similarity;
+
+import org.example.kgstats.columnar.Key;
+import org.example.kgstats.columnar.Stat;
+import org.example.kgstats.columnar.StatlineTable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One vector per player season of the statline table: per-36-minute counting stats and
+ * shooting splits. Each feature is turned into standard deviations from the mean of all
+ * player seasons, so that points and blocks weigh alike in a distance. Only seasons with at
+ * least {@code minMinutes} played are kept; per-36 numbers of a few minutes are noise.
+ * <p>
+ * Shooting percentages are shrunk towards the league's by {@link #PRIOR_ATTEMPTS} attempts,
+ * so that a guard who went 1 of 1 from three is not the best shooter there is.
+ */
+public final class PlayerVectors {
+
+    public static final List<String> FEATURES = List.of("points", "offensiveRebounds", "defensiveRebounds",
+            "assists", "steals", "blocks", "turnovers", "fieldGoalsAttempted", "freeThrowsAttempted",
+            "fieldGoals2Per", "fieldGoals3Per", "freeThrowsPer", "threePointRate");
+
+    static final double PRIOR_ATTEMPTS = 20;
+
+    // The table columns summed per player season, in this order
+    private static final Stat[] SUMMED = {Stat.MINUTES, Stat.POINTS, Stat.OFFENSIVE_REBOUNDS, Stat.DEFENSIVE_REBOUNDS,
+            Stat.ASSISTS, Stat.STEALS, Stat.BLOCKS, Stat.TURNOVERS, Stat.FIELD_GOALS_MADE_2, Stat.FIELD_GOALS_ATTEMPTED_2,
+            Stat.FIELD_GOALS_MADE_3, Stat.FIELD_GOALS_ATTEMPTED_3, Stat.FREE_THROWS_MADE, Stat.FREE_THROWS_ATTEMPTED};
+    private static final int MIN = 0, PTS = 1, OREB = 2, DREB = 3, AST = 4, STL = 5, BLK = 6, TOV = 7,
+            FGM2 = 8, FGA2 = 9, FGM3 = 10, FGA3 = 11, FTM = 12, FTA = 13;
+
+    private final String[] players;
+    private final String[] seasons;
+    private final int[] games;
+    private final double[] minutes;
+    private final float[] vectors;
+    private final Map<String, List<Integer>> byPlayer = new HashMap<>();
+
+    private PlayerVectors(String[] players, String[] seasons, int[] games, double[] minutes, float[] vectors) {
+        this.players = players;
+        this.seasons = seasons;
+        this.games = games;
+        this.minutes = minutes;
+        this.vectors = vectors;
+        for (int r = 0; r < players.length; r++) {
+            byPlayer.computeIfAbsent(players[r], p -> new ArrayList<>()).add(r);
+        }
+    }
+
+    public static PlayerVectors of(StatlineTable table, double minMinutes) {
+        // Sums per player season, keyed by the two dictionary ids
+        Map<Long, Integer> index = new HashMap<>();
+        List<double[]> sums = new ArrayList<>();
+        List<int[]> keys = new ArrayList<>();
+        for (int row = 0; row < table.rows(); row++) {
+            int player = table.key(Key.PLAYER, row);
+            int season = table.key(Key.SEASON, row);
+            int at = index.computeIfAbsent((long) player << 32 | season, k -> {
+                sums.add(new double[SUMMED.length + 1]);
+                keys.add(new int[]{player, season});
+                return sums.size() - 1;
+            });
+            double[] sum = sums.get(at);
+            for (int s = 0; s < SUMMED.length; s++) {
+                sum[s] += table.value(SUMMED[s], row);
+            }
+            sum[SUMMED.length]++;
+        }
+
+        List<Integer> kept = new ArrayList<>();
+        double[] league = new double[SUMMED.length];
+        for (int i = 0; i < sums.size(); i++) {
+            if (sums.get(i)[MIN] >= minMinutes && sums.get(i)[MIN] > 0) {
+                kept.add(i);
+                for (int s = 0; s < SUMMED.length; s++) {
+                    league[s] += sums.get(i)[s];
+                }
+            }
+        }
+
+        int n = kept.size();
+        int dims = FEATURES.size();
+        String[] players = new String[n];
+        String[] seasons = new String[n];
+        int[] games = new int[n];
+        double[] minutes = new double[n];
+        double[] raw = new double[n * dims];
+        for (int r = 0; r < n; r++) {
+            double[] sum = sums.get(kept.get(r));
+            int[] key = keys.get(kept.get(r));
+            players[r] = table.dictionary(Key.PLAYER).value(key[0]);
+            seasons[r] = table.dictionary(Key.SEASON).value(key[1]);
+            games[r] = (int) sum[SUMMED.length];
+            minutes[r] = sum[MIN];
+            double per36 = 36 / sum[MIN];
+            int o = r * dims;
+            raw[o] = sum[PTS] * per36;
+            raw[o + 1] = sum[OREB] * per36;
+            raw[o + 2] = sum[DREB] * per36;
+            raw[o + 3] = sum[AST] * per36;
+            raw[o + 4] = sum[STL] * per36;
+            raw[o + 5] = sum[BLK] * per36;
+            raw[o + 6] = sum[TOV] * per36;
+            raw[o + 7] = (sum[FGA2] + sum[FGA3]) * per36;
+            raw[o + 8] = sum[FTA] * per36;
+            raw[o + 9] = shrunk(sum[FGM2], sum[FGA2], league[FGM2], league[FGA2]);
+            raw[o + 10] = shrunk(sum[FGM3], sum[FGA3], league[FGM3], league[FGA3]);
+            raw[o + 11] = shrunk(sum[FTM], sum[FTA], league[FTM], league[FTA]);
+            raw[o + 12] = shrunk(sum[FGA3], sum[FGA2] + sum[FGA3], league[FGA3], league[FGA2] + league[FGA3]);
+        }
+
+        // Standard scores; a feature that never varies is left at 0
+        float[] vectors = new float[n * dims];
+        for (int d = 0; d < dims; d++) {
+            double mean = 0, squares = 0;
+            for (int r = 0; r < n; r++) {
+                mean += raw[r * dims + d];
+            }
+            mean /= Math.max(1, n);
+            for (int r = 0; r < n; r++) {
+                squares += (raw[r * dims + d] - mean) * (raw[r * dims + d] - mean);
+            }
+            double sd = Math.sqrt(squares / Math.max(1, n));
+            for (int r = 0; r < n; r++) {
+                vectors[r * dims + d] = sd > 0 ? (float) ((raw[r * dims + d] - mean) / sd) : 0;
+            }
+        }
+        return new PlayerVectors(players, seasons, games, minutes, vectors);
+    }
+
+    // made / attempts, pulled towards the league's rate as if PRIOR_ATTEMPTS more shots went in at it
+    private static double shrunk(double made, double attempts, double leagueMade, double leagueAttempts) {
+        double rate = leagueAttempts > 0 ? leagueMade / leagueAttempts : 0;
+        return (made + PRIOR_ATTEMPTS * rate) / (attempts + PRIOR_ATTEMPTS);
+    }
+
+    public int size() {
+        return players.length;
+    }
+
+    public int dims() {
+        return FEATURES.size();
+    }
+
+    /**
+     * @return every vector, row {@code r} at {@code r * dims()}
+     */
+    public float[] vectors() {
+        return vectors;
+    }
+
+    public float[] vector(int row) {
+        float[] vector = new float[dims()];
+        System.arraycopy(vectors, row * dims(), vector, 0, dims());
+        return vector;
+    }
+
+    public String player(int row) {
+        return players[row];
+    }
+
+    public String season(int row) {
+        return seasons[row];
+    }
+
+    public int games(int row) {
+        return games[row];
+    }
+
+    public double minutes(int row) {
+        return minutes[row];
+    }
+
+    /**
+     * @param season a season IRI, or null for the player's latest kept season
+     * @return the row of the player's season, or -1 if it has none
+     */
+    public int row(String player, String season) {
+        int found = -1;
+        for (int row : byPlayer.getOrDefault(player, List.of())) {
+            if (season != null ? seasons[row].equals(season)
+                    : found < 0 || seasons[row].compareTo(seasons[found]) > 0) {
+                found = row;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.kgstats.similarity;
+
+/**
+ * The plain loop, for JVMs without the incubating Vector API. C2 may still vectorise it.
+ */
+public final class ScalarKernel implements DistanceKernel {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public int stride(int dims) {
+        return dims;
+    }
+
+    @Override
+    public float distance(float[] x, int a, float[] y, int b, int stride) {
+        float sum = 0;
+        for (int i = 0; i < stride; i++) {
+            float d = x[a + i] - y[b + i];
+            sum += d * d;
+        }
+        return sum;
+    }
+}
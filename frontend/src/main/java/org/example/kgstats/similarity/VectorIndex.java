@@ -0,0 +1,214 @@
+package org.example.kgstats.similarity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * The nearest neighbours of a query among fixed vectors, all held in one {@code float[]}.
+ * An exact search computes the distance to every row with the {@link DistanceKernel}.
+ * An approximate one uses an inverted file (IVF). When the index is built, k-means sorts the
+ * rows into lists around centroids, and each list's rows are stored next to each other.
+ * A search then scans only the lists of the centroids nearest the query. Probing more lists
+ * finds more of the true neighbours and takes longer; probing all of them is the exact search.
+ * <p>
+ * Immutable once built, so it can be shared by concurrent requests.
+ */
+public final class VectorIndex {
+
+    private static final int KMEANS_ITERATIONS = 10;
+
+    private final DistanceKernel kernel;
+    private final int dims;
+    private final int stride;
+    // Rows in list order, each padded to stride
+    private final float[] vectors;
+    // The number each stored row had in the vectors the index was built from
+    private final int[] rows;
+    private final float[] centroids;
+    // First stored row of each list, and the row count after the last
+    private final int[] starts;
+
+    private VectorIndex(DistanceKernel kernel, int dims, int stride, float[] vectors, int[] rows,
+                        float[] centroids, int[] starts) {
+        this.kernel = kernel;
+        this.dims = dims;
+        this.stride = stride;
+        this.vectors = vectors;
+        this.rows = rows;
+        this.centroids = centroids;
+        this.starts = starts;
+    }
+
+    /**
+     * @param vectors row {@code r} at {@code r * dims}
+     * @param lists   the number of IVF lists, 1 for an index that only searches exactly;
+     *                about the square root of the row count balances centroids against rows
+     * @param seed    for the choice of the first centroids, so a build can be repeated
+     */
+    public static VectorIndex build(float[] vectors, int dims, DistanceKernel kernel, int lists, long seed) {
+        int n = vectors.length / dims;
+        int stride = kernel.stride(dims);
+        float[] padded = new float[n * stride];
+        for (int r = 0; r < n; r++) {
+            System.arraycopy(vectors, r * dims, padded, r * stride, dims);
+        }
+        if (n == 0) {
+            // No lists to probe, so every search finds nothing
+            return new VectorIndex(kernel, dims, stride, padded, new int[0], new float[0], new int[1]);
+        }
+        lists = Math.max(1, Math.min(lists, n));
+
+        // k-means, starting from distinct rows picked at random
+        int[] order = new int[n];
+        Arrays.setAll(order, r -> r);
+        Random random = new Random(seed);
+        for (int i = 0; i < lists; i++) {
+            int j = i + random.nextInt(n - i);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        float[] centroids = new float[lists * stride];
+        for (int c = 0; c < lists; c++) {
+            System.arraycopy(padded, order[c] * stride, centroids, c * stride, stride);
+        }
+        int[] assignment = new int[n];
+        float[] distances = new float[lists];
+        for (int iteration = 0; iteration < KMEANS_ITERATIONS && lists > 1; iteration++) {
+            for (int r = 0; r < n; r++) {
+                assignment[r] = nearest(kernel, padded, r * stride, centroids, lists, stride, distances);
+            }
+            double[] sums = new double[lists * stride];
+            int[] counts = new int[lists];
+            for (int r = 0; r < n; r++) {
+                counts[assignment[r]]++;
+                for (int d = 0; d < dims; d++) {
+                    sums[assignment[r] * stride + d] += padded[r * stride + d];
+                }
+            }
+            for (int c = 0; c < lists; c++) {
+                // A centroid nothing is nearest to stays where it was
+                if (counts[c] > 0) {
+                    for (int d = 0; d < dims; d++) {
+                        centroids[c * stride + d] = (float) (sums[c * stride + d] / counts[c]);
+                    }
+                }
+            }
+        }
+        for (int r = 0; r < n && lists > 1; r++) {
+            assignment[r] = nearest(kernel, padded, r * stride, centroids, lists, stride, distances);
+        }
+
+        // Counting sort of the rows by list
+        int[] starts = new int[lists + 1];
+        for (int r = 0; r < n; r++) {
+            starts[assignment[r] + 1]++;
+        }
+        for (int c = 0; c < lists; c++) {
+            starts[c + 1] += starts[c];
+        }
+        int[] next = Arrays.copyOf(starts, lists);
+        float[] sorted = new float[n * stride];
+        int[] rows = new int[n];
+        for (int r = 0; r < n; r++) {
+            int at = next[assignment[r]]++;
+            System.arraycopy(padded, r * stride, sorted, at * stride, stride);
+            rows[at] = r;
+        }
+        return new VectorIndex(kernel, dims, stride, sorted, rows, centroids, starts);
+    }
+
+    private static int nearest(DistanceKernel kernel, float[] vectors, int offset, float[] centroids, int lists,
+                               int stride, float[] distances) {
+        int best = 0;
+        for (int c = 0; c < lists; c++) {
+            distances[c] = kernel.distance(vectors, offset, centroids, c * stride, stride);
+            if (distances[c] < distances[best]) {
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    public int lists() {
+        return starts.length - 1;
+    }
+
+    public DistanceKernel kernel() {
+        return kernel;
+    }
+
+    /**
+     * @return the k rows nearest the query that {@code include} accepts, nearest first
+     */
+    public List<Match> exact(float[] query, int k, IntPredicate include) {
+        return search(query, k, lists(), include);
+    }
+
+    /**
+     * @param probes the number of lists to scan, nearest centroid first
+     * @return the k rows nearest the query among those lists that {@code include} accepts, nearest first
+     */
+    public List<Match> search(float[] query, int k, int probes, IntPredicate include) {
+        if (query.length != dims) {
+            throw new IllegalArgumentException("Expected a vector of " + dims + " values, got " + query.length);
+        }
+        float[] q = Arrays.copyOf(query, stride);
+        int lists = lists();
+        int[] probed;
+        if (probes >= lists) {
+            probed = new int[lists];
+            Arrays.setAll(probed, c -> c);
+        } else {
+            float[] toCentroids = new float[lists];
+            kernel.distances(q, centroids, 0, lists, stride, toCentroids);
+            Integer[] byDistance = new Integer[lists];
+            Arrays.setAll(byDistance, c -> c);
+            Arrays.sort(byDistance, (a, b) -> Float.compare(toCentroids[a], toCentroids[b]));
+            probed = new int[Math.max(1, probes)];
+            for (int p = 0; p < probed.length; p++) {
+                probed[p] = byDistance[p];
+            }
+        }
+
+        // The k best so far, nearest first
+        int[] best = new int[k];
+        float[] bestDistances = new float[k];
+        int found = 0;
+        float[] distances = new float[0];
+        for (int list : probed) {
+            int first = starts[list];
+            int count = starts[list + 1] - first;
+            if (distances.length < count) {
+                distances = new float[count];
+            }
+            kernel.distances(q, vectors, first, count, stride, distances);
+            for (int i = 0; i < count; i++) {
+                float distance = distances[i];
+                if ((found == k && (k == 0 || distance >= bestDistances[k - 1])) || !include.test(rows[first + i])) {
+                    continue;
+                }
+                int at = found < k ? found++ : k - 1;
+                while (at > 0 && bestDistances[at - 1] > distance) {
+                    best[at] = best[at - 1];
+                    bestDistances[at] = bestDistances[at - 1];
+                    at--;
+                }
+                best[at] = rows[first + i];
+                bestDistances[at] = distance;
+            }
+        }
+        List<Match> matches = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            matches.add(new Match(best[i], Math.sqrt(bestDistances[i])));
+        }
+        return matches;
+    }
+}
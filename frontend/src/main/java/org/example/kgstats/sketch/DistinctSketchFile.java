@@ -0,0 +1,58 @@
+package org.example.kgstats.sketch;
+
+import org.example.kgstats.cache.GraphVersion;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * The current {@link DistinctSketches} of the loader's sketch file, read on first use and
+ * again after the loader writes a new graph version, which it does after the sketches.
+ */
+public class DistinctSketchFile {
+
+    private final Path file;
+    private final String graph;
+    private final GraphVersion graphVersion;
+
+    private volatile Loaded loaded;
+
+    private record Loaded(String version, DistinctSketches sketches) {
+    }
+
+    public DistinctSketchFile(Path file, String graph, GraphVersion graphVersion) {
+        this.file = file;
+        this.graph = graph;
+        this.graphVersion = graphVersion;
+    }
+
+    /**
+     * @return the graph the dashboard counts, whose sections the estimates merge
+     */
+    public String graph() {
+        return graph;
+    }
+
+    public DistinctSketches current() {
+        String version = graphVersion.current();
+        Loaded current = loaded;
+        // Without a version token there is no way to tell a reload, so keep what was loaded
+        if (current != null && (version == null || Objects.equals(version, current.version()))) {
+            return current.sketches();
+        }
+        synchronized (this) {
+            current = loaded;
+            if (current == null || (version != null && !Objects.equals(version, current.version()))) {
+                try {
+                    current = new Loaded(version, DistinctSketches.open(file));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read the distinct sketches " + file, e);
+                }
+                loaded = current;
+            }
+            return current.sketches();
+        }
+    }
+}
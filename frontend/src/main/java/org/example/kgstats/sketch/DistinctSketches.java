@@ -0,0 +1,129 @@
+package org.example.kgstats.sketch;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The HyperLogLog sketches of distinct counts the backend loader writes to {@code distinct.hll}
+ * (see its {@code DistinctSketches} for the layout), one section per uploaded file. The sections
+ * of a graph are merged and every count is estimated once, when the file is read, so each
+ * answer afterwards is a map lookup however large the graph.
+ * <p>
+ * With 2^12 registers per sketch an estimate is within {@link #STANDARD_ERROR} (1.6%) of the
+ * exact count about two times in three, and within three times that nearly always. Counts
+ * below a few thousand are estimated by linear counting and are close to exact.
+ */
+public final class DistinctSketches {
+
+    public static final int PRECISION = 12;
+    public static final double STANDARD_ERROR = 1.04 / Math.sqrt(1 << PRECISION);
+
+    private static final String MAGIC = "KGHLL001";
+
+    private record Key(String graph, String kind, String term, String count) {
+    }
+
+    private record Partition(String graph, String kind, String count) {
+    }
+
+    private final Map<Key, Long> dataset = new HashMap<>();
+    private final Map<Partition, Map<String, Long>> partitions = new HashMap<>();
+
+    private DistinctSketches(Map<Key, byte[]> sketches) {
+        sketches.forEach((key, registers) -> {
+            long estimate = estimate(registers);
+            if (key.kind().equals("dataset")) {
+                dataset.put(key, estimate);
+            } else {
+                partitions.computeIfAbsent(new Partition(key.graph(), key.kind(), key.count()), p -> new HashMap<>())
+                        .put(key.term(), estimate);
+            }
+        });
+    }
+
+    public static DistinctSketches open(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in, file.toString());
+        }
+    }
+
+    static DistinctSketches read(InputStream stream, String name) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(stream), 1 << 16));
+        byte[] magic = new byte[MAGIC.length()];
+        in.readFully(magic);
+        if (!MAGIC.equals(new String(magic, StandardCharsets.US_ASCII)) || in.readByte() != PRECISION) {
+            throw new IOException(name + ": not a distinct sketch file of precision " + PRECISION);
+        }
+        // The union of a graph's sections keeps the larger of every pair of registers
+        Map<Key, byte[]> merged = new HashMap<>();
+        int sections = in.readInt();
+        for (int s = 0; s < sections; s++) {
+            in.readUTF(); // the file the section is of
+            String graph = in.readUTF();
+            int sketches = in.readInt();
+            for (int k = 0; k < sketches; k++) {
+                Key key = new Key(graph, in.readUTF(), in.readUTF(), in.readUTF());
+                byte[] registers = new byte[1 << PRECISION];
+                in.readFully(registers);
+                byte[] union = merged.putIfAbsent(key, registers);
+                if (union != null) {
+                    for (int i = 0; i < union.length; i++) {
+                        union[i] = (byte) Math.max(union[i], registers[i]);
+                    }
+                }
+            }
+        }
+        return new DistinctSketches(merged);
+    }
+
+    /**
+     * @param count a VoID or kgs: count of the graph: triples, entities, properties, classes,
+     *              distinctSubjects, distinctObjects, distinctResourceObjects,
+     *              resourceObjectTriples, literalTriples or distinctLiterals
+     * @return the estimated count, 0 if the graph has no sketches
+     */
+    public long dataset(String graph, String count) {
+        return dataset.getOrDefault(new Key(graph, "dataset", "", count), 0L);
+    }
+
+    /**
+     * @param count triples, distinctSubjects or distinctObjects
+     * @return the estimated count of every property of the graph, by property IRI
+     */
+    public Map<String, Long> properties(String graph, String count) {
+        return partitions.getOrDefault(new Partition(graph, "property", count), Map.of());
+    }
+
+    /**
+     * @return the estimated number of instances of every class of the graph, by class IRI
+     */
+    public Map<String, Long> classes(String graph) {
+        return partitions.getOrDefault(new Partition(graph, "class", "entities"), Map.of());
+    }
+
+    // The HyperLogLog estimate, by linear counting while many registers are still empty
+    private static long estimate(byte[] registers) {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double m = registers.length;
+        double estimate = 0.7213 / (1 + 1.079 / m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log(m / zeros);
+        }
+        return Math.round(estimate);
+    }
+}
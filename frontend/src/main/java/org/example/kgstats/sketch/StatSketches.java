@@ -0,0 +1,193 @@
+package org.example.kgstats.sketch;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tdunning.math.stats.MergingDigest;
+import org.example.kgstats.columnar.Stat;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The t-digest sketches of the player statline stats the backend GameToRDF writes to
+ * {@code sketches.bin} (see its {@code StatSketchWriter} for the layout), one per season,
+ * position and stat. A question over several seasons or positions merges their digests;
+ * merged digests are kept, so a repeated question is a lookup. Percentiles and quantiles
+ * are approximate, most accurate towards the tails.
+ * <p>
+ * A digest answers from a buffer it may rearrange, so each is read under its own lock.
+ */
+public final class StatSketches {
+
+    private static final String MAGIC = "KGSKET01";
+
+    private record Group(String season, String position, String stat) {
+    }
+
+    private record Question(Stat stat, Set<String> seasons, Set<String> positions) {
+    }
+
+    private final int compression;
+    private final Map<Group, MergingDigest> digests;
+    private final Set<String> seasons = new TreeSet<>();
+    private final Set<String> positions = new TreeSet<>();
+    private final Cache<Question, MergingDigest> merged = Caffeine.newBuilder().maximumSize(256).build();
+
+    private StatSketches(int compression, Map<Group, MergingDigest> digests) {
+        this.compression = compression;
+        this.digests = digests;
+        digests.keySet().forEach(group -> {
+            seasons.add(group.season());
+            positions.add(group.position());
+        });
+    }
+
+    public static StatSketches open(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in, file.toString());
+        }
+    }
+
+    static StatSketches read(InputStream stream, String name) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        byte[] magic = new byte[MAGIC.length()];
+        in.readFully(magic);
+        if (!MAGIC.equals(new String(magic, StandardCharsets.US_ASCII))) {
+            throw new IOException(name + ": not a stat sketch file");
+        }
+        int compression = in.readInt();
+        int count = in.readInt();
+        Map<Group, MergingDigest> digests = new HashMap<>();
+        for (int d = 0; d < count; d++) {
+            Group group = new Group(in.readUTF(), in.readUTF(), in.readUTF());
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            digests.put(group, MergingDigest.fromBytes(ByteBuffer.wrap(bytes)));
+        }
+        return new StatSketches(compression, digests);
+    }
+
+    /**
+     * @return the season IRIs there are sketches of
+     */
+    public Set<String> seasons() {
+        return seasons;
+    }
+
+    public Set<String> positions() {
+        return positions;
+    }
+
+    /**
+     * @return the fraction of the statlines of the seasons and positions (all of them when empty)
+     * whose stat is below {@code value}, counting those equal to it as half; NaN if there are none
+     */
+    public double cdf(Stat stat, Collection<String> seasons, Collection<String> positions, double value) {
+        MergingDigest digest = digest(stat, seasons, positions);
+        if (digest == null) {
+            return Double.NaN;
+        }
+        synchronized (digest) {
+            return digest.cdf(value);
+        }
+    }
+
+    /**
+     * @return the stat's value at each quantile, in [0, 1]; NaNs if there are no statlines
+     */
+    public double[] quantiles(Stat stat, Collection<String> seasons, Collection<String> positions, double[] quantiles) {
+        MergingDigest digest = digest(stat, seasons, positions);
+        double[] values = new double[quantiles.length];
+        if (digest == null) {
+            Arrays.fill(values, Double.NaN);
+            return values;
+        }
+        synchronized (digest) {
+            for (int q = 0; q < quantiles.length; q++) {
+                values[q] = digest.quantile(quantiles[q]);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * A histogram of equal-width bins from the smallest value to the largest.
+     *
+     * @return per bin its lower edge and its approximate count; empty if there are no statlines
+     */
+    public List<double[]> histogram(Stat stat, Collection<String> seasons, Collection<String> positions, int bins) {
+        MergingDigest digest = digest(stat, seasons, positions);
+        List<double[]> histogram = new ArrayList<>(bins);
+        if (digest == null) {
+            return histogram;
+        }
+        synchronized (digest) {
+            double min = digest.getMin(), max = digest.getMax();
+            double width = (max - min) / bins;
+            double below = 0;
+            for (int b = 0; b < bins; b++) {
+                double upper = b == bins - 1 ? 1 : digest.cdf(min + width * (b + 1));
+                histogram.add(new double[]{min + width * b, (upper - below) * digest.size()});
+                below = upper;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * @return the number of statlines of the seasons and positions
+     */
+    public long count(Stat stat, Collection<String> seasons, Collection<String> positions) {
+        MergingDigest digest = digest(stat, seasons, positions);
+        return digest == null ? 0 : digest.size();
+    }
+
+    // The one digest of a season and position, or the merge of those selected; null if none is
+    private MergingDigest digest(Stat stat, Collection<String> seasons, Collection<String> positions) {
+        Question question = new Question(stat,
+                Set.copyOf(seasons.isEmpty() ? this.seasons : seasons),
+                Set.copyOf(positions.isEmpty() ? this.positions : positions));
+        if (question.seasons().size() == 1 && question.positions().size() == 1) {
+            return digests.get(new Group(question.seasons().iterator().next(),
+                    question.positions().iterator().next(), stat.property()));
+        }
+        MergingDigest digest = merged.get(question, this::merge);
+        return digest.size() == 0 ? null : digest;
+    }
+
+    private MergingDigest merge(Question question) {
+        List<MergingDigest> parts = new ArrayList<>();
+        for (String season : question.seasons()) {
+            for (String position : question.positions()) {
+                MergingDigest part = digests.get(new Group(season, position, question.stat().property()));
+                if (part != null) {
+                    parts.add(part);
+                }
+            }
+        }
+        // Twice the parts' compression, so that merging loses less than it would at theirs
+        MergingDigest digest = new MergingDigest(2 * compression);
+        // Adding reads the parts' centroids, which their locks guard
+        for (MergingDigest part : parts) {
+            synchronized (part) {
+                digest.add(List.of(part));
+            }
+        }
+        digest.compress();
+        return digest;
+    }
+}
@@ -0,0 +1,390 @@
+package org.example.kgstats.snapshot;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only view of a graph snapshot written by the backend's {@code HdtSnapshotWriter}.
+ * The file is memory-mapped and read in place: opening it only reads the header, and
+ * lookups walk the dictionary and bitmap triples without copying them onto the heap.
+ * See the writer for the file layout.
+ */
+public class HdtSnapshot implements AutoCloseable {
+
+    private static final String MAGIC = "KGSNAP01";
+    private static final int WORDS_PER_SAMPLE = 8;
+
+    /**
+     * Receives matching triples as N-Triples terms; returns false to stop.
+     */
+    @FunctionalInterface
+    public interface TripleVisitor {
+        boolean visit(String subject, String predicate, String object);
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buf;
+    private final long tripleCount;
+    private final int pairCount;
+    private final Section shared;
+    private final Section subjectsOnly;
+    private final Section objectsOnly;
+    private final Section predicates;
+    private final long predicateCountsPos;
+    private final long syPos;
+    private final Bitmap bp;
+    private final long szPos;
+    private final Bitmap bo;
+    private final long objectOffsetsPos;
+    private final long objectPositionsPos;
+
+    private HdtSnapshot(FileChannel channel) throws IOException {
+        this.channel = channel;
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot larger than 2 GB cannot be mapped in one piece");
+        }
+        buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+        byte[] magic = new byte[MAGIC.length()];
+        buf.get(0, magic);
+        if (!MAGIC.equals(new String(magic, StandardCharsets.US_ASCII))) {
+            throw new IOException("Not a graph snapshot");
+        }
+        tripleCount = buf.getLong(8);
+        pairCount = buf.getInt(16);
+        long pos = 20;
+        shared = new Section(pos);
+        subjectsOnly = new Section(shared.end);
+        objectsOnly = new Section(subjectsOnly.end);
+        predicates = new Section(objectsOnly.end);
+        predicateCountsPos = predicates.end;
+        syPos = predicateCountsPos + 4L * predicates.count;
+        bp = new Bitmap(syPos + 4L * pairCount);
+        szPos = bp.end;
+        bo = new Bitmap(szPos + 4L * tripleCount);
+        objectOffsetsPos = bo.end;
+        objectPositionsPos = objectOffsetsPos + 4L * (shared.count + objectsOnly.count + 1);
+    }
+
+    public static HdtSnapshot open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new HdtSnapshot(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long getTripleCount() {
+        return tripleCount;
+    }
+
+    /**
+     * Counts the triples matching a pattern; {@code null} terms are wildcards.
+     * Terms are in N-Triples syntax, e.g. {@code <http://...>} or {@code "80"^^<http://...#integer>}.
+     */
+    public long count(String subject, String predicate, String object) {
+        int s = subject == null ? 0 : subjectId(subject);
+        int p = predicate == null ? 0 : predicates.find(predicate) + 1;
+        int o = object == null ? 0 : objectId(object);
+        if (s < 0 || p < 0 || o < 0 || (subject != null && s == 0) || (predicate != null && p == 0) || (object != null && o == 0)) {
+            return 0;
+        }
+        if (s == 0 && o == 0) {
+            return p == 0 ? tripleCount : buf.getInt((int) (predicateCountsPos + 4L * (p - 1)));
+        }
+        if (s == 0 && p == 0) {
+            return objectOffset(o) - objectOffset(o - 1);
+        }
+        if (s != 0 && o == 0) {
+            if (p == 0) {
+                return zStart(pairEnd(s)) - zStart(pairStart(s));
+            }
+            int j = findPair(s, p);
+            return j < 0 ? 0 : zStart(j + 1) - zStart(j);
+        }
+        long[] n = new long[1];
+        match(s, p, o, (ss, pp, oo) -> {
+            n[0]++;
+            return true;
+        });
+        return n[0];
+    }
+
+    /**
+     * Visits the triples matching a pattern, in subject order unless only the object is bound.
+     */
+    public void find(String subject, String predicate, String object, TripleVisitor visitor) {
+        int s = subject == null ? 0 : subjectId(subject);
+        int p = predicate == null ? 0 : predicates.find(predicate) + 1;
+        int o = object == null ? 0 : objectId(object);
+        if ((subject != null && s <= 0) || (predicate != null && p <= 0) || (object != null && o <= 0)) {
+            return;
+        }
+        match(s, p, o, (ss, pp, oo) -> visitor.visit(subjectTerm(ss), predicates.term(pp - 1), objectTerm(oo)));
+    }
+
+    public List<String[]> find(String subject, String predicate, String object, int limit) {
+        List<String[]> triples = new ArrayList<>();
+        find(subject, predicate, object, (s, p, o) -> {
+            triples.add(new String[]{s, p, o});
+            return triples.size() < limit;
+        });
+        return triples;
+    }
+
+    private interface IdVisitor {
+        boolean visit(int s, int p, int o);
+    }
+
+    private void match(int s, int p, int o, IdVisitor visitor) {
+        if (s != 0) {
+            int end = pairEnd(s);
+            for (int j = pairStart(s); j < end; j++) {
+                int pj = sy(j);
+                if (p != 0 && pj != p) {
+                    continue;
+                }
+                int zEnd = zStart(j + 1);
+                for (int z = zStart(j); z < zEnd; z++) {
+                    int oz = sz(z);
+                    if ((o == 0 || oz == o) && !visitor.visit(s, pj, oz)) {
+                        return;
+                    }
+                }
+            }
+        } else if (o != 0) {
+            // Object index, then back up to the pair and subject through the bitmaps
+            int end = objectOffset(o);
+            for (int i = objectOffset(o - 1); i < end; i++) {
+                int z = buf.getInt((int) (objectPositionsPos + 4L * i));
+                int j = bo.rank1(z);
+                int pj = sy(j);
+                if ((p == 0 || pj == p) && !visitor.visit(bp.rank1(j) + 1, pj, o)) {
+                    return;
+                }
+            }
+        } else {
+            // Sequential scan, following subject and pair boundaries bit by bit
+            int subject = 1;
+            int j = 0;
+            for (int z = 0; z < tripleCount; z++) {
+                int pj = sy(j);
+                if ((p == 0 || pj == p) && !visitor.visit(subject, pj, sz(z))) {
+                    return;
+                }
+                if (bo.get(z)) {
+                    if (bp.get(j)) {
+                        subject++;
+                    }
+                    j++;
+                }
+            }
+        }
+    }
+
+    private int findPair(int s, int p) {
+        int end = pairEnd(s);
+        for (int j = pairStart(s); j < end; j++) {
+            if (sy(j) == p) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    // First pair of subject s, and one past its last pair
+    private int pairStart(int s) {
+        return s == 1 ? 0 : bp.select1(s - 1) + 1;
+    }
+
+    private int pairEnd(int s) {
+        return bp.select1(s) + 1;
+    }
+
+    // First triple of pair j; zStart(pairCount) is tripleCount
+    private int zStart(int j) {
+        return j == 0 ? 0 : bo.select1(j) + 1;
+    }
+
+    private int sy(int j) {
+        return buf.getInt((int) (syPos + 4L * j));
+    }
+
+    private int sz(int z) {
+        return buf.getInt((int) (szPos + 4L * z));
+    }
+
+    private int objectOffset(int entry) {
+        return buf.getInt((int) (objectOffsetsPos + 4L * entry));
+    }
+
+    private int subjectId(String term) {
+        int i = shared.find(term);
+        if (i >= 0) {
+            return i + 1;
+        }
+        i = subjectsOnly.find(term);
+        return i >= 0 ? shared.count + i + 1 : -1;
+    }
+
+    private int objectId(String term) {
+        int i = shared.find(term);
+        if (i >= 0) {
+            return i + 1;
+        }
+        i = objectsOnly.find(term);
+        return i >= 0 ? shared.count + i + 1 : -1;
+    }
+
+    private String subjectTerm(int id) {
+        return id <= shared.count ? shared.term(id - 1) : subjectsOnly.term(id - shared.count - 1);
+    }
+
+    private String objectTerm(int id) {
+        return id <= shared.count ? shared.term(id - 1) : objectsOnly.term(id - shared.count - 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // A sorted dictionary section: count, offsets, then the UTF-8 terms back to back
+    private class Section {
+        final int count;
+        final long offsetsPos;
+        final long bytesPos;
+        final long end;
+
+        Section(long pos) {
+            count = buf.getInt((int) pos);
+            offsetsPos = pos + 4;
+            bytesPos = offsetsPos + 4L * (count + 1);
+            end = bytesPos + offset(count);
+        }
+
+        private int offset(int i) {
+            return buf.getInt((int) (offsetsPos + 4L * i));
+        }
+
+        String term(int i) {
+            int from = offset(i);
+            byte[] bytes = new byte[offset(i + 1) - from];
+            buf.get((int) (bytesPos + from), bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // Binary search comparing UTF-8 bytes in place; -1 if absent
+        int find(String term) {
+            byte[] key = term.getBytes(StandardCharsets.UTF_8);
+            int lo = 0;
+            int hi = count - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int cmp = compare(mid, key);
+                if (cmp < 0) {
+                    lo = mid + 1;
+                } else if (cmp > 0) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        private int compare(int i, byte[] key) {
+            int from = offset(i);
+            int length = offset(i + 1) - from;
+            int base = (int) (bytesPos + from);
+            for (int k = 0; k < Math.min(length, key.length); k++) {
+                int cmp = Integer.compare(buf.get(base + k) & 0xff, key[k] & 0xff);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return Integer.compare(length, key.length);
+        }
+    }
+
+    // Bitmap with the number of ones before every WORDS_PER_SAMPLE words, for rank and select
+    private class Bitmap {
+        final int bits;
+        final int wordCount;
+        final long wordsPos;
+        final long samplesPos;
+        final int sampleCount;
+        final long end;
+
+        Bitmap(long pos) {
+            bits = buf.getInt((int) pos);
+            wordCount = (bits + 63) / 64;
+            wordsPos = pos + 4;
+            samplesPos = wordsPos + 8L * wordCount;
+            sampleCount = (wordCount + WORDS_PER_SAMPLE - 1) / WORDS_PER_SAMPLE;
+            end = samplesPos + 4L * sampleCount;
+        }
+
+        private long word(int w) {
+            return buf.getLong((int) (wordsPos + 8L * w));
+        }
+
+        private int sample(int s) {
+            return buf.getInt((int) (samplesPos + 4L * s));
+        }
+
+        boolean get(int i) {
+            return (word(i >>> 6) & (1L << i)) != 0;
+        }
+
+        // Ones in positions [0, i)
+        int rank1(int i) {
+            int w = i >>> 6;
+            int s = w / WORDS_PER_SAMPLE;
+            int ones = sample(s);
+            for (int k = s * WORDS_PER_SAMPLE; k < w; k++) {
+                ones += Long.bitCount(word(k));
+            }
+            int rest = i & 63;
+            if (rest != 0) {
+                ones += Long.bitCount(word(w) & ((1L << rest) - 1));
+            }
+            return ones;
+        }
+
+        // Position of the k-th one, counting from 1
+        int select1(int k) {
+            int lo = 0;
+            int hi = sampleCount - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (sample(mid) < k) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            int ones = sample(lo);
+            for (int w = lo * WORDS_PER_SAMPLE; w < wordCount; w++) {
+                long word = word(w);
+                int c = Long.bitCount(word);
+                if (ones + c >= k) {
+                    for (int r = k - ones; r > 1; r--) {
+                        word &= word - 1;
+                    }
+                    return w * 64 + Long.numberOfTrailingZeros(word);
+                }
+                ones += c;
+            }
+            throw new IllegalArgumentException("Bitmap has fewer than " + k + " ones");
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.kgstats.standings;
+
+import java.time.LocalDateTime;
+
+/**
+ * The fields of a played game the standings and ratings are computed from.
+ */
+public record GameResult(String game, String season, LocalDateTime date, int round,
+                         String home, String road, int homeScore, int roadScore, boolean extraTime) {
+
+    public boolean homeWon() {
+        return homeScore > roadScore;
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.kgstats.standings;
+
+import java.time.LocalDateTime;
+
+/**
+ * A team's Elo rating before and after one game.
+ */
+public record RatingChange(String game, String season, LocalDateTime date, int round, String opponent,
+                           boolean home, int points, int opponentPoints, double before, double after) {
+}
@@ -0,0 +1,93 @@
+package org.example.kgstats.standings;
+
+import org.example.kgstats.cache.GraphVersion;
+import org.example.kgstats.config.StoreProperties;
+import org.example.kgstats.store.TripleStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The current {@link StandingsEngine}, fed every game of the graph in date order on first use
+ * and again after the loader writes a new graph version. The games come from one streamed
+ * query; requests that arrive while it runs wait for it.
+ */
+@Component
+public class Standings {
+
+    private static final String GAMES = """
+            PREFIX bball: <http://www.ics.forth.gr/isl/Basketball#>
+            SELECT ?game ?season ?date ?round ?home ?road ?homeScore ?roadScore ?extraTime
+            FROM <%s>
+            WHERE {
+                ?game a bball:Game ;
+                      bball:hasSeason ?season ;
+                      bball:hasDate ?date ;
+                      bball:hasRound ?round ;
+                      bball:homeTeam ?home ;
+                      bball:roadTeam ?road ;
+                      bball:hasHomeTeamScore ?homeScore ;
+                      bball:hasRoadTeamScore ?roadScore .
+                OPTIONAL { ?game bball:hasExtraTime ?extraTime }
+            }
+            """;
+
+    private final TripleStore store;
+    private final GraphVersion graphVersion;
+    private final StandingsEngine.Elo elo;
+    private final String sparql;
+
+    private volatile Loaded loaded;
+
+    private record Loaded(String version, StandingsEngine engine) {
+    }
+
+    public Standings(TripleStore store, StoreProperties properties, GraphVersion graphVersion,
+                     @Value("${kgstats.elo.initial:1500}") double initial,
+                     @Value("${kgstats.elo.k:20}") double k,
+                     @Value("${kgstats.elo.home-advantage:60}") double homeAdvantage,
+                     @Value("${kgstats.elo.season-regression:0.25}") double seasonRegression) {
+        this.store = store;
+        this.graphVersion = graphVersion;
+        this.elo = new StandingsEngine.Elo(initial, k, homeAdvantage, seasonRegression);
+        this.sparql = GAMES.formatted(properties.getGraph());
+    }
+
+    public StandingsEngine engine() {
+        String version = graphVersion.current();
+        Loaded current = loaded;
+        // Without a version token there is no way to tell a reload, so keep what was loaded
+        if (current != null && (version == null || Objects.equals(version, current.version()))) {
+            return current.engine();
+        }
+        synchronized (this) {
+            current = loaded;
+            if (current == null || (version != null && !Objects.equals(version, current.version()))) {
+                current = new Loaded(version, load());
+                loaded = current;
+            }
+            return current.engine();
+        }
+    }
+
+    StandingsEngine load() {
+        List<GameResult> games = new ArrayList<>();
+        store.forEach("standings.games", sparql, row -> games.add(new GameResult(
+                row.getString("game"), row.getString("season"),
+                // Sesame returns 2024-05-26T20:00:00, the Virtuoso driver 2024-05-26 20:00:00.0
+                LocalDateTime.parse(row.getString("date").replace(' ', 'T')), row.getInt("round"),
+                row.getString("home"), row.getString("road"), row.getInt("homeScore"), row.getInt("roadScore"),
+                Boolean.parseBoolean(row.getString("extraTime")))));
+        // Sorted here rather than by the store, so the query streams without an ORDER BY
+        games.sort(Comparator.comparing(GameResult::date).thenComparingInt(GameResult::round)
+                .thenComparing(GameResult::game));
+        StandingsEngine engine = new StandingsEngine(elo);
+        games.forEach(engine::add);
+        return engine.build();
+    }
+}
@@ -0,0 +1,322 @@
+package org.example.kgstats.standings;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Season standings and Elo ratings, updated one game at a time in date order: each game
+ * adds to two teams' records and moves their two ratings, in constant time. Whenever the
+ * round changes the season's table is kept as a snapshot, so the standings as of a date are
+ * the snapshot before it plus the few games played since.
+ * <p>
+ * The standings after a round count the games of that round and every earlier one, whenever
+ * they were played: a postponed round 10 game played during round 15 is in the table after
+ * round 10, and the round 11 to 15 games are not. {@link #build()} works them out once, each
+ * round's table being the previous round's plus the round's games, so they are a lookup.
+ * Standings rank by wins, then point differential, then points scored. Ratings carry over
+ * between seasons, regressed towards the initial rating when a team plays its first game of
+ * a season.
+ * <p>
+ * Not thread-safe while games are added; once built it is only read.
+ */
+public final class StandingsEngine {
+
+    /**
+     * @param initial          rating of a team's first game
+     * @param k                largest rating change of an even game won by one point, before the margin
+     * @param homeAdvantage    rating points added to the home team's when predicting the result
+     * @param seasonRegression share of the distance to the initial rating given up between seasons
+     */
+    public record Elo(double initial, double k, double homeAdvantage, double seasonRegression) {
+
+        public static final Elo DEFAULT = new Elo(1500, 20, 60, 0.25);
+
+        // Chance of the home team winning
+        double expected(double home, double road) {
+            return 1 / (1 + Math.pow(10, (road - home - homeAdvantage) / 400));
+        }
+
+        // Rating points moved to the home team (negative when it lost). The margin multiplier grows
+        // with the log of the margin and is damped when the favourite wins, so blowouts by strong
+        // teams do not inflate their rating. An overtime game was level after 40 minutes, so counts
+        // as won by one point.
+        double change(double home, double road, GameResult game) {
+            int margin = game.extraTime() ? 1 : Math.abs(game.homeScore() - game.roadScore());
+            double winnerLead = game.homeWon() ? home + homeAdvantage - road : road - home - homeAdvantage;
+            double multiplier = Math.log(margin + 1) * 2.2 / (winnerLead * 0.001 + 2.2);
+            return k * multiplier * ((game.homeWon() ? 1 : 0) - expected(home, road));
+        }
+    }
+
+    private final Elo elo;
+    private final Map<String, Double> ratings = new HashMap<>();
+    private final Map<String, String> ratedSeason = new HashMap<>();
+    private final Map<String, List<RatingChange>> history = new HashMap<>();
+    private final Map<String, Season> seasons = new LinkedHashMap<>();
+    private LocalDateTime last;
+
+    public StandingsEngine(Elo elo) {
+        this.elo = elo;
+    }
+
+    // A team's running record in one season
+    private static final class Row {
+        final String team;
+        int wins, losses, pointsFor, pointsAgainst, homeWins, homeLosses, roadWins, roadLosses;
+        double rating;
+        // Date of the game the rating is after
+        LocalDateTime ratedAt;
+
+        Row(String team) {
+            this.team = team;
+        }
+
+        Row copy() {
+            Row row = new Row(team);
+            row.wins = wins;
+            row.losses = losses;
+            row.pointsFor = pointsFor;
+            row.pointsAgainst = pointsAgainst;
+            row.homeWins = homeWins;
+            row.homeLosses = homeLosses;
+            row.roadWins = roadWins;
+            row.roadLosses = roadLosses;
+            row.rating = rating;
+            row.ratedAt = ratedAt;
+            return row;
+        }
+
+        void add(int scored, int conceded, boolean home, double ratingAfter, LocalDateTime date) {
+            boolean won = scored > conceded;
+            if (won) wins++; else losses++;
+            if (home) {
+                if (won) homeWins++; else homeLosses++;
+            } else {
+                if (won) roadWins++; else roadLosses++;
+            }
+            pointsFor += scored;
+            pointsAgainst += conceded;
+            // Games added by round are out of date order; the rating is after the latest of them
+            if (ratedAt == null || !date.isBefore(ratedAt)) {
+                rating = ratingAfter;
+                ratedAt = date;
+            }
+        }
+    }
+
+    // A game as applied, with the ratings it left the two teams on
+    private record Applied(GameResult game, double homeRating, double roadRating) {
+    }
+
+    /**
+     * A season's table after a number of its games: the first {@code games} in date order for
+     * {@link #asOf}, where {@code round} is the last game's, or those of rounds up to
+     * {@code round} for {@link #afterRound}. {@code date} is the latest game's.
+     */
+    public record Snapshot(int round, int games, LocalDateTime date, List<TeamStanding> table) {
+    }
+
+    private static final class Season {
+        final List<Applied> games = new ArrayList<>();
+        final Map<String, Row> table = new HashMap<>();
+        // Snapshots in the order taken, i.e. by games
+        final List<Snapshot> snapshots = new ArrayList<>();
+        // Mutable copies of the snapshots' rows, to replay later games from
+        final List<Map<String, Row>> snapshotRows = new ArrayList<>();
+        // The table after each round, worked out by build()
+        final TreeMap<Integer, Snapshot> rounds = new TreeMap<>();
+
+        void snapshot() {
+            if (games.isEmpty()) {
+                return;
+            }
+            Applied lastGame = games.get(games.size() - 1);
+            Map<String, Row> rows = new HashMap<>();
+            table.forEach((team, row) -> rows.put(team, row.copy()));
+            snapshots.add(new Snapshot(lastGame.game().round(), games.size(), lastGame.game().date(), rank(rows)));
+            snapshotRows.add(rows);
+        }
+
+        void rounds() {
+            // Each round's games in date order, which they were added in
+            TreeMap<Integer, List<Applied>> byRound = new TreeMap<>();
+            for (Applied applied : games) {
+                byRound.computeIfAbsent(applied.game().round(), r -> new ArrayList<>()).add(applied);
+            }
+            rounds.clear();
+            Map<String, Row> rows = new HashMap<>();
+            int count = 0;
+            LocalDateTime latest = null;
+            for (Map.Entry<Integer, List<Applied>> round : byRound.entrySet()) {
+                for (Applied applied : round.getValue()) {
+                    apply(rows, applied);
+                    count++;
+                    if (latest == null || applied.game().date().isAfter(latest)) {
+                        latest = applied.game().date();
+                    }
+                }
+                rounds.put(round.getKey(), new Snapshot(round.getKey(), count, latest, rank(rows)));
+            }
+        }
+    }
+
+    /**
+     * Adds the next game; games must come in date order.
+     *
+     * @throws IllegalArgumentException for a game dated before the previous one
+     */
+    public void add(GameResult game) {
+        if (last != null && game.date().isBefore(last)) {
+            throw new IllegalArgumentException("Game " + game.game() + " on " + game.date()
+                    + " comes before the previous game, on " + last);
+        }
+        last = game.date();
+
+        Season season = seasons.computeIfAbsent(game.season(), s -> new Season());
+        if (!season.games.isEmpty() && season.games.get(season.games.size() - 1).game().round() != game.round()) {
+            season.snapshot();
+        }
+
+        double home = rating(game.home(), game.season());
+        double road = rating(game.road(), game.season());
+        double change = elo.change(home, road, game);
+        ratings.put(game.home(), home + change);
+        ratings.put(game.road(), road - change);
+        history.computeIfAbsent(game.home(), t -> new ArrayList<>()).add(new RatingChange(game.game(), game.season(),
+                game.date(), game.round(), game.road(), true, game.homeScore(), game.roadScore(), home, home + change));
+        history.computeIfAbsent(game.road(), t -> new ArrayList<>()).add(new RatingChange(game.game(), game.season(),
+                game.date(), game.round(), game.home(), false, game.roadScore(), game.homeScore(), road, road - change));
+
+        Applied applied = new Applied(game, home + change, road - change);
+        apply(season.table, applied);
+        season.games.add(applied);
+    }
+
+    // The team's rating going into a game of the season, regressed if it is the team's first of it
+    private double rating(String team, String season) {
+        double rating = ratings.getOrDefault(team, elo.initial());
+        String previous = ratedSeason.put(team, season);
+        if (previous != null && !previous.equals(season)) {
+            rating = elo.initial() + (rating - elo.initial()) * (1 - elo.seasonRegression());
+        }
+        return rating;
+    }
+
+    private static void apply(Map<String, Row> table, Applied applied) {
+        GameResult game = applied.game();
+        table.computeIfAbsent(game.home(), Row::new)
+                .add(game.homeScore(), game.roadScore(), true, applied.homeRating(), game.date());
+        table.computeIfAbsent(game.road(), Row::new)
+                .add(game.roadScore(), game.homeScore(), false, applied.roadRating(), game.date());
+    }
+
+    /**
+     * Takes the snapshot of each season's last games and works out the table after each round;
+     * call once every game is added.
+     */
+    public StandingsEngine build() {
+        for (Season season : seasons.values()) {
+            if (season.snapshots.isEmpty() || season.snapshots.get(season.snapshots.size() - 1).games() != season.games.size()) {
+                season.snapshot();
+            }
+            season.rounds();
+        }
+        return this;
+    }
+
+    public List<String> seasons() {
+        return List.copyOf(seasons.keySet());
+    }
+
+    /**
+     * @return the season's table with the games of every round up to and including {@code round},
+     * or its latest for a null round; null if the season or round has no games
+     */
+    public Snapshot afterRound(String seasonIri, Integer round) {
+        Season season = seasons.get(seasonIri);
+        if (season == null || season.snapshots.isEmpty()) {
+            return null;
+        }
+        return round == null ? season.rounds.lastEntry().getValue() : season.rounds.get(round);
+    }
+
+    /**
+     * @return the season's table with every game played up to and including {@code date};
+     * null if the season has no games
+     */
+    public Snapshot asOf(String seasonIri, LocalDateTime date) {
+        Season season = seasons.get(seasonIri);
+        if (season == null || season.snapshots.isEmpty()) {
+            return null;
+        }
+        int games = gamesUpTo(season.games, date);
+        // The latest snapshot within those games, then the ones played after it
+        int low = 0, high = season.snapshots.size() - 1, found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (season.snapshots.get(mid).games() <= games) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (found >= 0 && season.snapshots.get(found).games() == games) {
+            return season.snapshots.get(found);
+        }
+        Map<String, Row> rows = new HashMap<>();
+        int from = 0;
+        if (found >= 0) {
+            season.snapshotRows.get(found).forEach((team, row) -> rows.put(team, row.copy()));
+            from = season.snapshots.get(found).games();
+        }
+        for (int g = from; g < games; g++) {
+            apply(rows, season.games.get(g));
+        }
+        Applied lastGame = games == 0 ? null : season.games.get(games - 1);
+        return new Snapshot(lastGame == null ? 0 : lastGame.game().round(), games,
+                lastGame == null ? null : lastGame.game().date(), rank(rows));
+    }
+
+    // The number of games dated up to and including date
+    private static int gamesUpTo(List<Applied> games, LocalDateTime date) {
+        int low = 0, high = games.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (games.get(mid).game().date().isAfter(date)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the team's rating before and after each of its games, oldest first
+     */
+    public List<RatingChange> ratingHistory(String team) {
+        return List.copyOf(history.getOrDefault(team, List.of()));
+    }
+
+    private static List<TeamStanding> rank(Map<String, Row> rows) {
+        List<Row> sorted = new ArrayList<>(rows.values());
+        sorted.sort(Comparator.comparingInt((Row row) -> row.wins).reversed()
+                .thenComparing(Comparator.comparingInt((Row row) -> row.pointsFor - row.pointsAgainst).reversed())
+                .thenComparing(Comparator.comparingInt((Row row) -> row.pointsFor).reversed())
+                .thenComparing(row -> row.team));
+        List<TeamStanding> table = new ArrayList<>(sorted.size());
+        for (Row row : sorted) {
+            table.add(new TeamStanding(table.size() + 1, row.team, row.wins + row.losses, row.wins, row.losses,
+                    row.pointsFor, row.pointsAgainst, row.pointsFor - row.pointsAgainst,
+                    row.homeWins, row.homeLosses, row.roadWins, row.roadLosses, row.rating));
+        }
+        return List.copyOf(table);
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.kgstats.standings;
+
+/**
+ * A team's line in a season's standings at some point, with its Elo rating after its last game.
+ */
+public record TeamStanding(int position, String team, int played, int wins, int losses,
+                           int pointsFor, int pointsAgainst, int pointDifferential,
+                           int homeWins, int homeLosses, int roadWins, int roadLosses, double rating) {
+}
@@ -0,0 +1,42 @@
+package org.example.kgstats.stats;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The statistics shown on the dashboard, one method per section of {@code /kgStatsFull}.
+ */
+public interface KGStats {
+
+    /**
+     * The four headline numbers of {@code /kgStats}.
+     */
+    Map<String, Integer> summary();
+
+    Map<String, Integer> basic();
+
+    List<Map<String, Object>> classes();
+
+    List<Map<String, Object>> properties();
+
+    List<Map<String, Object>> propertySubjects();
+
+    List<Map<String, Object>> propertyObjects();
+
+    /**
+     * {@link #properties()}, {@link #propertySubjects()} and {@link #propertyObjects()} keyed by
+     * section name, for implementations that can compute all three at once.
+     */
+    default Map<String, List<Map<String, Object>>> propertySections() {
+        Map<String, List<Map<String, Object>>> sections = new LinkedHashMap<>();
+        sections.put("properties", properties());
+        sections.put("propertySubjects", propertySubjects());
+        sections.put("propertyObjects", propertyObjects());
+        return sections;
+    }
+
+    List<Map<String, Object>> literalTypes();
+
+    List<Map<String, Object>> uriPrefixes();
+}
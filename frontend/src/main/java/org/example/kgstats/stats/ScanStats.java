@@ -0,0 +1,245 @@
+package org.example.kgstats.stats;
+
+import org.example.kgstats.config.StoreProperties;
+import org.example.kgstats.store.TripleStore;
+import org.example.kgstats.store.TripleStoreException;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the statistics by scanning the data graph on every call.
+ * Used when the loader has not written a VoID description yet.
+ * Each scan computes several aggregates at once: one for the basic block,
+ * one grouped pass for the three property sections.
+ */
+@Component
+public class ScanStats implements KGStats {
+
+    private static final String RDF_TYPE = "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>";
+
+    // Conditional distinct counts map the rows that do not qualify to a placeholder ("" where
+    // the counted terms are resources, <urn:kgstats:none> where they are literals) that can never
+    // be one of the counted terms; basic() takes it off again. An unbound variable instead of
+    // the placeholder reads better, but makes Sesame raise an exception for every such row.
+    private static final String BASIC = """
+            SELECT (COUNT(*) AS ?totalTriples)
+                   (COUNT(DISTINCT ?s) AS ?distinctSubjects)
+                   (COUNT(DISTINCT ?p) AS ?totalPredicates)
+                   (SUM(IF(?p = %2$s, 1, 0)) AS ?typeTriples)
+                   (SUM(IF(isLiteral(?o), 0, 1)) AS ?triplesWithObjectURIs)
+                   (SUM(IF(isLiteral(?o), 1, 0)) AS ?triplesWithObjectLiterals)
+                   (COUNT(DISTINCT IF(?p = %2$s, ?s, "")) AS ?totalEntities)
+                   (COUNT(DISTINCT IF(?p = %2$s, ?o, "")) AS ?totalClasses)
+                   (COUNT(DISTINCT IF(isLiteral(?o), "", ?o)) AS ?distinctObjects)
+                   (COUNT(DISTINCT IF(isLiteral(?o), ?o, <urn:kgstats:none>)) AS ?distinctLiterals)
+            FROM <%1$s>
+            WHERE { ?s ?p ?o }
+            """;
+
+    private static final List<String> BASIC_KEYS = List.of("totalTriples", "distinctSubjects", "totalPredicates",
+            "typeTriples", "triplesWithObjectURIs", "triplesWithObjectLiterals",
+            "totalEntities", "totalClasses", "distinctObjects", "distinctLiterals");
+
+    private final TripleStore store;
+    private final String graph;
+
+    public ScanStats(TripleStore store, StoreProperties properties) {
+        this.store = store;
+        this.graph = properties.getGraph();
+    }
+
+    @Override
+    public Map<String, Integer> summary() {
+        String sparql = """
+            SELECT (COUNT(*) AS ?totalTriples)
+                   (COUNT(DISTINCT ?s) AS ?distinctSubjects)
+                   (COUNT(DISTINCT ?p) AS ?distinctPredicates)
+                   (COUNT(DISTINCT ?o) AS ?distinctObjects)
+            FROM <%s>
+            WHERE { ?s ?p ?o }
+            """.formatted(graph);
+
+        return single("scan.summary", sparql, List.of("totalTriples", "distinctSubjects", "distinctPredicates", "distinctObjects"));
+    }
+
+    @Override
+    public Map<String, Integer> basic() {
+        Map<String, Integer> basic = single("scan.basic", BASIC.formatted(graph, RDF_TYPE), BASIC_KEYS);
+        if (basic.isEmpty()) {
+            return basic;
+        }
+        // Drop the placeholder from each conditional count it was counted in
+        int typeTriples = basic.remove("typeTriples");
+        if (typeTriples < basic.get("totalTriples")) {
+            basic.computeIfPresent("totalEntities", (key, n) -> n - 1);
+            basic.computeIfPresent("totalClasses", (key, n) -> n - 1);
+        }
+        if (basic.get("triplesWithObjectLiterals") > 0) {
+            basic.computeIfPresent("distinctObjects", (key, n) -> n - 1);
+        }
+        if (basic.get("triplesWithObjectURIs") > 0) {
+            basic.computeIfPresent("distinctLiterals", (key, n) -> n - 1);
+        }
+        return basic;
+    }
+
+    private Map<String, Integer> single(String name, String sparql, List<String> keys) {
+        List<Map<String, Integer>> rows = store.select(name, sparql, rs -> {
+            Map<String, Integer> row = new HashMap<>();
+            keys.forEach(key -> row.put(key, rs.getInt(key)));
+            return row;
+        });
+        return rows.isEmpty() ? new HashMap<>() : rows.get(0);
+    }
+
+    @Override
+    public List<Map<String, Object>> classes() {
+        String sparql = """
+            SELECT ?class (COUNT(?s) AS ?count) (COUNT(DISTINCT ?s) AS ?distinctInstances)
+            FROM <%s>
+            WHERE { ?s a ?class }
+            GROUP BY ?class
+            ORDER BY DESC(?count)
+            LIMIT 20
+            """.formatted(graph);
+
+        return store.select("scan.classes", sparql, rs -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("class", rs.getString("class"));
+            row.put("count", rs.getInt("count"));
+            row.put("distinctInstances", rs.getInt("distinctInstances"));
+            return row;
+        });
+    }
+
+    @Override
+    public List<Map<String, Object>> properties() {
+        return propertySections().get("properties");
+    }
+
+    @Override
+    public List<Map<String, Object>> propertySubjects() {
+        return propertySections().get("propertySubjects");
+    }
+
+    @Override
+    public List<Map<String, Object>> propertyObjects() {
+        return propertySections().get("propertyObjects");
+    }
+
+    // One grouped pass counts triples, subjects and objects of every property; each section keeps its top 20
+    @Override
+    public Map<String, List<Map<String, Object>>> propertySections() {
+        String sparql = """
+            SELECT ?p (COUNT(*) AS ?count) (COUNT(DISTINCT ?s) AS ?subjects) (COUNT(DISTINCT ?o) AS ?objects)
+            FROM <%s>
+            WHERE { ?s ?p ?o }
+            GROUP BY ?p
+            """.formatted(graph);
+
+        List<Map<String, Object>> partitions = store.select("scan.propertySections", sparql, rs -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("property", rs.getString("p"));
+            row.put("count", rs.getInt("count"));
+            row.put("subjects", rs.getInt("subjects"));
+            row.put("objects", rs.getInt("objects"));
+            return row;
+        });
+
+        Map<String, List<Map<String, Object>>> sections = new LinkedHashMap<>();
+        sections.put("properties", top(partitions, "count", 20));
+        sections.put("propertySubjects", top(partitions, "subjects", 20));
+        sections.put("propertyObjects", top(partitions, "objects", 20));
+        return sections;
+    }
+
+    private static List<Map<String, Object>> top(List<Map<String, Object>> partitions, String countKey, int limit) {
+        return partitions.stream()
+                .sorted(Comparator.comparing((Map<String, Object> row) -> (Integer) row.get(countKey)).reversed())
+                .limit(limit)
+                .map(row -> {
+                    Map<String, Object> out = new HashMap<>();
+                    out.put("property", row.get("property"));
+                    out.put("count", row.get(countKey));
+                    return out;
+                })
+                .toList();
+    }
+
+    @Override
+    public List<Map<String, Object>> literalTypes() {
+        String sparql = """
+            SELECT ?datatype (COUNT(*) AS ?count)
+            FROM <%s>
+            WHERE { ?s ?p ?o FILTER(isLiteral(?o)) BIND(DATATYPE(?o) AS ?datatype) } 
+            GROUP BY ?datatype 
+            ORDER BY DESC(?count) 
+            LIMIT 15
+            """.formatted(graph);
+
+        return store.select("scan.literalTypes", sparql, rs -> {
+            Map<String, Object> row = new HashMap<>();
+            String datatype = rs.getString("datatype");
+            row.put("datatype", datatype != null ? datatype : "untyped");
+            row.put("count", rs.getInt("count"));
+            return row;
+        });
+    }
+
+    @Override
+    public List<Map<String, Object>> uriPrefixes() {
+        String sparql = """
+            SELECT (SUBSTR(?s, 1, CHARINDEX('#', ?s) - 1) AS ?prefix) (COUNT(*) AS ?count)
+            FROM <%s>
+            WHERE {
+                ?s ?p ?o 
+                FILTER(isURI(?s) && CONTAINS(STR(?s), '#'))
+            } 
+            GROUP BY (SUBSTR(?s, 1, CHARINDEX('#', ?s) - 1))
+            ORDER BY DESC(?count) 
+            LIMIT 15
+            """.formatted(graph);
+
+        try {
+            return store.select("scan.uriPrefixes", sparql, rs -> {
+                Map<String, Object> row = new HashMap<>();
+                row.put("prefix", rs.getString("prefix"));
+                row.put("count", rs.getInt("count"));
+                return row;
+            });
+        } catch (TripleStoreException e) {
+            // If the advanced query fails (CHARINDEX is Virtuoso-only), try a simpler approach
+            String simpleSparql = """
+                SELECT ?s (COUNT(*) AS ?count)
+                FROM <%s>
+                WHERE { ?s ?p ?o }
+                GROUP BY ?s
+                ORDER BY DESC(?count)
+                LIMIT 10
+                """.formatted(graph);
+
+            return store.select("scan.uriPrefixesBySubject", simpleSparql, rs -> {
+                Map<String, Object> row = new HashMap<>();
+                String uri = rs.getString("s");
+                String prefix = extractPrefix(uri);
+                row.put("prefix", prefix);
+                row.put("count", rs.getInt("count"));
+                return row;
+            });
+        }
+    }
+
+    private String extractPrefix(String uri) {
+        if (uri.contains("#")) {
+            return uri.substring(0, uri.lastIndexOf("#"));
+        } else if (uri.contains("/")) {
+            return uri.substring(0, uri.lastIndexOf("/"));
+        }
+        return uri;
+    }
+}
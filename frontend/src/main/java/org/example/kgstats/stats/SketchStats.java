@@ -0,0 +1,118 @@
+package org.example.kgstats.stats;
+
+import org.example.kgstats.sketch.DistinctSketches;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate statistics from the loader's HyperLogLog sketches: every count of the basic
+ * block and the class and property sections is an estimate within about
+ * {@link DistinctSketches#STANDARD_ERROR} of the exact one, answered without the store.
+ * Literal types and URI prefixes are not distinct counts, so they come from {@code exact}.
+ */
+public class SketchStats implements KGStats {
+
+    private final DistinctSketches sketches;
+    private final String graph;
+    private final KGStats exact;
+
+    public SketchStats(DistinctSketches sketches, String graph, KGStats exact) {
+        this.sketches = sketches;
+        this.graph = graph;
+        this.exact = exact;
+    }
+
+    @Override
+    public Map<String, Integer> summary() {
+        Map<String, Integer> stats = new HashMap<>();
+        stats.put("totalTriples", count("triples"));
+        stats.put("distinctSubjects", count("distinctSubjects"));
+        stats.put("distinctPredicates", count("properties"));
+        stats.put("distinctObjects", count("distinctObjects"));
+        return stats;
+    }
+
+    // The keys VoidStats gives
+    @Override
+    public Map<String, Integer> basic() {
+        Map<String, Integer> basic = new HashMap<>();
+        basic.put("totalTriples", count("triples"));
+        basic.put("totalEntities", count("entities"));
+        basic.put("totalPredicates", count("properties"));
+        basic.put("totalClasses", count("classes"));
+        basic.put("distinctSubjects", count("distinctSubjects"));
+        basic.put("distinctObjects", count("distinctResourceObjects"));
+        basic.put("triplesWithObjectURIs", count("resourceObjectTriples"));
+        basic.put("triplesWithObjectLiterals", count("literalTriples"));
+        basic.put("distinctLiterals", count("distinctLiterals"));
+        return basic;
+    }
+
+    private int count(String count) {
+        return (int) sketches.dataset(graph, count);
+    }
+
+    @Override
+    public List<Map<String, Object>> classes() {
+        return top(sketches.classes(graph), 20).stream().map(e -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("class", e.getKey());
+            row.put("count", e.getValue().intValue());
+            row.put("distinctInstances", e.getValue().intValue());
+            return row;
+        }).toList();
+    }
+
+    @Override
+    public List<Map<String, Object>> properties() {
+        return propertyCounts("triples");
+    }
+
+    @Override
+    public List<Map<String, Object>> propertySubjects() {
+        return propertyCounts("distinctSubjects");
+    }
+
+    @Override
+    public List<Map<String, Object>> propertyObjects() {
+        return propertyCounts("distinctObjects");
+    }
+
+    private List<Map<String, Object>> propertyCounts(String count) {
+        return top(sketches.properties(graph, count), 20).stream().map(e -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("property", e.getKey());
+            row.put("count", e.getValue().intValue());
+            return row;
+        }).toList();
+    }
+
+    private static List<Map.Entry<String, Long>> top(Map<String, Long> counts, int limit) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Map<String, List<Map<String, Object>>> propertySections() {
+        Map<String, List<Map<String, Object>>> sections = new LinkedHashMap<>();
+        sections.put("properties", properties());
+        sections.put("propertySubjects", propertySubjects());
+        sections.put("propertyObjects", propertyObjects());
+        return sections;
+    }
+
+    @Override
+    public List<Map<String, Object>> literalTypes() {
+        return exact.literalTypes();
+    }
+
+    @Override
+    public List<Map<String, Object>> uriPrefixes() {
+        return exact.uriPrefixes();
+    }
+}
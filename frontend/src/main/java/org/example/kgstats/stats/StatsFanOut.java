@@ -0,0 +1,103 @@
+package org.example.kgstats.stats;
+
+import org.example.kgstats.store.QueryScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs the sections of {@code /kgStatsFull} concurrently, each query on its own pooled
+ * connection, so the page waits for the slowest query instead of the sum of all of them.
+ * Sections still running at the deadline, or that failed, are left out of the result and
+ * reported under {@code errors} by section name.
+ */
+@Component
+public class StatsFanOut {
+
+    private static final Logger log = LoggerFactory.getLogger(StatsFanOut.class);
+
+    private final Executor executor;
+    private final Duration deadline;
+
+    public StatsFanOut(@Qualifier("statsExecutor") Executor executor,
+                       @Value("${kgstats.stats.deadline:30s}") Duration deadline) {
+        this.executor = executor;
+        this.deadline = deadline;
+    }
+
+    public Map<String, Object> fullStats(KGStats stats) {
+        long end = System.nanoTime() + deadline.toNanos();
+
+        Map<String, Task<?>> sections = new LinkedHashMap<>();
+        sections.put("basic", start(stats::basic));
+        sections.put("classes", start(stats::classes));
+        Task<Map<String, List<Map<String, Object>>>> propertySections = start(stats::propertySections);
+        sections.put("literalTypes", start(stats::literalTypes));
+        sections.put("uriPrefixes", start(stats::uriPrefixes));
+
+        Map<String, Object> fullStats = new HashMap<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        sections.forEach((name, section) -> {
+            Object result = await(section, end, name, errors);
+            if (result != null) {
+                fullStats.put(name, result);
+            }
+        });
+        // The three property sections come from one computation and fail together
+        Map<String, List<Map<String, Object>>> properties = await(propertySections, end, "properties", errors);
+        if (properties != null) {
+            fullStats.putAll(properties);
+        } else {
+            errors.put("propertySubjects", errors.get("properties"));
+            errors.put("propertyObjects", errors.get("properties"));
+        }
+
+        if (!errors.isEmpty()) {
+            fullStats.put("errors", errors);
+        }
+        return fullStats;
+    }
+
+    // Each section runs in its own query scope, a child of the request's, so it can be cancelled alone
+    private record Task<T>(CompletableFuture<T> future, QueryScope scope) {
+    }
+
+    private <T> Task<T> start(Supplier<T> section) {
+        QueryScope scope = QueryScope.forTask();
+        return new Task<>(CompletableFuture.supplyAsync(() -> scope.call(section), executor), scope);
+    }
+
+    private <T> T await(Task<T> task, long end, String section, Map<String, String> errors) {
+        try {
+            return task.future().get(Math.max(0, end - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Stop the section's queries on the server rather than let them hold their connections
+            task.scope().cancel();
+            task.future().cancel(false);
+            errors.putIfAbsent(section, "Timed out after " + deadline.toMillis() + " ms");
+            log.warn("Stats section {} timed out after {} ms", section, deadline.toMillis());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.warn("Stats section {} failed", section, cause);
+            errors.putIfAbsent(section, cause.getMessage() != null ? cause.getMessage() : cause.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errors.putIfAbsent(section, "Interrupted");
+        }
+        return null;
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.kgstats.stats;
+
+import org.example.kgstats.config.StoreProperties;
+import org.example.kgstats.store.TripleStore;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the statistics from the VoID description the backend loader writes into
+ * the stats graph after every load. Each section is a lookup in that small graph.
+ */
+@Component
+public class VoidStats implements KGStats {
+
+    private static final String PREFIXES = """
+            PREFIX void: <http://rdfs.org/ns/void#>
+            PREFIX kgs:  <http://www.ics.forth.gr/isl/EuroleagueKG/stats#>
+            PREFIX xsd:  <http://www.w3.org/2001/XMLSchema#>
+            """;
+
+    // Keys of the basic block, by the dataset property that holds them
+    private static final Map<String, String> BASIC_KEYS = Map.of(
+            "http://rdfs.org/ns/void#triples", "totalTriples",
+            "http://rdfs.org/ns/void#entities", "totalEntities",
+            "http://rdfs.org/ns/void#properties", "totalPredicates",
+            "http://rdfs.org/ns/void#classes", "totalClasses",
+            "http://rdfs.org/ns/void#distinctSubjects", "distinctSubjects",
+            "http://www.ics.forth.gr/isl/EuroleagueKG/stats#distinctResourceObjects", "distinctObjects",
+            "http://www.ics.forth.gr/isl/EuroleagueKG/stats#resourceObjectTriples", "triplesWithObjectURIs",
+            "http://www.ics.forth.gr/isl/EuroleagueKG/stats#literalTriples", "triplesWithObjectLiterals",
+            "http://www.ics.forth.gr/isl/EuroleagueKG/stats#distinctLiterals", "distinctLiterals");
+
+    private final TripleStore store;
+    private final String dataset;
+    private final String statsGraph;
+
+    public VoidStats(TripleStore store, StoreProperties properties) {
+        this.store = store;
+        this.dataset = properties.getGraph();
+        this.statsGraph = properties.getStatsGraph();
+    }
+
+    /**
+     * @return whether the loader has described the graph yet
+     */
+    public boolean isAvailable() {
+        return store.count("void.available", PREFIXES + "SELECT (COUNT(*) AS ?count) WHERE { GRAPH <" + statsGraph + "> { <" + dataset + "> a void:Dataset } }") > 0;
+    }
+
+    @Override
+    public Map<String, Integer> summary() {
+        Map<String, Integer> numbers = datasetNumbers();
+        Map<String, Integer> stats = new HashMap<>();
+        stats.put("totalTriples", numbers.get("http://rdfs.org/ns/void#triples"));
+        stats.put("distinctSubjects", numbers.get("http://rdfs.org/ns/void#distinctSubjects"));
+        stats.put("distinctPredicates", numbers.get("http://rdfs.org/ns/void#properties"));
+        stats.put("distinctObjects", numbers.get("http://rdfs.org/ns/void#distinctObjects"));
+        return stats;
+    }
+
+    @Override
+    public Map<String, Integer> basic() {
+        Map<String, Integer> numbers = datasetNumbers();
+        Map<String, Integer> basic = new HashMap<>();
+        BASIC_KEYS.forEach((property, key) -> basic.put(key, numbers.getOrDefault(property, 0)));
+        return basic;
+    }
+
+    private Map<String, Integer> datasetNumbers() {
+        Map<String, Integer> numbers = new HashMap<>();
+        store.select("void.datasetNumbers", PREFIXES + "SELECT ?p ?count WHERE { GRAPH <" + statsGraph + "> { <" + dataset + "> ?p ?count FILTER(DATATYPE(?count) = xsd:integer) } }",
+                        rs -> Map.entry(rs.getString("p"), rs.getInt("count")))
+                .forEach(e -> numbers.put(e.getKey(), e.getValue()));
+        return numbers;
+    }
+
+    @Override
+    public List<Map<String, Object>> classes() {
+        String sparql = partitionQuery("?class ?count", "void:classPartition ?part . ?part void:class ?class ; void:entities ?count", 20);
+        return store.select("void.classes", sparql, rs -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("class", rs.getString("class"));
+            row.put("count", rs.getInt("count"));
+            row.put("distinctInstances", rs.getInt("count"));
+            return row;
+        });
+    }
+
+    @Override
+    public List<Map<String, Object>> properties() {
+        return propertyCounts("void.properties", "void:triples");
+    }
+
+    @Override
+    public List<Map<String, Object>> propertySubjects() {
+        return propertyCounts("void.propertySubjects", "void:distinctSubjects");
+    }
+
+    @Override
+    public List<Map<String, Object>> propertyObjects() {
+        return propertyCounts("void.propertyObjects", "void:distinctObjects");
+    }
+
+    private List<Map<String, Object>> propertyCounts(String name, String countProperty) {
+        String sparql = partitionQuery("?p ?count", "void:propertyPartition ?part . ?part void:property ?p ; " + countProperty + " ?count", 20);
+        return store.select(name, sparql, rs -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("property", rs.getString("p"));
+            row.put("count", rs.getInt("count"));
+            return row;
+        });
+    }
+
+    @Override
+    public List<Map<String, Object>> literalTypes() {
+        String sparql = partitionQuery("?datatype ?count", "kgs:datatypePartition ?part . ?part void:triples ?count OPTIONAL { ?part kgs:datatype ?datatype }", 15);
+        return store.select("void.literalTypes", sparql, rs -> {
+            Map<String, Object> row = new HashMap<>();
+            String datatype = rs.getString("datatype");
+            row.put("datatype", datatype != null ? datatype : "untyped");
+            row.put("count", rs.getInt("count"));
+            return row;
+        });
+    }
+
+    @Override
+    public List<Map<String, Object>> uriPrefixes() {
+        String sparql = partitionQuery("?prefix ?count", "kgs:uriPrefixPartition ?part . ?part void:uriSpace ?prefix ; void:triples ?count", 15);
+        return store.select("void.uriPrefixes", sparql, rs -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("prefix", rs.getString("prefix"));
+            row.put("count", rs.getInt("count"));
+            return row;
+        });
+    }
+
+    private String partitionQuery(String projection, String pattern, int limit) {
+        return PREFIXES + "SELECT " + projection + " WHERE { GRAPH <" + statsGraph + "> { <" + dataset + "> " + pattern + " } } "
+                + "ORDER BY DESC(?count) LIMIT " + limit;
+    }
+}
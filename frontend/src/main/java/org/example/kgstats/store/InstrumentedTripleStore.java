@@ -0,0 +1,125 @@
+package org.example.kgstats.store;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Records every query of the store it wraps, by query name: the {@code kgstats.query}
+ * timer (tagged with the outcome), the {@code kgstats.query.rows} summary and the
+ * {@code kgstats.query.errors} counter (tagged with the exception). Queries slower than
+ * the threshold are logged with their SPARQL text under {@code org.example.kgstats.slow-queries}.
+ * Queries run without a name are reported as {@value #UNNAMED}.
+ */
+public class InstrumentedTripleStore implements TripleStore, AutoCloseable {
+
+    static final String UNNAMED = "unnamed";
+
+    private static final Logger slowQueries = LoggerFactory.getLogger("org.example.kgstats.slow-queries");
+
+    private final TripleStore delegate;
+    private final MeterRegistry registry;
+    private final long slowNanos;
+
+    /**
+     * @param slowThreshold queries taking at least this long are logged; null to log none
+     */
+    public InstrumentedTripleStore(TripleStore delegate, MeterRegistry registry, Duration slowThreshold) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.slowNanos = slowThreshold != null ? slowThreshold.toNanos() : Long.MAX_VALUE;
+    }
+
+    @Override
+    public <T> List<T> select(String sparql, RowMapper<T> mapper) {
+        return select(null, sparql, mapper);
+    }
+
+    @Override
+    public <T> List<T> select(String name, String sparql, RowMapper<T> mapper) {
+        return run(name, sparql, () -> delegate.select(sparql, mapper), List::size);
+    }
+
+    @Override
+    public void forEach(String sparql, Consumer<SparqlRow> action) {
+        forEach(null, sparql, action);
+    }
+
+    @Override
+    public void forEach(String name, String sparql, Consumer<SparqlRow> action) {
+        run(name, sparql, () -> {
+            long[] rows = {0};
+            delegate.forEach(sparql, row -> {
+                rows[0]++;
+                action.accept(row);
+            });
+            return rows[0];
+        }, Long::longValue);
+    }
+
+    private <R> R run(String name, String sparql, Supplier<R> query, ToLongFunction<R> rowCount) {
+        String queryName = name != null ? name : UNNAMED;
+        long start = System.nanoTime();
+        R result;
+        try {
+            result = query.get();
+        } catch (RuntimeException e) {
+            long nanos = System.nanoTime() - start;
+            timer(queryName, "error").record(Duration.ofNanos(nanos));
+            Counter.builder("kgstats.query.errors")
+                    .description("SPARQL queries that failed, were cancelled or timed out")
+                    .tag("query", queryName)
+                    .tag("exception", e.getClass().getSimpleName())
+                    .register(registry)
+                    .increment();
+            logIfSlow(queryName, nanos, -1, sparql);
+            throw e;
+        }
+        long nanos = System.nanoTime() - start;
+        long rows = rowCount.applyAsLong(result);
+        timer(queryName, "success").record(Duration.ofNanos(nanos));
+        DistributionSummary.builder("kgstats.query.rows")
+                .description("Rows returned by a SPARQL query")
+                .tag("query", queryName)
+                .register(registry)
+                .record(rows);
+        logIfSlow(queryName, nanos, rows, sparql);
+        return result;
+    }
+
+    private Timer timer(String query, String outcome) {
+        return Timer.builder("kgstats.query")
+                .description("SPARQL query latency")
+                .tag("query", query)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    // The SPARQL is logged on one line; values are inlined in it, so it is the complete query
+    private void logIfSlow(String query, long nanos, long rows, String sparql) {
+        if (nanos >= slowNanos && slowQueries.isWarnEnabled()) {
+            slowQueries.warn("Slow query {} took {} ms ({}): {}", query, nanos / 1_000_000,
+                    rows >= 0 ? rows + " rows" : "failed", sparql.strip().replaceAll("\\s+", " "));
+        }
+    }
+
+    public TripleStore getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.kgstats.store;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * The queries run on behalf of one HTTP request, so they can be cancelled together when
+ * the request is aborted or times out. Stores register a cancel action for each running
+ * query with the scope of the current thread; work handed to other threads runs in a
+ * {@link #child()} scope, which is cancelled with its parent.
+ */
+public final class QueryScope {
+
+    private static final ThreadLocal<QueryScope> CURRENT = new ThreadLocal<>();
+
+    private final Set<Runnable> running = ConcurrentHashMap.newKeySet();
+    private final List<QueryScope> children = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled;
+
+    /**
+     * @return the scope the current thread runs in, or null outside any request
+     */
+    public static QueryScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * A scope for work on another thread: a child of the current scope, or a new one outside any request.
+     */
+    public static QueryScope forTask() {
+        QueryScope parent = CURRENT.get();
+        return parent != null ? parent.child() : new QueryScope();
+    }
+
+    public QueryScope child() {
+        QueryScope child = new QueryScope();
+        children.add(child);
+        if (cancelled) {
+            child.cancel();
+        }
+        return child;
+    }
+
+    /**
+     * Runs {@code work} on the current thread with this as its scope.
+     */
+    public <T> T call(Supplier<T> work) {
+        QueryScope previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Registers how to stop a query that is starting in the current scope, if any.
+     * Closing the returned registration when the query ends unregisters it.
+     *
+     * @throws TripleStoreException if the scope has already been cancelled
+     */
+    public static Registration register(Runnable cancel) {
+        QueryScope scope = CURRENT.get();
+        if (scope == null) {
+            return () -> { };
+        }
+        scope.running.add(cancel);
+        if (scope.cancelled) {
+            scope.running.remove(cancel);
+            throw new TripleStoreException("Query cancelled", null);
+        }
+        return () -> scope.running.remove(cancel);
+    }
+
+    /**
+     * @throws TripleStoreException if the current scope has been cancelled
+     */
+    public static void checkCancelled() {
+        QueryScope scope = CURRENT.get();
+        if (scope != null && scope.cancelled) {
+            throw new TripleStoreException("Query cancelled", null);
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Stops every query running in this scope and its children; later queries fail at once.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Runnable cancel : running) {
+            cancel.run();
+        }
+        for (QueryScope child : children) {
+            child.cancel();
+        }
+    }
+
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
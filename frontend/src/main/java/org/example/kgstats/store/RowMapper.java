@@ -0,0 +1,7 @@
+package org.example.kgstats.store;
+
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    T map(SparqlRow row);
+}
@@ -0,0 +1,184 @@
+package org.example.kgstats.store;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Value;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQuery;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.sail.SailRepository;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.sail.Sail;
+import org.openrdf.sail.memory.MemoryStore;
+import org.openrdf.sail.nativerdf.NativeStore;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Embedded Sesame store. Used for tests and benchmarks, or to serve a native store
+ * directory written by the backend loader without a Virtuoso server.
+ */
+public class SesameTripleStore implements TripleStore, AutoCloseable {
+
+    // Must match the indexes the backend loader creates the native store with
+    private static final String NATIVE_INDEXES = "spoc,posc,cosp";
+
+    private final SailRepository repository;
+    private volatile Duration queryTimeout;
+
+    private SesameTripleStore(Sail sail) {
+        repository = new SailRepository(sail);
+        try {
+            repository.initialize();
+        } catch (Exception e) {
+            throw new TripleStoreException("Cannot open Sesame store: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Limits every query to {@code timeout}, rounded up to whole seconds as the Virtuoso store does; null for no limit.
+     */
+    public void setQueryTimeout(Duration timeout) {
+        this.queryTimeout = timeout;
+    }
+
+    public static SesameTripleStore inMemory() {
+        return new SesameTripleStore(new MemoryStore());
+    }
+
+    public static SesameTripleStore nativeStore(File dataDir) {
+        return new SesameTripleStore(new NativeStore(dataDir, NATIVE_INDEXES));
+    }
+
+    /**
+     * Adds RDF data to the given named graph.
+     */
+    public void load(InputStream in, RDFFormat format, String graph) {
+        try {
+            RepositoryConnection conn = repository.getConnection();
+            try {
+                Resource context = repository.getValueFactory().createURI(graph);
+                conn.add(in, graph, format, context);
+            } finally {
+                conn.close();
+            }
+        } catch (Exception e) {
+            throw new TripleStoreException("Cannot load data into " + graph + ": " + e.getMessage(), e);
+        }
+    }
+
+    public void load(File file, RDFFormat format, String graph) {
+        try (InputStream in = new FileInputStream(file)) {
+            load(in, format, graph);
+        } catch (IOException e) {
+            throw new TripleStoreException("Cannot read " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes every statement of the given named graph, as the loader does before rewriting it.
+     */
+    public void clear(String graph) {
+        try {
+            RepositoryConnection conn = repository.getConnection();
+            try {
+                conn.clear(repository.getValueFactory().createURI(graph));
+            } finally {
+                conn.close();
+            }
+        } catch (Exception e) {
+            throw new TripleStoreException("Cannot clear " + graph + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> List<T> select(String sparql, RowMapper<T> mapper) {
+        List<T> rows = new ArrayList<>();
+        forEach(sparql, row -> rows.add(mapper.map(row)));
+        return rows;
+    }
+
+    @Override
+    public void forEach(String sparql, Consumer<SparqlRow> action) {
+        QueryScope.checkCancelled();
+        try {
+            RepositoryConnection conn = repository.getConnection();
+            try {
+                TupleQuery query = conn.prepareTupleQuery(QueryLanguage.SPARQL, sparql);
+                if (queryTimeout != null) {
+                    query.setMaxQueryTime((int) Math.max(1, (queryTimeout.toMillis() + 999) / 1000));
+                }
+                TupleQueryResult result = query.evaluate();
+                // Closing the result from another thread blocks until the evaluation ends, so a
+                // cancelled scope is only noticed between rows; an aggregate runs to the end
+                try {
+                    while (result.hasNext()) {
+                        QueryScope.checkCancelled();
+                        action.accept(new BindingSetRow(result.next()));
+                    }
+                } finally {
+                    result.close();
+                }
+            } finally {
+                conn.close();
+            }
+        } catch (RuntimeException e) {
+            // Our own failures, and whatever the action threw (say the client went away)
+            throw e;
+        } catch (Exception e) {
+            QueryScope.checkCancelled();
+            throw new TripleStoreException("SPARQL query failed: " + e.getMessage(), e);
+        }
+        QueryScope.checkCancelled();
+    }
+
+    @Override
+    public void close() {
+        try {
+            repository.shutDown();
+        } catch (Exception e) {
+            throw new TripleStoreException("Cannot shut down Sesame store", e);
+        }
+    }
+
+    private static class BindingSetRow implements SparqlRow {
+        private final BindingSet bindings;
+
+        BindingSetRow(BindingSet bindings) {
+            this.bindings = bindings;
+        }
+
+        @Override
+        public String getString(String var) {
+            Value value = bindings.getValue(var);
+            return value != null ? value.stringValue() : null;
+        }
+
+        @Override
+        public int getInt(String var) {
+            Value value = bindings.getValue(var);
+            if (value instanceof Literal literal) {
+                return literal.intValue();
+            }
+            return 0;
+        }
+
+        @Override
+        public double getDouble(String var) {
+            Value value = bindings.getValue(var);
+            if (value instanceof Literal literal) {
+                return literal.doubleValue();
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.kgstats.store;
+
+/**
+ * One solution of a SELECT query, read by variable name.
+ */
+public interface SparqlRow {
+
+    /**
+     * @return the lexical value of the binding, or {@code null} if it is unbound
+     */
+    String getString(String var);
+
+    /**
+     * @return the binding as an int, or 0 if it is unbound
+     */
+    int getInt(String var);
+
+    /**
+     * @return the binding as a double, or 0 if it is unbound
+     */
+    double getDouble(String var);
+}
@@ -0,0 +1,120 @@
+package org.example.kgstats.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A SPARQL query with {@code $name} parameters, parsed once and bound per request.
+ * Values are bound as terms, never as query text: strings are escaped into literals,
+ * IRIs are checked for characters that could end the IRI, numbers come from Java numbers.
+ * A parameter left unbound is an error rather than a variable.
+ */
+public final class SparqlTemplate {
+
+    private static final Pattern PARAMETER = Pattern.compile("\\$([A-Za-z][A-Za-z0-9]*)");
+    // Characters an IRIREF may not contain (SPARQL 1.1, production 139)
+    private static final Pattern IRI_FORBIDDEN = Pattern.compile("[\\x00-\\x20<>\"{}|^`\\\\]");
+
+    // Query text between parameters; parameters.get(i) comes after text.get(i)
+    private final List<String> text = new ArrayList<>();
+    private final List<String> parameters = new ArrayList<>();
+
+    public SparqlTemplate(String template) {
+        Matcher m = PARAMETER.matcher(template);
+        int end = 0;
+        while (m.find()) {
+            text.add(template.substring(end, m.start()));
+            parameters.add(m.group(1));
+            end = m.end();
+        }
+        text.add(template.substring(end));
+    }
+
+    public Binding bind() {
+        return new Binding();
+    }
+
+    public final class Binding {
+        private final Map<String, String> terms = new HashMap<>();
+
+        public Binding iri(String name, String iri) {
+            if (IRI_FORBIDDEN.matcher(iri).find()) {
+                throw new IllegalArgumentException("Not a valid IRI for $" + name + ": " + iri);
+            }
+            return term(name, "<" + iri + ">");
+        }
+
+        /**
+         * Binds a list of IRIs separated by spaces, for the body of a {@code VALUES} block.
+         */
+        public Binding iris(String name, Collection<String> iris) {
+            StringBuilder terms = new StringBuilder();
+            for (String iri : iris) {
+                if (IRI_FORBIDDEN.matcher(iri).find()) {
+                    throw new IllegalArgumentException("Not a valid IRI for $" + name + ": " + iri);
+                }
+                terms.append(terms.isEmpty() ? "" : " ").append('<').append(iri).append('>');
+            }
+            return term(name, terms.toString());
+        }
+
+        public Binding string(String name, String value) {
+            return term(name, literal(value));
+        }
+
+        public Binding integer(String name, long value) {
+            return term(name, Long.toString(value));
+        }
+
+        /**
+         * Binds a typed literal, such as an {@code xsd:dateTime}; the lexical form is escaped like a string.
+         */
+        public Binding typed(String name, String lexical, String datatype) {
+            if (IRI_FORBIDDEN.matcher(datatype).find()) {
+                throw new IllegalArgumentException("Not a valid datatype IRI for $" + name + ": " + datatype);
+            }
+            return term(name, literal(lexical) + "^^<" + datatype + ">");
+        }
+
+        private Binding term(String name, String term) {
+            if (!parameters.contains(name)) {
+                throw new IllegalArgumentException("The query has no parameter $" + name);
+            }
+            terms.put(name, term);
+            return this;
+        }
+
+        public String sparql() {
+            StringBuilder sparql = new StringBuilder(text.get(0));
+            for (int i = 0; i < parameters.size(); i++) {
+                String term = terms.get(parameters.get(i));
+                if (term == null) {
+                    throw new IllegalStateException("Parameter $" + parameters.get(i) + " is not bound");
+                }
+                sparql.append(term).append(text.get(i + 1));
+            }
+            return sparql.toString();
+        }
+    }
+
+    static String literal(String value) {
+        StringBuilder literal = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> literal.append("\\\"");
+                case '\\' -> literal.append("\\\\");
+                case '\n' -> literal.append("\\n");
+                case '\r' -> literal.append("\\r");
+                case '\t' -> literal.append("\\t");
+                default -> literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+}
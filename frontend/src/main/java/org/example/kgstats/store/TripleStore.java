@@ -0,0 +1,43 @@
+package org.example.kgstats.store;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Read access to the knowledge graph. The controller only talks to this interface,
+ * so the same SPARQL runs against Virtuoso or an embedded Sesame store.
+ */
+public interface TripleStore {
+
+    <T> List<T> select(String sparql, RowMapper<T> mapper);
+
+    /**
+     * Runs a query under a short stable name, such as {@code scan.basic}, which metrics
+     * and the slow-query log report it by. Plain stores ignore the name.
+     */
+    default <T> List<T> select(String name, String sparql, RowMapper<T> mapper) {
+        return select(sparql, mapper);
+    }
+
+    /**
+     * Runs a query and hands each row to {@code action} as it is read, without collecting
+     * them, so a result of any size takes constant memory. The row is only valid during the call.
+     */
+    void forEach(String sparql, Consumer<SparqlRow> action);
+
+    default void forEach(String name, String sparql, Consumer<SparqlRow> action) {
+        forEach(sparql, action);
+    }
+
+    /**
+     * Runs a query that binds a single {@code ?count} variable.
+     */
+    default int count(String sparql) {
+        return count(null, sparql);
+    }
+
+    default int count(String name, String sparql) {
+        List<Integer> rows = select(name, sparql, row -> row.getInt("count"));
+        return rows.isEmpty() ? 0 : rows.get(0);
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.kgstats.store;
+
+public class TripleStoreException extends RuntimeException {
+
+    public TripleStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
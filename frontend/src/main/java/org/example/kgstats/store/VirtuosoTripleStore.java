@@ -0,0 +1,127 @@
+package org.example.kgstats.store;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Runs SPARQL through the Virtuoso JDBC driver, by prefixing the query with {@code SPARQL}.
+ * Connections are borrowed from the pool for one query and returned straight after.
+ * Each statement is limited to the query timeout and registered with the request's
+ * {@link QueryScope}, so it is cancelled on the server when the request goes away.
+ */
+public class VirtuosoTripleStore implements TripleStore {
+
+    // Warning Virtuoso attaches to an ANYTIME query cut short by its result_timeout
+    private static final String INCOMPLETE_RESULT = "S1TAT";
+
+    private final DataSource dataSource;
+    private final Duration queryTimeout;
+    private final int fetchSize;
+
+    public VirtuosoTripleStore(DataSource dataSource) {
+        this(dataSource, null, 0);
+    }
+
+    /**
+     * @param queryTimeout limit of each statement, rounded up to whole seconds; null for none
+     * @param fetchSize rows the driver fetches per round trip; 0 for the driver's default
+     */
+    public VirtuosoTripleStore(DataSource dataSource, Duration queryTimeout, int fetchSize) {
+        this.dataSource = dataSource;
+        this.queryTimeout = queryTimeout;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public <T> List<T> select(String sparql, RowMapper<T> mapper) {
+        List<T> rows = new ArrayList<>();
+        forEach(sparql, row -> rows.add(mapper.map(row)));
+        return rows;
+    }
+
+    // Rows are read a fetch at a time, so only one fetch of the result is held in memory
+    @Override
+    public void forEach(String sparql, Consumer<SparqlRow> action) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SPARQL " + sparql);
+             QueryScope.Registration running = QueryScope.register(() -> cancel(stmt))) {
+            if (queryTimeout != null) {
+                stmt.setQueryTimeout((int) Math.max(1, (queryTimeout.toMillis() + 999) / 1000));
+            }
+            if (fetchSize > 0) {
+                stmt.setFetchSize(fetchSize);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                SparqlRow row = new ResultSetRow(rs);
+                while (rs.next()) {
+                    action.accept(row);
+                }
+                checkComplete(rs.getWarnings());
+            }
+            checkComplete(stmt.getWarnings());
+        } catch (SQLException e) {
+            QueryScope.checkCancelled();
+            if (e instanceof SQLTimeoutException) {
+                throw new TripleStoreException("SPARQL query timed out after " + queryTimeout.toMillis() + " ms", e);
+            }
+            throw new TripleStoreException("SPARQL query failed: " + e.getMessage(), e);
+        }
+    }
+
+    // With ANYTIME queries enabled (result_timeout), Virtuoso returns what it has at the timeout
+    // and only warns; counts from a partial scan would be wrong, so treat it as a timeout
+    private static void checkComplete(SQLWarning warning) {
+        for (; warning != null; warning = warning.getNextWarning()) {
+            if (INCOMPLETE_RESULT.equals(warning.getSQLState())) {
+                throw new TripleStoreException("SPARQL query hit the Virtuoso result_timeout: " + warning.getMessage(), warning);
+            }
+        }
+    }
+
+    private static void cancel(Statement stmt) {
+        try {
+            stmt.cancel();
+        } catch (SQLException e) {
+            // The statement finished or its connection is gone, nothing left to stop
+        }
+    }
+
+    private static class ResultSetRow implements SparqlRow {
+        private final ResultSet rs;
+
+        ResultSetRow(ResultSet rs) {
+            this.rs = rs;
+        }
+
+        @Override
+        public String getString(String var) {
+            try {
+                return rs.getString(var);
+            } catch (SQLException e) {
+                throw new TripleStoreException("Cannot read ?" + var, e);
+            }
+        }
+
+        @Override
+        public int getInt(String var) {
+            try {
+                return rs.getInt(var);
+            } catch (SQLException e) {
+                throw new TripleStoreException("Cannot read ?" + var, e);
+            }
+        }
+
+        @Override
+        public double getDouble(String var) {
+            try {
+                return rs.getDouble(var);
+            } catch (SQLException e) {
+                throw new TripleStoreException("Cannot read ?" + var, e);
+            }
+        }
+    }
+}
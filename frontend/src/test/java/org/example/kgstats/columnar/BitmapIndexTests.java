@@ -0,0 +1,82 @@
+package org.example.kgstats.columnar;
+
+import org.example.kgstats.config.StoreProperties;
+import org.example.kgstats.store.SesameTripleStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrdf.rio.RDFFormat;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.example.kgstats.columnar.BitmapIndex.Dimension.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitmapIndexTests {
+
+    static final String GRAPH = "http://www.ics.forth.gr/isl/EuroleagueKG";
+    static final String TEAMS = "https://www.euroleaguebasketball.net/euroleague/teams/-/";
+    static final String PLAYERS = "https://www.euroleaguebasketball.net/euroleague/players/-/";
+    static final String ENTITIES = "http://www.ics.forth.gr/isl/Basketball/entities/";
+    static final String FINAL = "https://www.euroleaguebasketball.net/euroleague/game-center/2023-24/-/E2023/333";
+
+    @Test
+    void intersectsDimensionsOfTheGamesAndStatlinesLoadedFromTheStore() throws Exception {
+        StatlineTable table;
+        try (SesameTripleStore store = SesameTripleStore.inMemory()) {
+            try (InputStream in = getClass().getResourceAsStream("/games2023.ttl")) {
+                store.load(in, RDFFormat.TURTLE, GRAPH);
+            }
+            table = new StatlineLoader(store, new StoreProperties(), "").load();
+        }
+        BitmapIndex index = BitmapIndex.build(table);
+
+        RoaringBitmap finals = index.games(Map.of(PHASE, List.of("Final Four"), TEAM, List.of(TEAMS + "PAN"),
+                VENUE, List.of(ENTITIES + "ASY4"), REFEREE, List.of(ENTITIES + "OABC")));
+        assertEquals(1, finals.getCardinality());
+        assertEquals(FINAL, table.dictionary(Key.GAME).value(finals.first()));
+        assertTrue(index.games(Map.of(PHASE, List.of("Regular Season"))).isEmpty());
+        // Any of a dimension's values matches
+        assertEquals(1, index.games(Map.of(TEAM, List.of(TEAMS + "XXX", TEAMS + "MAD"))).getCardinality());
+        assertEquals(1, index.games(Map.of()).getCardinality());
+
+        // The statlines of one team in the final are those the team's column has
+        RoaringBitmap madrid = index.statlines(Map.of(TEAM, List.of(TEAMS + "MAD"), PHASE, List.of("Final Four"),
+                ROUND, List.of("43")));
+        int mad = table.dictionary(Key.TEAM).id(TEAMS + "MAD");
+        assertArrayEquals(table.select(List.of(new Filter.Equals(Key.TEAM, mad))), madrid.toArray());
+        assertEquals(table.rows(), index.statlines(Map.of()).getCardinality());
+
+        RoaringBitmap grant = index.statlines(Map.of(PLAYER, List.of(PLAYERS + "011204"), TEAM, List.of(TEAMS + "PAN")));
+        assertEquals(1, grant.getCardinality());
+        assertEquals(1, table.select(grant.toArray(), List.of(new Filter.Range(Stat.PIR, 17, 17))).length);
+        assertEquals(0, table.select(grant.toArray(), List.of(new Filter.Range(Stat.PIR, 18, 100))).length);
+        assertTrue(index.statlines(Map.of(PLAYER, List.of(PLAYERS + "011204"), TEAM, List.of(TEAMS + "MAD"))).isEmpty());
+    }
+
+    @Test
+    void indexesTheGamesOfTheConvertersColumnFiles(@TempDir Path dir) throws Exception {
+        Path file = Path.of(getClass().getResource("/columnar/statlines2023.cols").toURI());
+        Files.copy(file, dir.resolve("statlines2023.cols"));
+        Files.copy(file, dir.resolve("statlines2024.cols"));
+        StatlineTable table = StatlineFiles.open(dir);
+        BitmapIndex index = BitmapIndex.build(table);
+
+        Game game = table.game(table.dictionary(Key.GAME).id(FINAL));
+        assertEquals("Final Four", game.phase());
+        assertEquals(ENTITIES + "ASY4", game.venue());
+        assertEquals(TEAMS + "MAD", table.dictionary(Key.TEAM).value(game.home()));
+        assertTrue(game.referees().contains(ENTITIES + "OABC"));
+
+        // Both files hold the same game, so the filter keeps GRANT's row in each segment
+        RoaringBitmap grant = index.statlines(Map.of(PLAYER, List.of(PLAYERS + "011204"), VENUE, List.of(ENTITIES + "ASY4")));
+        int[] rows = table.select(grant.toArray(), List.of(new Filter.Range(Stat.MINUTES, 30, 40)));
+        assertEquals(2, rows.length);
+        assertTrue(rows[1] >= table.rows() / 2);
+        assertEquals(1, index.games(Map.of(PLAYER, List.of(PLAYERS + "011204"))).getCardinality());
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.kgstats.columnar;
+
+import org.example.kgstats.config.StoreProperties;
+import org.example.kgstats.store.SesameTripleStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrdf.rio.RDFFormat;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatlineTableTests {
+
+    static final String GRAPH = "http://www.ics.forth.gr/isl/EuroleagueKG";
+    static final String TEAMS = "https://www.euroleaguebasketball.net/euroleague/teams/-/";
+    static final String PLAYERS = "https://www.euroleaguebasketball.net/euroleague/players/-/";
+
+    @Test
+    void filtersGroupsAndAggregates() {
+        StatlineTable.Builder builder = new StatlineTable.Builder(2);
+        builder.add("a", "X", "2022", "g1", 1).set(Stat.POINTS, 10).set(Stat.MINUTES, 20.5);
+        builder.add("b", "X", "2022", "g1", 1).set(Stat.POINTS, 4).set(Stat.MINUTES, 5);
+        builder.add("a", "X", "2023", "g2", 1).set(Stat.POINTS, 20).set(Stat.MINUTES, 30);
+        builder.add("a", "Y", "2023", "g3", 2).set(Stat.POINTS, 6).set(Stat.MINUTES, 12);
+        StatlineTable table = builder.build();
+        assertEquals(4, table.rows());
+
+        int a = table.dictionary(Key.PLAYER).id("a");
+        int[] selection = table.select(List.of(new Filter.Equals(Key.PLAYER, a), new Filter.Range(Stat.MINUTES, 12, 100)));
+        assertArrayEquals(new int[] {0, 2, 3}, selection);
+
+        List<StatlineTable.Group> bySeason = table.aggregate(selection, List.of(Key.SEASON),
+                List.of(Aggregate.parse("avg:points"), Aggregate.count(), Aggregate.parse("max:minutes")));
+        assertEquals(2, bySeason.size());
+        StatlineTable.Group season2023 = bySeason.get(1);
+        assertEquals("2023", table.dictionary(Key.SEASON).value(season2023.keys()[0]));
+        assertArrayEquals(new double[] {13, 2, 30}, season2023.values(), 1e-9);
+
+        List<StatlineTable.Group> all = table.aggregate(table.select(List.of()), List.of(), List.of(Aggregate.parse("sum:points")));
+        assertEquals(1, all.size());
+        assertEquals(40, all.get(0).values()[0]);
+        assertTrue(table.select(List.of(new Filter.Equals(Key.TEAM, -1))).length == 0);
+    }
+
+    @Test
+    void strictConditionsLeaveOutTheBound() {
+        StatlineTable.Builder builder = new StatlineTable.Builder(4);
+        builder.add("a", "X", "2023", "g1", 1).set(Stat.POINTS, 10).set(Stat.MINUTES, 10);
+        builder.add("b", "X", "2023", "g1", 1).set(Stat.POINTS, 12).set(Stat.MINUTES, 20.5);
+        builder.add("c", "X", "2023", "g1", 1).set(Stat.POINTS, 8).set(Stat.MINUTES, 5.2);
+        StatlineTable table = builder.build();
+
+        // Minutes are held as floats, a stricter test than the integer stats
+        assertArrayEquals(new int[] {1}, table.select(List.of(Filter.parse("minutes>10"))));
+        assertArrayEquals(new int[] {2}, table.select(List.of(Filter.parse("minutes<10"))));
+        assertArrayEquals(new int[] {0, 1}, table.select(List.of(Filter.parse("minutes>=10"))));
+        assertArrayEquals(new int[] {1}, table.select(List.of(Filter.parse("minutes>20"))));
+        assertArrayEquals(new int[] {1}, table.select(List.of(Filter.parse("minutes=20.5"))));
+        assertArrayEquals(new int[] {2}, table.select(List.of(Filter.parse("minutes<=5.2"))));
+        assertArrayEquals(new int[] {}, table.select(List.of(Filter.parse("minutes<5.2"))));
+        assertArrayEquals(new int[] {1}, table.select(List.of(Filter.parse("points>10"))));
+        assertArrayEquals(new int[] {2}, table.select(List.of(Filter.parse("points<10"))));
+        assertThrows(IllegalArgumentException.class, () -> Filter.parse("minutes>>10"));
+    }
+
+    @Test
+    void loadsEveryStatlineFromTheStore() throws Exception {
+        try (SesameTripleStore store = SesameTripleStore.inMemory()) {
+            try (InputStream in = getClass().getResourceAsStream("/games2023.ttl")) {
+                store.load(in, RDFFormat.TURTLE, GRAPH);
+            }
+            StatlineTable table = new StatlineLoader(store, new StoreProperties(), "").load();
+
+            // Player points add up to the team scores of the final, 80-95
+            Map<String, Double> pointsByTeam = table.aggregate(table.select(List.of()), List.of(Key.TEAM),
+                            List.of(Aggregate.parse("sum:points"))).stream()
+                    .collect(Collectors.toMap(g -> table.dictionary(Key.TEAM).value(g.keys()[0]), g -> g.values()[0]));
+            assertEquals(Map.of(TEAMS + "PAN", 95.0, TEAMS + "MAD", 80.0), pointsByTeam);
+            assertEquals(1, table.dictionary(Key.SEASON).size());
+            assertEquals(43, table.round(0));
+        }
+    }
+
+    @Test
+    void mapsTheConvertersColumnFilesLikeTheStore(@TempDir Path dir) throws Exception {
+        StatlineTable fromStore;
+        try (SesameTripleStore store = SesameTripleStore.inMemory()) {
+            try (InputStream in = getClass().getResourceAsStream("/games2023.ttl")) {
+                store.load(in, RDFFormat.TURTLE, GRAPH);
+            }
+            fromStore = new StatlineLoader(store, new StoreProperties(), "").load();
+        }
+        // Written by the backend's StatlineColumnsWriter from games2023.ttl's game
+        Path file = Path.of(getClass().getResource("/columnar/statlines2023.cols").toURI());
+        StatlineTable mapped = StatlineFiles.open(file.getParent());
+
+        assertEquals(fromStore.rows(), mapped.rows());
+        List<Aggregate> aggregates = List.of(Aggregate.parse("sum:pir"), Aggregate.parse("sum:minutes"),
+                Aggregate.parse("max:plusMinus"), Aggregate.count());
+        assertEquals(byPlayer(fromStore, aggregates), byPlayer(mapped, aggregates));
+
+        // A second season's file is another segment; keys shared with the first get the same ids
+        Files.copy(file, dir.resolve("statlines2023.cols"));
+        Files.copy(file, dir.resolve("statlines2024.cols"));
+        StatlineTable seasons = StatlineFiles.open(dir);
+        assertEquals(2 * mapped.rows(), seasons.rows());
+        assertEquals(mapped.dictionary(Key.PLAYER).size(), seasons.dictionary(Key.PLAYER).size());
+        int grant = seasons.dictionary(Key.PLAYER).id(PLAYERS + "011204");
+        int[] rows = seasons.select(List.of(new Filter.Equals(Key.PLAYER, grant), new Filter.Range(Stat.PIR, 17, 17)));
+        assertEquals(2, rows.length);
+        assertTrue(rows[1] >= mapped.rows());
+        assertEquals(43, seasons.round(rows[1]));
+        assertEquals(32.6, seasons.value(Stat.MINUTES, rows[1]), 1e-4);
+    }
+
+    private static Map<String, List<Double>> byPlayer(StatlineTable table, List<Aggregate> aggregates) {
+        return table.aggregate(table.select(List.of()), List.of(Key.PLAYER), aggregates).stream()
+                .collect(Collectors.toMap(g -> table.dictionary(Key.PLAYER).value(g.keys()[0]),
+                        g -> Arrays.stream(g.values()).map(v -> Math.round(v * 10) / 10.0).boxed().toList()));
+    }
+}
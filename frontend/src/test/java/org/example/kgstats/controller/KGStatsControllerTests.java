@@ -0,0 +1,227 @@
+package org.example.kgstats.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.kgstats.cache.GraphVersion;
+import org.example.kgstats.cache.ResultCache;
+import org.example.kgstats.config.StoreProperties;
+import org.example.kgstats.guard.Bulkhead;
+import org.example.kgstats.sketch.DistinctSketchFile;
+import org.example.kgstats.sketch.DistinctSketches;
+import org.example.kgstats.snapshot.HdtSnapshot;
+import org.example.kgstats.stats.ScanStats;
+import org.example.kgstats.stats.StatsFanOut;
+import org.example.kgstats.stats.VoidStats;
+import org.example.kgstats.store.SesameTripleStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openrdf.rio.RDFFormat;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KGStatsControllerTests {
+
+    static final String GRAPH = "http://www.ics.forth.gr/isl/EuroleagueKG";
+    static final String STATS_GRAPH = GRAPH + "/void";
+
+    private SesameTripleStore store;
+    private ExecutorService executor;
+    private KGStatsController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = SesameTripleStore.inMemory();
+        // One converted game (E2023_333), as written by the backend GameToRDF
+        try (InputStream in = getClass().getResourceAsStream("/games2023.ttl")) {
+            store.load(in, RDFFormat.TURTLE, GRAPH);
+        }
+        executor = Executors.newFixedThreadPool(4);
+        controller = new KGStatsController(new VoidStats(store, new StoreProperties()), new ScanStats(store, new StoreProperties()),
+                new StatsFanOut(executor, Duration.ofSeconds(30)),
+                new GraphVersion(store, new StoreProperties(), Duration.ZERO), new ResultCache(100),
+                new Bulkhead(2, 4, Duration.ofSeconds(1), new SimpleMeterRegistry()),
+                new StaticListableBeanFactory().getBeanProvider(HdtSnapshot.class),
+                // The sketches the loader writes for games2023.ttl
+                new StaticListableBeanFactory(Map.of("distinctSketchFile", new DistinctSketchFile(
+                        Path.of(getClass().getResource("/distinct2023.hll").toURI()), GRAPH,
+                        new GraphVersion(store, new StoreProperties(), Duration.ZERO))))
+                        .getBeanProvider(DistinctSketchFile.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        store.close();
+    }
+
+    @Test
+    void statsCountTheLoadedGraph() {
+        ResponseEntity<Map<String, Integer>> response = call(controller.getStats(false, request()));
+        // No load version yet, so nothing may be cached
+        assertNull(response.getHeaders().getETag());
+        assertEquals("no-store", response.getHeaders().getCacheControl());
+
+        Map<String, Integer> stats = response.getBody();
+
+        assertTrue(stats.get("totalTriples") > 0);
+        assertTrue(stats.get("distinctSubjects") > 0);
+        assertTrue(stats.get("distinctPredicates") > 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fullStatsRunsAgainstEmbeddedStore() {
+        Map<String, Object> full = call(controller.getFullStats(false, request())).getBody();
+
+        assertNull(full.get("errors"));
+        Map<String, Integer> basic = (Map<String, Integer>) full.get("basic");
+        assertEquals(9, basic.size());
+        assertEquals(call(controller.getStats(false, request())).getBody().get("totalTriples"), basic.get("totalTriples"));
+        assertEquals(basic.get("totalTriples"),
+                basic.get("triplesWithObjectURIs") + basic.get("triplesWithObjectLiterals"));
+
+        List<Map<String, Object>> classes = (List<Map<String, Object>>) full.get("classes");
+        assertTrue(classes.stream().anyMatch(c -> "http://www.ics.forth.gr/isl/Basketball#Game".equals(c.get("class"))
+                && Integer.valueOf(1).equals(c.get("count"))));
+        assertFalse(((List<?>) full.get("literalTypes")).isEmpty());
+        assertFalse(((List<?>) full.get("uriPrefixes")).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void statsAreReadFromVoidDescriptionOnceLoaded() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/void.ttl")) {
+            store.load(in, RDFFormat.TURTLE, STATS_GRAPH);
+        }
+
+        assertEquals(5300000, call(controller.getStats(false, request())).getBody().get("totalTriples"));
+        assertEquals(900000, call(controller.getStats(false, request())).getBody().get("distinctObjects"));
+
+        Map<String, Object> full = call(controller.getFullStats(false, request())).getBody();
+        Map<String, Integer> basic = (Map<String, Integer>) full.get("basic");
+        assertEquals(308500, basic.get("totalEntities"));
+        assertEquals(150000, basic.get("distinctObjects"));
+        assertEquals(4000000, basic.get("triplesWithObjectLiterals"));
+
+        List<Map<String, Object>> classes = (List<Map<String, Object>>) full.get("classes");
+        assertEquals("http://www.ics.forth.gr/isl/Basketball#PlayerParticipation", classes.get(0).get("class"));
+        assertEquals(144199, classes.get(0).get("count"));
+
+        List<Map<String, Object>> literalTypes = (List<Map<String, Object>>) full.get("literalTypes");
+        assertEquals("untyped", literalTypes.get(1).get("datatype"));
+        assertEquals(60, ((List<Map<String, Object>>) full.get("propertyObjects")).get(0).get("count"));
+        assertEquals(1200, ((List<Map<String, Object>>) full.get("uriPrefixes")).get(0).get("count"));
+    }
+
+    @Test
+    void resultsAreCachedUntilTheLoaderBumpsTheVersion() {
+        loadVersion("2025-07-17T12:00:00Z");
+        ResponseEntity<Map<String, Integer>> first = call(controller.getStats(false, request()));
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+        assertEquals("no-cache, public", first.getHeaders().getCacheControl());
+        int triples = first.getBody().get("totalTriples");
+
+        // Data added behind the loader's back is not seen until the version changes
+        load("<urn:extra> <urn:p> \"x\" .", GRAPH);
+        assertEquals(triples, call(controller.getStats(false, request())).getBody().get("totalTriples"));
+        ResponseEntity<Map<String, Integer>> revalidated = call(controller.getStats(false, request(etag)));
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+        assertNull(revalidated.getBody());
+
+        loadVersion("2025-07-18T12:00:00Z");
+        ResponseEntity<Map<String, Integer>> reloaded = call(controller.getStats(false, request(etag)));
+        assertEquals(HttpStatus.OK, reloaded.getStatusCode());
+        assertNotEquals(etag, reloaded.getHeaders().getETag());
+        assertEquals(triples + 1, reloaded.getBody().get("totalTriples"));
+    }
+
+    @Test
+    void eachSectionHasItsOwnEndpoint() {
+        loadVersion("2025-07-17T12:00:00Z");
+        Map<String, Object> full = call(controller.getFullStats(false, request())).getBody();
+
+        for (String section : List.of("basic", "classes", "properties", "propertySubjects", "propertyObjects", "literalTypes", "uriPrefixes")) {
+            ResponseEntity<?> response = call(controller.getSection(section, false, request()));
+            assertEquals(HttpStatus.OK, response.getStatusCode(), section);
+            assertEquals(full.get(section), response.getBody(), section);
+            assertNotNull(response.getHeaders().getETag(), section);
+        }
+        ResponseStatusException missing = assertThrows(ResponseStatusException.class, () -> controller.getSection("nope", false, request()));
+        assertEquals(HttpStatus.NOT_FOUND, missing.getStatusCode());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void approximateStatsComeFromTheSketches() {
+        Map<String, Integer> exact = (Map<String, Integer>) call(controller.getSection("basic", false, request())).getBody();
+        ResponseEntity<?> response = call(controller.getSection("basic", true, request()));
+        assertEquals(String.valueOf(DistinctSketches.STANDARD_ERROR), response.getHeaders().getFirst("X-Standard-Error"));
+        Map<String, Integer> approx = (Map<String, Integer>) response.getBody();
+
+        assertEquals(9, approx.size());
+        // Within three standard errors, which for counts this small linear counting all but guarantees
+        approx.forEach((key, estimate) -> assertEquals(exact.get(key), estimate,
+                3 * DistinctSketches.STANDARD_ERROR * exact.get(key) + 1, key));
+        assertEquals(approx.get("totalTriples"), call(controller.getStats(true, request())).getBody().get("totalTriples"));
+
+        List<Map<String, Object>> exactSubjects = (List<Map<String, Object>>) call(controller.getSection("propertySubjects", false, request())).getBody();
+        List<Map<String, Object>> approxSubjects = (List<Map<String, Object>>) call(controller.getSection("propertySubjects", true, request())).getBody();
+        assertEquals(exactSubjects.size(), approxSubjects.size());
+        assertEquals((Integer) exactSubjects.get(0).get("count"), (Integer) approxSubjects.get(0).get("count"),
+                3 * DistinctSketches.STANDARD_ERROR * (Integer) exactSubjects.get(0).get("count") + 1);
+
+        // Not distinct counts, so exact either way
+        assertEquals(call(controller.getSection("literalTypes", false, request())).getBody(),
+                call(controller.getSection("literalTypes", true, request())).getBody());
+    }
+
+    // What the async task of an endpoint produces
+    @SuppressWarnings("unchecked")
+    private static <T extends ResponseEntity<?>> T call(WebAsyncTask<T> task) {
+        try {
+            return (T) task.getCallable().call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void loadVersion(String timestamp) {
+        store.clear(STATS_GRAPH);
+        load("<" + GRAPH + "> <http://www.ics.forth.gr/isl/EuroleagueKG/stats#loadedAt> \"" + timestamp
+                + "\"^^<http://www.w3.org/2001/XMLSchema#dateTime> .", STATS_GRAPH);
+    }
+
+    private void load(String ntriples, String graph) {
+        store.load(new ByteArrayInputStream(ntriples.getBytes(StandardCharsets.UTF_8)), RDFFormat.TURTLE, graph);
+    }
+
+    private static WebRequest request(String... ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/kgStats");
+        for (String etag : ifNoneMatch) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        return new ServletWebRequest(request);
+    }
+}
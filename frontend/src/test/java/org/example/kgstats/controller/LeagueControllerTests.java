@@ -0,0 +1,202 @@
+package org.example.kgstats.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.kgstats.config.StoreProperties;
+import org.example.kgstats.league.Aggregates;
+import org.example.kgstats.league.CareerLines;
+import org.example.kgstats.league.EntityLookup;
+import org.example.kgstats.league.LeagueQueries;
+import org.example.kgstats.league.Page;
+import org.example.kgstats.store.SesameTripleStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openrdf.rio.RDFFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeagueControllerTests {
+
+    static final String GRAPH = "http://www.ics.forth.gr/isl/EuroleagueKG";
+    static final String AGGREGATES = GRAPH + "/aggregates";
+    static final String PLAYERS = "https://www.euroleaguebasketball.net/euroleague/players/-/";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SesameTripleStore store;
+    private LeagueController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = SesameTripleStore.inMemory();
+        try (InputStream in = getClass().getResourceAsStream("/games2023.ttl")) {
+            store.load(in, RDFFormat.TURTLE, GRAPH);
+        }
+        try (InputStream in = getClass().getResourceAsStream("/aggregates2023.ttl")) {
+            store.load(in, RDFFormat.TURTLE, AGGREGATES);
+        }
+        controller = new LeagueController(new CareerLines(store, new StoreProperties()),
+                new Aggregates(store, new StoreProperties()),
+                new LeagueQueries(store, new StoreProperties()), new EntityLookup(store, new StoreProperties()), 3, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void careersStreamOneLinePerPlayerWhoPlayed() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.getCareers();
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        JsonNode careers = objectMapper.readTree(out.toByteArray());
+        assertTrue(careers.isArray());
+        JsonNode grant = null;
+        for (JsonNode line : careers) {
+            // BALCEROWSKI did not play, so has no statline
+            assertNotEquals(PLAYERS + "007553", line.get("player").asText());
+            if (line.get("player").asText().equals(PLAYERS + "011204")) {
+                grant = line;
+            }
+        }
+        assertNotNull(grant);
+        assertEquals(1, grant.get("games").asInt());
+        assertEquals(11, grant.get("points").asInt());
+        assertEquals(6, grant.get("rebounds").asInt());
+        assertEquals(5, grant.get("assists").asInt());
+        assertEquals(17, grant.get("pir").asInt());
+        assertEquals(32.6, grant.get("minutes").asDouble(), 1e-9);
+    }
+
+    @Test
+    void seasonAndCareerAggregatesAreLookedUpBySubject() {
+        List<Map<String, Object>> seasons = controller.getPlayerSeasons("011204");
+        assertEquals(1, seasons.size());
+        Map<String, Object> season = seasons.get(0);
+        assertEquals("http://www.ics.forth.gr/isl/Basketball/entities/Season_2023_24", season.get("hasSeason"));
+        assertEquals(1, season.get("gamesPlayed"));
+        assertEquals(1, season.get("starts"));
+        assertEquals(11, season.get("points"));
+        assertEquals(17.0, (Double) season.get("PIRPerGame"), 1e-9);
+        assertEquals(4, season.get("fieldGoalsMadeTotal"));
+
+        Map<String, Object> career = controller.getPlayerCareer("011204");
+        assertEquals(1, career.get("seasonsPlayed"));
+        assertEquals(32.6, (Double) career.get("minutesPlayed"), 1e-9);
+
+        Map<String, Object> pan = controller.getTeamCareer("PAN");
+        assertEquals(95, pan.get("points"));
+        assertNull(pan.get("starts"));
+        assertEquals(1, controller.getTeamSeasons("MAD").size());
+
+        // BALCEROWSKI did not play, so has no aggregate
+        assertTrue(controller.getPlayerSeasons("007553").isEmpty());
+        ResponseStatusException missing = assertThrows(ResponseStatusException.class,
+                () -> controller.getPlayerCareer("007553"));
+        assertEquals(HttpStatus.NOT_FOUND, missing.getStatusCode());
+    }
+
+    @Test
+    void playerGameLogAndTeamBoxscores() {
+        Page<Map<String, Object>> games = controller.getPlayerGames("011204", null, 50);
+        assertEquals(1, games.items().size());
+        assertNull(games.next());
+        Map<String, Object> game = games.items().get(0);
+        assertEquals("333", game.get("code"));
+        assertEquals("2024-05-26T20:00:00", game.get("date"));
+        assertEquals("https://www.euroleaguebasketball.net/euroleague/teams/-/PAN", game.get("team"));
+        assertEquals(11, game.get("points"));
+
+        Map<String, Object> boxscore = controller.getTeamBoxscores("PAN", "2023-24", null, 50).items().get(0);
+        assertEquals(95, boxscore.get("points"));
+        assertEquals(80, boxscore.get("opponentPoints"));
+        assertEquals("https://www.euroleaguebasketball.net/euroleague/teams/-/MAD", boxscore.get("opponent"));
+        assertTrue(controller.getTeamBoxscores("PAN", "2022-23", null, 50).items().isEmpty());
+    }
+
+    @Test
+    void roundGamesArePagedByDateThenCode() {
+        load("""
+                @prefix bball: <http://www.ics.forth.gr/isl/Basketball#> .
+                @prefix xsd:   <http://www.w3.org/2001/XMLSchema#> .
+                @prefix ent:   <http://www.ics.forth.gr/isl/Basketball/entities/> .
+                <urn:game:3> a bball:Game ; bball:hasCode "3" ; bball:hasSeason ent:Season_2023_24 ; bball:hasRound 1 ;
+                    bball:hasDate "2023-10-06T20:00:00"^^xsd:dateTime ; bball:homeTeam <urn:team:a> ; bball:roadTeam <urn:team:b> .
+                <urn:game:10> a bball:Game ; bball:hasCode "10" ; bball:hasSeason ent:Season_2023_24 ; bball:hasRound 1 ;
+                    bball:hasDate "2023-10-05T20:00:00"^^xsd:dateTime ; bball:homeTeam <urn:team:c> ; bball:roadTeam <urn:team:d> ;
+                    bball:hasHomeTeamScore 90 ; bball:hasRoadTeamScore 85 .
+                <urn:game:2> a bball:Game ; bball:hasCode "2" ; bball:hasSeason ent:Season_2023_24 ; bball:hasRound 1 ;
+                    bball:hasDate "2023-10-05T20:00:00"^^xsd:dateTime ; bball:homeTeam <urn:team:e> ; bball:roadTeam <urn:team:f> .
+                """);
+
+        Page<Map<String, Object>> first = controller.getRoundGames("2023-24", 1, null, 2);
+        assertEquals(List.of("10", "2"), first.items().stream().map(g -> g.get("code")).toList());
+        assertEquals(90, first.items().get(0).get("homeScore"));
+        assertNull(first.items().get(1).get("homeScore"));
+        assertNotNull(first.next());
+
+        Page<Map<String, Object>> second = controller.getRoundGames("2023-24", 1, first.next(), 2);
+        assertEquals(List.of("3"), second.items().stream().map(g -> g.get("code")).toList());
+        assertNull(second.next());
+        assertEquals(List.of("333"), controller.getRoundGames("2023-24", 43, null, 2).items().stream().map(g -> g.get("code")).toList());
+    }
+
+    @Test
+    void inputsThatAreNotCodesAreRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> controller.getPlayerGames("011204> ?p ?o } #", null, 50));
+        assertEquals(HttpStatus.BAD_REQUEST, controller.badRequest(e).getStatusCode());
+        assertThrows(IllegalArgumentException.class, () -> controller.getRoundGames("2023\" || true", 1, null, 50));
+        assertThrows(IllegalArgumentException.class, () -> controller.getRoundGames("2023-24", 1, "not a cursor", 50));
+    }
+
+    @Test
+    void batchLookupReturnsOnlyTheRequestedFields() {
+        load("""
+                @prefix bball: <http://www.ics.forth.gr/isl/Basketball#> .
+                @prefix rdfs:  <http://www.w3.org/2000/01/rdf-schema#> .
+                @prefix xsd:   <http://www.w3.org/2001/XMLSchema#> .
+                <https://www.euroleaguebasketball.net/euroleague/players/-/011204> a bball:Player ;
+                    rdfs:label "Jerian Grant" ; bball:hasHeight "1.93"^^xsd:double ; bball:hasPosition "Guard" .
+                <https://www.euroleaguebasketball.net/euroleague/players/-/002328> a bball:Player ;
+                    rdfs:label "Marius Grigonis" ; bball:hasPosition "Guard" .
+                """);
+
+        Map<String, Map<String, Object>> players = controller.getPlayers(List.of("011204", "002328", "999999"), List.of("name", "height"));
+        assertEquals(List.of("011204", "002328", "999999"), List.copyOf(players.keySet()));
+        assertEquals("Jerian Grant", players.get("011204").get("name"));
+        assertEquals(1.93, players.get("011204").get("height"));
+        assertFalse(players.get("011204").containsKey("position"));
+        assertEquals(Set.of("iri", "name"), players.get("002328").keySet());
+        assertNull(players.get("999999"));
+
+        Map<String, Object> game = controller.getGames(List.of("E2023_333"), List.of()).get("E2023_333");
+        assertEquals(43, game.get("round"));
+        assertEquals("2024-05-26T20:00:00", game.get("date"));
+        assertEquals("https://www.euroleaguebasketball.net/euroleague/teams/-/MAD", game.get("home"));
+
+        assertThrows(IllegalArgumentException.class, () -> controller.getPlayers(List.of("011204"), List.of("salary")));
+        assertThrows(IllegalArgumentException.class, () -> controller.getPlayers(List.of("1", "2", "3", "4"), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> controller.getGames(List.of("333"), List.of()));
+    }
+
+    private void load(String ttl) {
+        store.load(new ByteArrayInputStream(ttl.getBytes(StandardCharsets.UTF_8)), RDFFormat.TURTLE, GRAPH);
+    }
+}
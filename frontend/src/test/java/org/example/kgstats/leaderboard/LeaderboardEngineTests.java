@@ -0,0 +1,105 @@
+package org.example.kgstats.leaderboard;
+
+import org.example.kgstats.columnar.Stat;
+import org.example.kgstats.columnar.StatlineTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardEngineTests {
+
+    static final String SEASON = "http://www.ics.forth.gr/isl/Basketball/entities/Season_2023_24";
+    static final String NEXT_SEASON = "http://www.ics.forth.gr/isl/Basketball/entities/Season_2024_25";
+
+    @Test
+    void boardsMatchSortingEveryStatline() {
+        LeaderboardEngine engine = new LeaderboardEngine(5);
+        Random random = new Random(42);
+        List<double[]> lines = new ArrayList<>();
+        List<String[]> keys = new ArrayList<>();
+        for (int game = 0; game < 200; game++) {
+            String season = game < 100 ? SEASON : NEXT_SEASON;
+            for (int p = 0; p < 6; p++) {
+                String player = "P" + random.nextInt(30);
+                double[] values = new double[Stat.values().length];
+                values[Stat.POINTS.ordinal()] = random.nextInt(30);
+                // Totals of the plus-minus go down as well as up, which makes full boards go stale
+                values[Stat.PLUS_MINUS.ordinal()] = random.nextInt(41) - 20;
+                engine.add(player, "T", season, "G" + game, values);
+                lines.add(values);
+                keys.add(new String[]{player, season});
+            }
+        }
+
+        for (Stat stat : List.of(Stat.POINTS, Stat.PLUS_MINUS)) {
+            int s = stat.ordinal();
+            List<Double> games = lines.stream().map(v -> v[s]).sorted(Comparator.reverseOrder()).limit(5).toList();
+            assertEquals(games, values(engine.top(stat, LeaderboardEngine.Scope.GAME, null, 5)), stat.key());
+
+            Map<String, Double> seasons = new HashMap<>();
+            Map<String, Double> careers = new HashMap<>();
+            for (int i = 0; i < lines.size(); i++) {
+                if (keys.get(i)[1].equals(SEASON)) {
+                    seasons.merge(keys.get(i)[0], lines.get(i)[s], Double::sum);
+                }
+                careers.merge(keys.get(i)[0], lines.get(i)[s], Double::sum);
+            }
+            assertEquals(top(seasons, 5), values(engine.top(stat, LeaderboardEngine.Scope.SEASON, SEASON, 5)), stat.key());
+            assertEquals(top(careers, 5), values(engine.top(stat, LeaderboardEngine.Scope.CAREER, null, 5)), stat.key());
+        }
+
+        List<Leader> scorers = engine.top(Stat.POINTS, LeaderboardEngine.Scope.SEASON, SEASON, 3);
+        assertEquals(List.of(1, 2, 3), scorers.stream().map(Leader::rank).toList());
+        assertEquals(SEASON, scorers.get(0).season());
+        assertNull(scorers.get(0).game());
+        assertTrue(scorers.get(0).games() > 1);
+        assertThrows(IllegalArgumentException.class, () -> engine.top(Stat.POINTS, LeaderboardEngine.Scope.CAREER, SEASON, 3));
+        assertThrows(IllegalArgumentException.class, () -> engine.top(Stat.POINTS, LeaderboardEngine.Scope.GAME, null, 6));
+    }
+
+    @Test
+    void reloadedTablesOnlyAddTheirNewGames() {
+        LeaderboardEngine engine = new LeaderboardEngine(10);
+        Set<String> games = new HashSet<>();
+        StatlineTable first = new StatlineTable.Builder(4)
+                .add("P1", "PAN", SEASON, "G1", 1).set(Stat.POINTS, 20)
+                .add("P2", "MAD", SEASON, "G1", 1).set(Stat.POINTS, 15)
+                .build();
+        Leaderboards.feed(first, engine, games);
+
+        // The same game again and a new one, as after the next round is loaded
+        StatlineTable second = new StatlineTable.Builder(4)
+                .add("P1", "PAN", SEASON, "G1", 1).set(Stat.POINTS, 20)
+                .add("P2", "MAD", SEASON, "G1", 1).set(Stat.POINTS, 15)
+                .add("P2", "MAD", SEASON, "G2", 2).set(Stat.POINTS, 12)
+                .build();
+        Leaderboards.feed(second, engine, games);
+
+        assertEquals(3, engine.statlines());
+        List<Leader> scorers = engine.top(Stat.POINTS, LeaderboardEngine.Scope.SEASON, SEASON, 10);
+        assertEquals("P2", scorers.get(0).player());
+        assertEquals(27, scorers.get(0).value());
+        assertEquals(2, scorers.get(0).games());
+        assertEquals("P1", scorers.get(1).player());
+        Leader best = engine.top(Stat.POINTS, LeaderboardEngine.Scope.GAME, SEASON, 1).get(0);
+        assertEquals("G1", best.game());
+        assertEquals("PAN", best.team());
+    }
+
+    private static List<Double> values(List<Leader> leaders) {
+        return leaders.stream().map(Leader::value).toList();
+    }
+
+    private static List<Double> top(Map<String, Double> totals, int k) {
+        return totals.values().stream().sorted(Comparator.reverseOrder()).limit(k).toList();
+    }
+}
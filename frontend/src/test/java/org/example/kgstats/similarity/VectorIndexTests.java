@@ -0,0 +1,131 @@
+package org.example.kgstats.similarity;
+
+import org.example.kgstats.columnar.Stat;
+import org.example.kgstats.columnar.StatlineTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VectorIndexTests {
+
+    static final String SEASON = "http://www.ics.forth.gr/isl/Basketball/entities/Season_2023_24";
+    static final String NEXT_SEASON = "http://www.ics.forth.gr/isl/Basketball/entities/Season_2024_25";
+
+    @Test
+    void vectorKernelMatchesTheScalarOne() {
+        DistanceKernel vector = DistanceKernel.best();
+        // Surefire adds the module; without it there is only the scalar kernel to test
+        assumeTrue(vector instanceof VectorKernel);
+        DistanceKernel scalar = new ScalarKernel();
+        int dims = PlayerVectors.FEATURES.size();
+        float[] vectors = gaussian(new Random(1), 500 * dims);
+        VectorIndex fast = VectorIndex.build(vectors, dims, vector, 1, 42);
+        VectorIndex plain = VectorIndex.build(vectors, dims, scalar, 1, 42);
+
+        float[] query = gaussian(new Random(2), dims);
+        List<Match> expected = plain.exact(query, 20, r -> true);
+        List<Match> actual = fast.exact(query, 20, r -> true);
+        assertEquals(expected.stream().map(Match::row).toList(), actual.stream().map(Match::row).toList());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).distance(), actual.get(i).distance(), 1e-4);
+        }
+    }
+
+    @Test
+    void ivfFindsMostOfTheExactNeighbours() {
+        int dims = PlayerVectors.FEATURES.size();
+        Random random = new Random(3);
+        // Rows around 40 centres, as player seasons cluster by role
+        float[] centres = gaussian(random, 40 * dims);
+        float[] vectors = new float[4000 * dims];
+        for (int r = 0; r < 4000; r++) {
+            int centre = random.nextInt(40);
+            for (int d = 0; d < dims; d++) {
+                vectors[r * dims + d] = centres[centre * dims + d] * 3 + (float) random.nextGaussian();
+            }
+        }
+        VectorIndex index = VectorIndex.build(vectors, dims, DistanceKernel.best(), 63, 42);
+        assertEquals(63, index.lists());
+
+        int found = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = new float[dims];
+            System.arraycopy(vectors, q * dims, query, 0, dims);
+            int self = q;
+            List<Match> exact = index.exact(query, 10, r -> r != self);
+            // Probing every list is the exact search
+            assertEquals(exact, index.search(query, 10, index.lists(), r -> r != self));
+            assertFalse(exact.stream().anyMatch(m -> m.row() == self));
+            Set<Integer> truth = new HashSet<>(exact.stream().map(Match::row).toList());
+            found += (int) index.search(query, 10, 8, r -> r != self).stream().filter(m -> truth.contains(m.row())).count();
+        }
+        assertTrue(found >= 0.9 * 500, "recall " + found / 500.0);
+    }
+
+    @Test
+    void emptyIndexFindsNothing() {
+        int dims = PlayerVectors.FEATURES.size();
+        VectorIndex index = VectorIndex.build(new float[0], dims, DistanceKernel.best(), 8, 42);
+        assertEquals(0, index.size());
+        assertEquals(0, index.lists());
+        float[] query = gaussian(new Random(4), dims);
+        assertEquals(List.of(), index.exact(query, 10, r -> true));
+        assertEquals(List.of(), index.search(query, 10, 8, r -> true));
+
+        // No player season with enough minutes
+        StatlineTable.Builder table = new StatlineTable.Builder(16);
+        line(table, "BENCH", SEASON, 0, 2, 2, 0, 0);
+        PlayerVectors vectors = PlayerVectors.of(table.build(), 100);
+        assertEquals(0, vectors.size());
+        assertEquals(0, VectorIndex.build(vectors.vectors(), vectors.dims(), DistanceKernel.best(), 1, 42).size());
+    }
+
+    @Test
+    void playerSeasonsNearestByTheirPer36Lines() {
+        StatlineTable.Builder table = new StatlineTable.Builder(16);
+        for (int game = 0; game < 10; game++) {
+            line(table, "SCORER", SEASON, game, 30, 20, 1, 2);
+            line(table, "SCORER2", SEASON, game, 30, 19, 1, 2);
+            line(table, "BIG", SEASON, game, 30, 8, 12, 1);
+            line(table, "PASSER", SEASON, game, 30, 9, 3, 10);
+            line(table, "SCORER", NEXT_SEASON, game, 30, 8, 11, 1);
+            // Too few minutes to be kept
+            line(table, "BENCH", SEASON, game, 2, 2, 0, 0);
+        }
+        PlayerVectors vectors = PlayerVectors.of(table.build(), 100);
+        assertEquals(5, vectors.size());
+        assertEquals(-1, vectors.row("BENCH", null));
+        int latest = vectors.row("SCORER", null);
+        assertEquals(NEXT_SEASON, vectors.season(latest));
+
+        VectorIndex index = VectorIndex.build(vectors.vectors(), vectors.dims(), DistanceKernel.best(), 1, 42);
+        List<Match> nearScorer = index.exact(vectors.vector(vectors.row("SCORER", SEASON)), 2,
+                r -> !vectors.player(r).equals("SCORER"));
+        assertEquals("SCORER2", vectors.player(nearScorer.get(0).row()));
+        // The scorer turned big man of the next season is nearest the big man
+        List<Match> nearLatest = index.exact(vectors.vector(latest), 1, r -> !vectors.player(r).equals("SCORER"));
+        assertEquals("BIG", vectors.player(nearLatest.get(0).row()));
+    }
+
+    private static void line(StatlineTable.Builder table, String player, String season, int game,
+                             double minutes, int points, int rebounds, int assists) {
+        table.add(player, "T", season, season + game, game + 1)
+                .set(Stat.MINUTES, minutes).set(Stat.POINTS, points).set(Stat.DEFENSIVE_REBOUNDS, rebounds)
+                .set(Stat.ASSISTS, assists).set(Stat.FIELD_GOALS_ATTEMPTED_2, points / 2)
+                .set(Stat.FIELD_GOALS_MADE_2, points / 4);
+    }
+
+    private static float[] gaussian(Random random, int length) {
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = (float) random.nextGaussian();
+        }
+        return values;
+    }
+}
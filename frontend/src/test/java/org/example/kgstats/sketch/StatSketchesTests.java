@@ -0,0 +1,104 @@
+package org.example.kgstats.sketch;
+
+import com.tdunning.math.stats.MergingDigest;
+import org.example.kgstats.columnar.Stat;
+import org.example.kgstats.controller.SketchController;
+import org.example.kgstats.store.SesameTripleStore;
+import org.junit.jupiter.api.Test;
+import org.openrdf.rio.RDFFormat;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatSketchesTests {
+
+    static final String GRAPH = "http://www.ics.forth.gr/isl/EuroleagueKG";
+    static final String SEASONS = "http://www.ics.forth.gr/isl/Basketball/entities/Season_";
+
+    @Test
+    void sketchesOfTheBackendMatchTheStatlinesOfTheStore() throws Exception {
+        StatSketches sketches = StatSketches.open(Path.of(getClass().getResource("/sketches2023.bin").toURI()));
+        assertEquals(Set.of(SEASONS + "2023_24"), sketches.seasons());
+        assertEquals(Set.of("Unknown"), sketches.positions());
+
+        List<Integer> pir = new ArrayList<>();
+        try (SesameTripleStore store = SesameTripleStore.inMemory()) {
+            try (InputStream in = getClass().getResourceAsStream("/games2023.ttl")) {
+                store.load(in, RDFFormat.TURTLE, GRAPH);
+            }
+            store.forEach("test.pir", """
+                    PREFIX bball: <http://www.ics.forth.gr/isl/Basketball#>
+                    SELECT ?pir WHERE { ?participation bball:hasPlayerStatline ?line . ?line bball:PIR ?pir }
+                    """, row -> pir.add(row.getInt("pir")));
+        }
+        assertEquals(pir.size(), sketches.count(Stat.PIR, List.of(), List.of()));
+        // 22 statlines are fewer than the digest's centroids, so GRANT's 17 ranks exactly: below, plus half the ties
+        double below = pir.stream().filter(v -> v < 17).count() + pir.stream().filter(v -> v == 17).count() / 2.0;
+        assertEquals(below / pir.size(), sketches.cdf(Stat.PIR, List.of(SEASONS + "2023_24"), List.of(), 17), 1e-9);
+        assertEquals(pir.stream().mapToInt(Integer::intValue).max().getAsInt(),
+                sketches.quantiles(Stat.PIR, List.of(), List.of(), new double[]{1})[0], 1e-9);
+        assertTrue(Double.isNaN(sketches.cdf(Stat.PIR, List.of(SEASONS + "2000_01"), List.of(), 17)));
+    }
+
+    @Test
+    void mergesSeasonsAndPositionsWithinTheSketchError() throws Exception {
+        // Two seasons of two positions, 20000 values each, uniform on [0, 100) for guards and [50, 150) for centers
+        Random random = new Random(7);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write("KGSKET01".getBytes(StandardCharsets.US_ASCII));
+        out.writeInt(100);
+        out.writeInt(4);
+        for (String season : List.of("2022_23", "2023_24")) {
+            for (String position : List.of("Guard", "Center")) {
+                MergingDigest digest = new MergingDigest(100);
+                for (int i = 0; i < 20000; i++) {
+                    digest.add((position.equals("Guard") ? 0 : 50) + random.nextDouble() * 100);
+                }
+                ByteBuffer buffer = ByteBuffer.allocate(digest.byteSize());
+                digest.asBytes(buffer);
+                out.writeUTF(SEASONS + season);
+                out.writeUTF(position);
+                out.writeUTF("PIR");
+                out.writeInt(buffer.position());
+                out.write(buffer.array(), 0, buffer.position());
+            }
+        }
+        StatSketches sketches = StatSketches.read(new ByteArrayInputStream(bytes.toByteArray()), "test");
+
+        assertEquals(80000, sketches.count(Stat.PIR, List.of(), List.of()));
+        assertEquals(40000, sketches.count(Stat.PIR, List.of(), List.of("Guard")));
+        assertEquals(0.9, sketches.cdf(Stat.PIR, List.of(), List.of("Guard"), 90), 0.01);
+        // Guards and centers together: a quarter below 50 and a quarter above 100; away from the
+        // tails a digest of compression 100 is within about a percent
+        assertEquals(0.75, sketches.cdf(Stat.PIR, List.of(), List.of(), 100), 0.015);
+        assertEquals(75, sketches.quantiles(Stat.PIR, List.of(SEASONS + "2023_24"), List.of(), new double[]{0.5})[0], 1.5);
+        assertEquals(0, sketches.count(Stat.POINTS, List.of(), List.of()));
+
+        List<double[]> histogram = sketches.histogram(Stat.PIR, List.of(), List.of("Center"), 10);
+        assertEquals(10, histogram.size());
+        assertEquals(50, histogram.get(0)[0], 0.1);
+        assertEquals(40000, histogram.stream().mapToDouble(bin -> bin[1]).sum(), 1);
+        // A bin's count is off by up to the rank error at both its edges, times the statlines
+        assertEquals(4000, histogram.get(4)[1], 0.02 * 40000);
+
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("statSketches", sketches));
+        Map<String, Object> percentile = new SketchController(beans.getBeanProvider(StatSketches.class))
+                .getPercentile("pir", 90, List.of("2022-23", "2023-24"), List.of("Guard"));
+        assertEquals(40000L, percentile.get("statlines"));
+        assertEquals(90, (Double) percentile.get("percentile"), 1);
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.kgstats.snapshot;
+
+import org.example.kgstats.store.SesameTripleStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.openrdf.rio.RDFFormat;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * games2023.snapshot was written by the backend HdtSnapshotWriter from games2023.ttl,
+ * so every answer can be checked against the same data in a Sesame store.
+ */
+class HdtSnapshotTests {
+
+    static final String GAME = "<https://www.euroleaguebasketball.net/euroleague/game-center/2023-24/-/E2023/333>";
+    static final String PAN = "<https://www.euroleaguebasketball.net/euroleague/teams/-/PAN>";
+    static final String BBALL = "http://www.ics.forth.gr/isl/Basketball#";
+
+    static SesameTripleStore store;
+    static HdtSnapshot snapshot;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        store = SesameTripleStore.inMemory();
+        try (InputStream in = HdtSnapshotTests.class.getResourceAsStream("/games2023.ttl")) {
+            store.load(in, RDFFormat.TURTLE, "http://www.ics.forth.gr/isl/EuroleagueKG");
+        }
+        snapshot = HdtSnapshot.open(Path.of(HdtSnapshotTests.class.getResource("/games2023.snapshot").toURI()));
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        snapshot.close();
+        store.close();
+    }
+
+    @Test
+    void countsMatchTheStore() {
+        assertEquals(store.count("SELECT (COUNT(*) AS ?count) WHERE { ?s ?p ?o }"), snapshot.count(null, null, null));
+        List<String> predicates = store.select("SELECT DISTINCT ?p WHERE { ?s ?p ?o }", row -> row.getString("p"));
+        for (String p : predicates) {
+            int expected = store.count("SELECT (COUNT(*) AS ?count) WHERE { ?s <" + p + "> ?o }");
+            assertEquals(expected, snapshot.count(null, "<" + p + ">", null), p);
+            assertEquals(expected, snapshot.find(null, "<" + p + ">", null, Integer.MAX_VALUE).size(), p);
+        }
+    }
+
+    @Test
+    void subjectAndObjectLookups() {
+        int gameTriples = store.count("SELECT (COUNT(*) AS ?count) WHERE { " + GAME + " ?p ?o }");
+        assertEquals(gameTriples, snapshot.count(GAME, null, null));
+        assertEquals(gameTriples, snapshot.find(GAME, null, null, 1000).size());
+        assertEquals(3, snapshot.count(GAME, "<" + BBALL + "hasReferee>", null));
+
+        int panTriples = store.count("SELECT (COUNT(*) AS ?count) WHERE { ?s ?p " + PAN + " }");
+        assertEquals(panTriples, snapshot.count(null, null, PAN));
+        List<String[]> winners = snapshot.find(null, "<" + BBALL + "winningTeam>", PAN, 10);
+        assertEquals(1, winners.size());
+        assertEquals(GAME, winners.get(0)[0]);
+
+        assertEquals(1, snapshot.count(GAME, "<" + BBALL + "hasHomeTeamScore>", "\"80\"^^<http://www.w3.org/2001/XMLSchema#integer>"));
+        assertEquals(0, snapshot.count(GAME, null, "<http://example.org/missing>"));
+        assertTrue(snapshot.find("<http://example.org/missing>", null, null, 10).isEmpty());
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.kgstats.standings;
+
+import org.example.kgstats.cache.GraphVersion;
+import org.example.kgstats.config.StoreProperties;
+import org.example.kgstats.store.SesameTripleStore;
+import org.junit.jupiter.api.Test;
+import org.openrdf.rio.RDFFormat;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StandingsEngineTests {
+
+    static final String GRAPH = "http://www.ics.forth.gr/isl/EuroleagueKG";
+    static final String TEAMS = "https://www.euroleaguebasketball.net/euroleague/teams/-/";
+    static final String SEASON = "http://www.ics.forth.gr/isl/Basketball/entities/Season_2023_24";
+    static final String NEXT_SEASON = "http://www.ics.forth.gr/isl/Basketball/entities/Season_2024_25";
+
+    private static GameResult game(String season, String date, int round, String home, String road,
+                                   int homeScore, int roadScore, boolean extraTime) {
+        return new GameResult(home + road + round, season, LocalDateTime.parse(date), round,
+                TEAMS + home, TEAMS + road, homeScore, roadScore, extraTime);
+    }
+
+    @Test
+    void standingsAfterEachRoundAndAsOfAnyDate() {
+        StandingsEngine engine = new StandingsEngine(StandingsEngine.Elo.DEFAULT);
+        engine.add(game(SEASON, "2023-10-05T20:00:00", 1, "PAN", "MAD", 80, 70, false));
+        engine.add(game(SEASON, "2023-10-06T20:00:00", 1, "OLY", "BAR", 75, 77, false));
+        engine.add(game(SEASON, "2023-10-12T20:00:00", 2, "MAD", "OLY", 90, 60, false));
+        engine.add(game(SEASON, "2023-10-13T20:00:00", 2, "BAR", "PAN", 81, 83, true));
+        engine.build();
+
+        List<TeamStanding> round1 = engine.afterRound(SEASON, 1).table();
+        assertEquals(List.of(TEAMS + "PAN", TEAMS + "BAR", TEAMS + "OLY", TEAMS + "MAD"),
+                round1.stream().map(TeamStanding::team).toList());
+        TeamStanding pan = engine.afterRound(SEASON, null).table().get(0);
+        assertEquals(TEAMS + "PAN", pan.team());
+        assertEquals(2, pan.wins());
+        assertEquals(1, pan.roadWins());
+        assertEquals(12, pan.pointDifferential());
+
+        // Between the games of round 2: the round 1 snapshot and one game replayed
+        StandingsEngine.Snapshot midway = engine.asOf(SEASON, LocalDateTime.parse("2023-10-12T23:00:00"));
+        assertEquals(3, midway.games());
+        assertEquals(TEAMS + "MAD", midway.table().get(0).team());
+        assertEquals(0, engine.asOf(SEASON, LocalDateTime.parse("2023-09-01T00:00:00")).games());
+        assertEquals(engine.afterRound(SEASON, 2), engine.asOf(SEASON, LocalDateTime.parse("2024-01-01T00:00:00")));
+        assertNull(engine.afterRound(SEASON, 3));
+        assertNull(engine.afterRound(NEXT_SEASON, null));
+    }
+
+    @Test
+    void aPostponedGameCountsInItsOwnRound() {
+        StandingsEngine engine = new StandingsEngine(StandingsEngine.Elo.DEFAULT);
+        engine.add(game(SEASON, "2023-10-05T20:00:00", 1, "PAN", "MAD", 80, 70, false));
+        engine.add(game(SEASON, "2023-10-12T20:00:00", 2, "MAD", "OLY", 90, 60, false));
+        engine.add(game(SEASON, "2023-10-19T20:00:00", 3, "PAN", "OLY", 70, 75, false));
+        // Round 1's other game, postponed to the week of round 3
+        engine.add(game(SEASON, "2023-10-20T20:00:00", 1, "OLY", "BAR", 75, 77, false));
+        engine.build();
+
+        StandingsEngine.Snapshot round1 = engine.afterRound(SEASON, 1);
+        assertEquals(2, round1.games());
+        assertEquals(LocalDateTime.parse("2023-10-20T20:00:00"), round1.date());
+        assertEquals(List.of(TEAMS + "PAN", TEAMS + "BAR", TEAMS + "OLY", TEAMS + "MAD"),
+                round1.table().stream().map(TeamStanding::team).toList());
+        // Without the round 2 and 3 games
+        TeamStanding oly = round1.table().get(2);
+        assertEquals(1, oly.played());
+        assertEquals(engine.ratingHistory(TEAMS + "OLY").get(2).after(), oly.rating(), 1e-9);
+        TeamStanding pan = round1.table().get(0);
+        assertEquals(1, pan.played());
+        assertEquals(engine.ratingHistory(TEAMS + "PAN").get(0).after(), pan.rating(), 1e-9);
+
+        assertEquals(3, engine.afterRound(SEASON, 2).games());
+        StandingsEngine.Snapshot round3 = engine.afterRound(SEASON, 3);
+        assertEquals(4, round3.games());
+        assertEquals(round3, engine.afterRound(SEASON, null));
+        assertEquals(round3.table(), engine.asOf(SEASON, LocalDateTime.parse("2023-10-21T00:00:00")).table());
+        // In date order, the round 3 game is in before the postponed one
+        assertEquals(3, engine.asOf(SEASON, LocalDateTime.parse("2023-10-19T23:00:00")).games());
+    }
+
+    @Test
+    void ratingsMoveByTheResultAndRegressBetweenSeasons() {
+        StandingsEngine engine = new StandingsEngine(new StandingsEngine.Elo(1500, 20, 0, 0.5));
+        engine.add(game(SEASON, "2023-10-05T20:00:00", 1, "PAN", "MAD", 100, 60, false));
+        engine.add(game(SEASON, "2023-10-12T20:00:00", 2, "MAD", "PAN", 81, 80, true));
+        engine.add(game(NEXT_SEASON, "2024-10-03T20:00:00", 1, "PAN", "MAD", 70, 60, false));
+        engine.build();
+
+        List<RatingChange> pan = engine.ratingHistory(TEAMS + "PAN");
+        assertEquals(3, pan.size());
+        RatingChange first = pan.get(0);
+        assertEquals(1500, first.before(), 1e-9);
+        // An even game won by 40: K * ln(41) * (1 - 0.5)
+        assertEquals(1500 + 20 * Math.log(41) * 0.5, first.after(), 0.5);
+        // Lost in overtime, so by the smallest margin
+        assertTrue(pan.get(1).after() < first.after());
+        assertTrue(first.after() - pan.get(1).after() < 20 * Math.log(2));
+        // Half the distance from 1500 is lost over the summer
+        assertEquals(1500 + (pan.get(1).after() - 1500) / 2, pan.get(2).before(), 1e-9);
+        assertEquals(pan.get(2).after(), engine.afterRound(NEXT_SEASON, 1).table().get(0).rating(), 1e-9);
+
+        RatingChange mad = engine.ratingHistory(TEAMS + "MAD").get(0);
+        assertEquals(first.after() - 1500, 1500 - mad.after(), 1e-9);
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.add(game(SEASON, "2023-10-01T20:00:00", 1, "PAN", "MAD", 1, 0, false)));
+    }
+
+    @Test
+    void loadsTheGamesOfTheStore() throws Exception {
+        try (SesameTripleStore store = SesameTripleStore.inMemory()) {
+            try (InputStream in = getClass().getResourceAsStream("/games2023.ttl")) {
+                store.load(in, RDFFormat.TURTLE, GRAPH);
+            }
+            Standings standings = new Standings(store, new StoreProperties(),
+                    new GraphVersion(store, new StoreProperties(), Duration.ZERO), 1500, 20, 60, 0.25);
+            StandingsEngine engine = standings.engine();
+
+            StandingsEngine.Snapshot finalFour = engine.afterRound(SEASON, 43);
+            assertEquals(1, finalFour.games());
+            assertEquals(LocalDateTime.parse("2024-05-26T20:00:00"), finalFour.date());
+            TeamStanding pan = finalFour.table().get(0);
+            assertEquals(TEAMS + "PAN", pan.team());
+            assertEquals(95, pan.pointsFor());
+            assertEquals(1, pan.roadWins());
+            assertTrue(pan.rating() > 1500);
+            assertSame(engine, standings.engine());
+        }
+    }
+}
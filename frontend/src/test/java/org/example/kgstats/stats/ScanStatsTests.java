@@ -0,0 +1,74 @@
+package org.example.kgstats.stats;
+
+import org.example.kgstats.config.StoreProperties;
+import org.example.kgstats.store.SesameTripleStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openrdf.rio.RDFFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScanStatsTests {
+
+    static final String GRAPH = "http://www.ics.forth.gr/isl/EuroleagueKG";
+
+    private SesameTripleStore store;
+    private ScanStats stats;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = SesameTripleStore.inMemory();
+        try (InputStream in = getClass().getResourceAsStream("/games2023.ttl")) {
+            store.load(in, RDFFormat.TURTLE, GRAPH);
+        }
+        // Outside the KG graph, so never counted
+        store.load(new ByteArrayInputStream("<urn:other> a <urn:OtherClass> ; <urn:label> \"other\" .".getBytes(StandardCharsets.UTF_8)),
+                RDFFormat.TURTLE, "urn:other-graph");
+        stats = new ScanStats(store, new StoreProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void combinedBasicQueryMatchesOneCountPerKey() {
+        Map<String, Integer> basic = stats.basic();
+
+        assertEquals(Map.of(
+                "totalTriples", count("(COUNT(*) AS ?count)", ""),
+                "totalEntities", count("(COUNT(DISTINCT ?s) AS ?count)", "FILTER(?p = <http://www.w3.org/1999/02/22-rdf-syntax-ns#type>)"),
+                "totalPredicates", count("(COUNT(DISTINCT ?p) AS ?count)", ""),
+                "totalClasses", count("(COUNT(DISTINCT ?o) AS ?count)", "FILTER(?p = <http://www.w3.org/1999/02/22-rdf-syntax-ns#type>)"),
+                "distinctSubjects", count("(COUNT(DISTINCT ?s) AS ?count)", ""),
+                "distinctObjects", count("(COUNT(DISTINCT ?o) AS ?count)", "FILTER(!isLiteral(?o))"),
+                "triplesWithObjectURIs", count("(COUNT(*) AS ?count)", "FILTER(!isLiteral(?o))"),
+                "triplesWithObjectLiterals", count("(COUNT(*) AS ?count)", "FILTER(isLiteral(?o))"),
+                "distinctLiterals", count("(COUNT(DISTINCT ?o) AS ?count)", "FILTER(isLiteral(?o))")), basic);
+    }
+
+    @Test
+    void propertySectionsShareOnePass() {
+        Map<String, List<Map<String, Object>>> sections = stats.propertySections();
+
+        assertEquals(List.of("properties", "propertySubjects", "propertyObjects"), List.copyOf(sections.keySet()));
+        List<Map<String, Object>> properties = sections.get("properties");
+        assertEquals(20, properties.size());
+        assertEquals(count("(COUNT(*) AS ?count)", "FILTER(?p = <" + properties.get(0).get("property") + ">)"),
+                properties.get(0).get("count"));
+        assertTrue(sections.values().stream().flatMap(List::stream)
+                .noneMatch(row -> row.get("property").toString().startsWith("urn:")));
+    }
+
+    private int count(String projection, String filter) {
+        return store.count("SELECT " + projection + " FROM <" + GRAPH + "> WHERE { ?s ?p ?o " + filter + " }");
+    }
+}
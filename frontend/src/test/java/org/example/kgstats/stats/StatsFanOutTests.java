@@ -0,0 +1,152 @@
+package org.example.kgstats.stats;
+
+import org.example.kgstats.store.TripleStoreException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatsFanOutTests {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    // Holds back the slow section until the test ends
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedAndLateSectionsAreReportedNextToTheOthers() {
+        StatsFanOut fanOut = new StatsFanOut(executor, Duration.ofMillis(500));
+
+        long start = System.nanoTime();
+        Map<String, Object> full = fanOut.fullStats(new FixedStats() {
+            @Override
+            public Map<String, Integer> basic() {
+                throw new TripleStoreException("count failed", null);
+            }
+
+            @Override
+            public List<Map<String, Object>> classes() {
+                throw new TripleStoreException("classes failed", null);
+            }
+
+            @Override
+            public List<Map<String, Object>> uriPrefixes() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rows();
+            }
+        });
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(millis < 5000, "waited " + millis + " ms");
+        assertEquals(sampleRows(), full.get("properties"));
+        assertEquals(sampleRows(), full.get("propertyObjects"));
+        assertEquals(sampleRows(), full.get("literalTypes"));
+        assertFalse(full.containsKey("basic"));
+        assertFalse(full.containsKey("classes"));
+        assertFalse(full.containsKey("uriPrefixes"));
+
+        Map<String, String> errors = (Map<String, String>) full.get("errors");
+        assertEquals("count failed", errors.get("basic"));
+        assertEquals("classes failed", errors.get("classes"));
+        assertTrue(errors.get("uriPrefixes").startsWith("Timed out"));
+        assertEquals(3, errors.size());
+    }
+
+    @Test
+    void sectionsRunConcurrently() {
+        // Every task waits for all five to have started, which only happens if they run side by side
+        // (the three property sections share one task)
+        CountDownLatch started = new CountDownLatch(5);
+        StatsFanOut fanOut = new StatsFanOut(executor, Duration.ofSeconds(10));
+
+        Map<String, Object> full = fanOut.fullStats(new FixedStats() {
+            @Override
+            protected List<Map<String, Object>> rows() {
+                started.countDown();
+                try {
+                    started.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.rows();
+            }
+
+            @Override
+            public Map<String, Integer> basic() {
+                rows();
+                return Map.of("totalTriples", 10);
+            }
+        });
+
+        assertNull(full.get("errors"));
+        assertEquals(7, full.size());
+    }
+
+    private static List<Map<String, Object>> sampleRows() {
+        return List.of(Map.of("count", 1));
+    }
+
+    private static class FixedStats implements KGStats {
+
+        protected List<Map<String, Object>> rows() {
+            return sampleRows();
+        }
+
+        @Override
+        public Map<String, Integer> summary() {
+            return Map.of();
+        }
+
+        @Override
+        public Map<String, Integer> basic() {
+            return Map.of("totalTriples", 10);
+        }
+
+        @Override
+        public List<Map<String, Object>> classes() {
+            return rows();
+        }
+
+        @Override
+        public List<Map<String, Object>> properties() {
+            return rows();
+        }
+
+        @Override
+        public List<Map<String, Object>> propertySubjects() {
+            return rows();
+        }
+
+        @Override
+        public List<Map<String, Object>> propertyObjects() {
+            return rows();
+        }
+
+        @Override
+        public List<Map<String, Object>> literalTypes() {
+            return rows();
+        }
+
+        @Override
+        public List<Map<String, Object>> uriPrefixes() {
+            return rows();
+        }
+    }
+}
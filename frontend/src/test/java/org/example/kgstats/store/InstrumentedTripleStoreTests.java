@@ -0,0 +1,57 @@
+package org.example.kgstats.store;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openrdf.rio.RDFFormat;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedTripleStoreTests {
+
+    static final String GRAPH = "http://www.ics.forth.gr/isl/EuroleagueKG";
+
+    private SimpleMeterRegistry registry;
+    private InstrumentedTripleStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SesameTripleStore sesame = SesameTripleStore.inMemory();
+        try (InputStream in = getClass().getResourceAsStream("/games2023.ttl")) {
+            sesame.load(in, RDFFormat.TURTLE, GRAPH);
+        }
+        registry = new SimpleMeterRegistry();
+        store = new InstrumentedTripleStore(sesame, registry, Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.close();
+    }
+
+    @Test
+    void recordsLatencyAndRowsByQueryName() {
+        List<String> classes = store.select("test.classes", "SELECT DISTINCT ?c WHERE { ?s a ?c }", row -> row.getString("c"));
+        store.select("test.classes", "SELECT DISTINCT ?c WHERE { ?s a ?c }", row -> row.getString("c"));
+        store.count("SELECT (COUNT(*) AS ?count) WHERE { ?s ?p ?o }");
+
+        assertEquals(2, registry.get("kgstats.query").tags("query", "test.classes", "outcome", "success").timer().count());
+        assertEquals(2 * classes.size(), registry.get("kgstats.query.rows").tag("query", "test.classes").summary().totalAmount());
+        assertEquals(1, registry.get("kgstats.query").tag("query", InstrumentedTripleStore.UNNAMED).timer().count());
+        assertTrue(registry.find("kgstats.query.errors").counters().isEmpty());
+    }
+
+    @Test
+    void countsFailedQueries() {
+        assertThrows(TripleStoreException.class, () -> store.select("test.broken", "SELECT WHERE {", row -> row));
+
+        assertEquals(1, registry.get("kgstats.query.errors")
+                .tags("query", "test.broken", "exception", "TripleStoreException").counter().count());
+        assertEquals(1, registry.get("kgstats.query").tags("query", "test.broken", "outcome", "error").timer().count());
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.kgstats.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openrdf.rio.RDFFormat;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryScopeTests {
+
+    static final String GRAPH = "http://www.ics.forth.gr/isl/EuroleagueKG";
+    static final String COUNT = "SELECT (COUNT(*) AS ?count) WHERE { ?s ?p ?o }";
+
+    private SesameTripleStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = SesameTripleStore.inMemory();
+        try (InputStream in = getClass().getResourceAsStream("/games2023.ttl")) {
+            store.load(in, RDFFormat.TURTLE, GRAPH);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void cancellingTheRequestStopsQueriesRunningInItsTasks() throws Exception {
+        QueryScope request = new QueryScope();
+        AtomicInteger cancelled = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        // A query registered on another thread, the way a fan-out section runs
+        QueryScope task = request.call(QueryScope::forTask);
+        CompletableFuture<Void> query = CompletableFuture.runAsync(() -> task.call(() -> {
+            try (QueryScope.Registration running = QueryScope.register(cancelled::incrementAndGet)) {
+                started.countDown();
+                finish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        request.cancel();
+        assertEquals(1, cancelled.get());
+        assertTrue(task.isCancelled());
+        finish.countDown();
+        query.get(5, TimeUnit.SECONDS);
+
+        // The query unregistered when it ended, so cancelling again has nothing to stop
+        request.cancel();
+        assertEquals(1, cancelled.get());
+    }
+
+    @Test
+    void queriesInACancelledScopeFailAtOnce() {
+        QueryScope scope = new QueryScope();
+        scope.cancel();
+
+        TripleStoreException e = assertThrows(TripleStoreException.class, () -> scope.call(() -> store.count(COUNT)));
+        assertEquals("Query cancelled", e.getMessage());
+        assertTrue(scope.child().isCancelled());
+    }
+
+    @Test
+    void queriesOutsideAnyScopeRunNormally() {
+        assertNull(QueryScope.current());
+        assertTrue(store.count(COUNT) > 0);
+        try (QueryScope.Registration running = QueryScope.register(() -> fail("nothing to cancel"))) {
+            assertNull(QueryScope.current());
+        }
+    }
+}
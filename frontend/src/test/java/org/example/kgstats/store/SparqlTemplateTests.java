@@ -0,0 +1,27 @@
+package org.example.kgstats.store;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparqlTemplateTests {
+
+    private final SparqlTemplate template = new SparqlTemplate("SELECT ?s WHERE { ?s ?p $value ; ?q $iri } LIMIT $limit");
+
+    @Test
+    void valuesAreBoundAsTerms() {
+        String sparql = template.bind()
+                .string("value", "say \"hi\" } ; DROP ALL #\n")
+                .iri("iri", "http://example.org/a")
+                .integer("limit", 10)
+                .sparql();
+        assertEquals("SELECT ?s WHERE { ?s ?p \"say \\\"hi\\\" } ; DROP ALL #\\n\" ; ?q <http://example.org/a> } LIMIT 10", sparql);
+    }
+
+    @Test
+    void unsafeOrMissingBindingsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> template.bind().iri("iri", "http://example.org/> } DROP ALL"));
+        assertThrows(IllegalArgumentException.class, () -> template.bind().string("other", "x"));
+        assertThrows(IllegalStateException.class, () -> template.bind().string("value", "x").integer("limit", 1).sparql());
+    }
+}